@@ -0,0 +1,8 @@
+package com.supplymind.platform_core.common.enums;
+
+public enum PdfJobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
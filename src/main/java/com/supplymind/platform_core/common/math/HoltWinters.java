@@ -2,58 +2,239 @@ package com.supplymind.platform_core.common.math;
 
 import java.util.List;
 
-public class HoltWinters {
+/**
+ * Additive Holt-Winters smoothing over a daily series.
+ * <p>
+ * An instance holds the smoothing state (level, trend, seasonal vector) of the last {@link #fit} and is
+ * meant to be reused: fitting and forecasting only touch primitive arrays allocated in the constructor, so
+ * a forecast does not allocate. The state can be saved, {@link #restore restored} and advanced one
+ * observation at a time with {@link #update}. Instances are not thread-safe; use one per thread.
+ * The static {@code List<Double>} methods are thin adapters kept for existing callers.
+ */
+public final class HoltWinters {
 
     private static final double ALPHA = 0.2; // Level
     private static final double BETA = 0.1;  // Trend
     private static final double GAMMA = 0.1; // Seasonality
 
-    public static double predictNext30Days(List<Double> history, int seasonLength) {
-        // Validation: at least 2 full seasons to detect a pattern
-        if (history.size() < seasonLength * 2) {
-            // Fallback: Simple Average if not enough data
-            return history.stream().mapToDouble(d -> d).average().orElse(0.0) * 30;
+    private static final int DEFAULT_HORIZON = 30;
+
+    private final int seasonLength;
+    private final int horizon;
+    private double alpha;
+    private double beta;
+    private double gamma;
+
+    // State after the last fit
+    private double level;
+    private double trend;
+    private final double[] seasonals;
+    private int observations;
+    private boolean seasonal;
+    private double squaredErrorSum;
+    private int errorCount;
+
+    public HoltWinters(int seasonLength, int horizon) {
+        this(seasonLength, horizon, ALPHA, BETA, GAMMA);
+    }
+
+    public HoltWinters(int seasonLength, int horizon, double alpha, double beta, double gamma) {
+        if (seasonLength < 1) throw new IllegalArgumentException("seasonLength must be >= 1");
+        if (horizon < 1) throw new IllegalArgumentException("horizon must be >= 1");
+        this.seasonLength = seasonLength;
+        this.horizon = horizon;
+        this.seasonals = new double[seasonLength];
+        setParameters(alpha, beta, gamma);
+    }
+
+    /** Swaps the smoothing factors (each in [0, 1]) for the next {@link #fit}; lets one instance try many. */
+    public HoltWinters setParameters(double alpha, double beta, double gamma) {
+        if (alpha < 0 || alpha > 1 || beta < 0 || beta > 1 || gamma < 0 || gamma > 1) {
+            throw new IllegalArgumentException("smoothing factors must be in [0, 1]");
         }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        return this;
+    }
+
+    public double alpha() {
+        return alpha;
+    }
+
+    public double beta() {
+        return beta;
+    }
+
+    public double gamma() {
+        return gamma;
+    }
+
+    public static double defaultAlpha() {
+        return ALPHA;
+    }
+
+    public static double defaultBeta() {
+        return BETA;
+    }
+
+    public static double defaultGamma() {
+        return GAMMA;
+    }
+
+    public int seasonLength() {
+        return seasonLength;
+    }
+
+    public int horizon() {
+        return horizon;
+    }
+
+    public double level() {
+        return level;
+    }
 
+    public double trend() {
+        return trend;
+    }
+
+    /** Number of observations smoothed into the current state; fixes the seasonal phase. */
+    public int observations() {
+        return observations;
+    }
 
-        double level = history.get(0);
-        double trend = (history.get(seasonLength) - history.get(0)) / seasonLength;
-        double[] seasonals = new double[seasonLength];
+    /** Copies the seasonal vector into {@code out[0..seasonLength)}. */
+    public void copySeasonals(double[] out) {
+        System.arraycopy(seasonals, 0, out, 0, seasonLength);
+    }
 
+    /**
+     * Runs the smoothing over {@code history[0..length)} and keeps the resulting state.
+     * Needs at least two full seasons; shorter series fall back to their average (no trend, no season).
+     */
+    public HoltWinters fit(double[] history, int length) {
+        observations = 0;
+        seasonal = length >= seasonLength * 2;
+        squaredErrorSum = 0;
+        errorCount = 0;
 
+        if (!seasonal) {
+            double sum = 0;
+            for (int i = 0; i < length; i++) sum += history[i];
+            level = length == 0 ? 0.0 : sum / length;
+            trend = 0;
+            observations = length;
+            return this;
+        }
+
+        level = history[0];
+        trend = (history[seasonLength] - history[0]) / seasonLength;
         for (int i = 0; i < seasonLength; i++) {
-            seasonals[i] = history.get(i) - level;
+            seasonals[i] = history[i] - level;
         }
 
+        for (int i = 0; i < length; i++) step(history[i]);
+        return this;
+    }
+
+    /**
+     * Puts back a state saved from {@link #level()}, {@link #trend()}, {@link #copySeasonals} and
+     * {@link #observations()}, so that {@link #update} and the forecasts continue from it.
+     */
+    public HoltWinters restore(double level, double trend, double[] seasonals, int observations) {
+        if (seasonals.length != seasonLength) throw new IllegalArgumentException("seasonal vector must match seasonLength");
+        this.level = level;
+        this.trend = trend;
+        System.arraycopy(seasonals, 0, this.seasonals, 0, seasonLength);
+        this.observations = observations;
+        this.seasonal = true;
+        this.squaredErrorSum = 0;
+        this.errorCount = 0;
+        return this;
+    }
 
-        for (int i = 0; i < history.size(); i++) {
-            double value = history.get(i);
-            double lastLevel = level;
-            double lastTrend = trend;
-            double lastSeasonal = seasonals[i % seasonLength];
+    /**
+     * Advances the state by one observation in O(1): same result as refitting with {@code value} appended.
+     *
+     * @throws IllegalStateException if the state has no seasonal component (last fit was under two seasons).
+     */
+    public HoltWinters update(double value) {
+        if (!seasonal) throw new IllegalStateException("update needs a seasonal state; fit at least two seasons first");
+        step(value);
+        return this;
+    }
 
+    private void step(double value) {
+        int slot = observations % seasonLength;
+        double lastLevel = level;
+        double lastTrend = trend;
+        double lastSeasonal = seasonals[slot];
 
-            level = ALPHA * (value - lastSeasonal) + (1 - ALPHA) * (lastLevel + lastTrend);
-            trend = BETA * (level - lastLevel) + (1 - BETA) * lastTrend;
-            seasonals[i % seasonLength] = GAMMA * (value - level) + (1 - GAMMA) * lastSeasonal;
+        // One-step-ahead error, skipping the first season that seeded the state
+        if (observations >= seasonLength) {
+            double error = value - (lastLevel + lastTrend + lastSeasonal);
+            squaredErrorSum += error * error;
+            errorCount++;
         }
 
+        level = alpha * (value - lastSeasonal) + (1 - alpha) * (lastLevel + lastTrend);
+        trend = beta * (level - lastLevel) + (1 - beta) * lastTrend;
+        seasonals[slot] = gamma * (value - level) + (1 - gamma) * lastSeasonal;
+        observations++;
+    }
+
+    /**
+     * Mean squared one-step-ahead error since the last fit or restore, or NaN if there was none.
+     */
+    public double oneStepMse() {
+        return errorCount == 0 ? Double.NaN : squaredErrorSum / errorCount;
+    }
+
+    /**
+     * Writes the daily forecast for the next {@link #horizon()} days into {@code out[0..horizon)}
+     * (negative days clamped to 0) and returns their sum.
+     */
+    public double forecastInto(double[] out) {
+        if (out.length < horizon) throw new IllegalArgumentException("output buffer shorter than horizon");
 
-        double totalForecast = 0;
-        for (int m = 1; m <= 30; m++) {
-            double seasonalComponent = seasonals[(history.size() + m - 1) % seasonLength];
-            double dailyForecast = level + (m * trend) + seasonalComponent;
-            totalForecast += Math.max(0, dailyForecast);
+        double total = 0;
+        for (int m = 1; m <= horizon; m++) {
+            double daily = seasonal
+                    ? level + (m * trend) + seasonals[(observations + m - 1) % seasonLength]
+                    : level;
+            daily = Math.max(0, daily);
+            out[m - 1] = daily;
+            total += daily;
         }
+        return total;
+    }
+
+    /** Sum of the daily forecast over the horizon, without an output buffer. */
+    public double forecastTotal() {
+        if (!seasonal) return level * horizon;
 
-        return totalForecast;
+        double total = 0;
+        for (int m = 1; m <= horizon; m++) {
+            double dailyForecast = level + (m * trend) + seasonals[(observations + m - 1) % seasonLength];
+            total += Math.max(0, dailyForecast);
+        }
+        return total;
     }
 
-    public static String detectTrend(List<Double> history) {
-        if (history.size() < 14) return "STABLE";
-        int split = history.size() / 3;
-        double startAvg = history.subList(0, split).stream().mapToDouble(d->d).average().orElse(0);
-        double endAvg = history.subList(history.size()-split, history.size()).stream().mapToDouble(d->d).average().orElse(0);
+    /**
+     * Compares the average of the first and last third of {@code history[0..length)}:
+     * more than 15% up is RISING, more than 15% down is DECLINING.
+     */
+    public static String detectTrend(double[] history, int length) {
+        if (length < 14) return "STABLE";
+        int split = length / 3;
+
+        double startSum = 0;
+        for (int i = 0; i < split; i++) startSum += history[i];
+        double endSum = 0;
+        for (int i = length - split; i < length; i++) endSum += history[i];
+        double startAvg = startSum / split;
+        double endAvg = endSum / split;
 
         if (startAvg == 0) return "RISING";
 
@@ -62,4 +243,20 @@ public class HoltWinters {
         if (change < -0.15) return "DECLINING";
         return "STABLE";
     }
-}
\ No newline at end of file
+
+    public static double predictNext30Days(List<Double> history, int seasonLength) {
+        double[] values = toArray(history);
+        return new HoltWinters(seasonLength, DEFAULT_HORIZON).fit(values, values.length).forecastTotal();
+    }
+
+    public static String detectTrend(List<Double> history) {
+        double[] values = toArray(history);
+        return detectTrend(values, values.length);
+    }
+
+    private static double[] toArray(List<Double> history) {
+        double[] values = new double[history.size()];
+        for (int i = 0; i < values.length; i++) values[i] = history.get(i);
+        return values;
+    }
+}
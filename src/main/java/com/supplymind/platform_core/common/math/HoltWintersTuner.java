@@ -0,0 +1,96 @@
+package com.supplymind.platform_core.common.math;
+
+/**
+ * Picks (alpha, beta, gamma) for one series by minimising the one-step-ahead squared error:
+ * a coarse grid first, then coordinate descent with a shrinking step around the best grid point.
+ * <p>
+ * Reuses a single {@link HoltWinters} instance, so tuning allocates nothing per candidate.
+ * Not thread-safe; use one tuner per thread.
+ */
+public final class HoltWintersTuner {
+
+    private static final double[] ALPHA_GRID = {0.05, 0.15, 0.25, 0.35, 0.45, 0.55, 0.65, 0.75, 0.85, 0.95};
+    private static final double[] BETA_GRID = {0.0, 0.05, 0.1, 0.2, 0.3};
+    private static final double[] GAMMA_GRID = {0.0, 0.05, 0.1, 0.2, 0.3, 0.5};
+
+    private static final double INITIAL_STEP = 0.05;
+    private static final int DESCENT_ROUNDS = 4;
+
+    // Improvement a candidate needs over the current best (relative, plus an absolute floor in units^2 for
+    // rounding noise); keeps the defaults on flat error surfaces such as constant series
+    private static final double MIN_IMPROVEMENT = 1e-9;
+    private static final double MIN_ABS_IMPROVEMENT = 1e-12;
+
+    private final HoltWinters model;
+
+    private double bestAlpha;
+    private double bestBeta;
+    private double bestGamma;
+    private double bestMse;
+
+    public HoltWintersTuner(int seasonLength) {
+        this.model = new HoltWinters(seasonLength, 1);
+    }
+
+    /**
+     * Tunes on {@code history[0..length)} and writes {@code alpha, beta, gamma, mse} into {@code out[0..4)}.
+     *
+     * @return false (and leaves {@code out} untouched) when the series is too short for seasonal smoothing.
+     */
+    public boolean tune(double[] history, int length, double[] out) {
+        if (length < model.seasonLength() * 2 + 1) return false;
+
+        bestAlpha = HoltWinters.defaultAlpha();
+        bestBeta = HoltWinters.defaultBeta();
+        bestGamma = HoltWinters.defaultGamma();
+        bestMse = error(history, length, bestAlpha, bestBeta, bestGamma);
+
+        for (double a : ALPHA_GRID) {
+            for (double b : BETA_GRID) {
+                for (double g : GAMMA_GRID) {
+                    consider(history, length, a, b, g);
+                }
+            }
+        }
+
+        double step = INITIAL_STEP;
+        for (int round = 0; round < DESCENT_ROUNDS; round++) {
+            boolean moved = true;
+            while (moved) {
+                moved = consider(history, length, clamp(bestAlpha - step), bestBeta, bestGamma)
+                        | consider(history, length, clamp(bestAlpha + step), bestBeta, bestGamma)
+                        | consider(history, length, bestAlpha, clamp(bestBeta - step), bestGamma)
+                        | consider(history, length, bestAlpha, clamp(bestBeta + step), bestGamma)
+                        | consider(history, length, bestAlpha, bestBeta, clamp(bestGamma - step))
+                        | consider(history, length, bestAlpha, bestBeta, clamp(bestGamma + step));
+            }
+            step /= 2;
+        }
+
+        out[0] = bestAlpha;
+        out[1] = bestBeta;
+        out[2] = bestGamma;
+        out[3] = bestMse;
+        return true;
+    }
+
+    private boolean consider(double[] history, int length, double a, double b, double g) {
+        double mse = error(history, length, a, b, g);
+        if (bestMse - mse > bestMse * MIN_IMPROVEMENT + MIN_ABS_IMPROVEMENT) {
+            bestAlpha = a;
+            bestBeta = b;
+            bestGamma = g;
+            bestMse = mse;
+            return true;
+        }
+        return false;
+    }
+
+    private double error(double[] history, int length, double a, double b, double g) {
+        return model.setParameters(a, b, g).fit(history, length).oneStepMse();
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0.0, Math.min(1.0, value));
+    }
+}
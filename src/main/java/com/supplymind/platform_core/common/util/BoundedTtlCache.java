@@ -0,0 +1,109 @@
+package com.supplymind.platform_core.common.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Small in-memory cache with a hard size bound (LRU eviction) and a fixed time-to-live per entry.
+ * Intended for hot, cheap-to-recompute values (presigned URLs, AI results, ...), not as a system of record.
+ */
+public class BoundedTtlCache<K, V> {
+
+    public record Stats(long hits, long misses, long evictions, long expirations, int size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {}
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public BoundedTtlCache(int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be > 0");
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be > 0");
+
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        // accessOrder = true -> iteration order is least-recently-used first
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedTtlCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key) {
+        synchronized (map) {
+            Entry<V> e = map.get(key);
+            if (e == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (e.expiresAtMillis() <= System.currentTimeMillis()) {
+                map.remove(key);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return e.value();
+        }
+    }
+
+    public void put(K key, V value) {
+        if (value == null) return;
+        synchronized (map) {
+            map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * Returns the cached value or computes it with {@code loader}.
+     * The loader runs outside the lock, so two concurrent misses may both compute; last write wins.
+     */
+    public V getOrCompute(K key, Function<? super K, ? extends V> loader) {
+        V cached = get(key);
+        if (cached != null) return cached;
+
+        V value = loader.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (map) {
+            size = map.size();
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), expirations.get(), size);
+    }
+}
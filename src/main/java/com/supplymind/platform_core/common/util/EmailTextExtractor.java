@@ -0,0 +1,175 @@
+package com.supplymind.platform_core.common.util;
+
+/**
+ * Regex-free HTML-to-text conversion for inbound email bodies.
+ * <p>
+ * {@link #htmlToText} does in one left-to-right scan what used to be seven regex / replace passes:
+ * drop the {@code <div class="gmail_quote">...</div>} history block, turn {@code <br>}, {@code </p>} and
+ * {@code </div>} into line breaks, strip all other tags, trim, and decode the common entities.
+ * {@link #cutReplyHistory} is the linear equivalent of the old "On ... wrote:" / "From:" splitter.
+ * <p>
+ * Output matches the previous implementation except that entities are decoded once:
+ * {@code &amp;lt;} now becomes {@code &lt;} instead of {@code <}.
+ */
+public final class EmailTextExtractor {
+    private EmailTextExtractor() {}
+
+    private static final String GMAIL_QUOTE_OPEN = "<div class=\"gmail_quote\">";
+    private static final String DIV_CLOSE = "</div>";
+
+    private static final String[] ENTITIES = {"&nbsp;", "&amp;", "&quot;", "&gt;", "&lt;"};
+    private static final char[] ENTITY_CHARS = {' ', '&', '"', '>', '<'};
+
+    public static String htmlToText(String html) {
+        if (html == null || html.isEmpty()) return "";
+
+        final int n = html.length();
+        StringBuilder out = new StringBuilder(Math.min(n, 1 << 16));
+
+        // trim() semantics: leading/trailing chars <= ' ' from the markup are dropped, decoded entities never are
+        int significantEnd = 0;
+        boolean quoteCloseMissing = false; // once no </div> is left, no later quote block can match
+        boolean tagCloseMissing = false;   // once no '>' is left, every remaining '<' is literal text
+
+        int i = 0;
+        while (i < n) {
+            char c = html.charAt(i);
+
+            if (c == '<') {
+                if (!quoteCloseMissing && regionMatchesAscii(html, i, GMAIL_QUOTE_OPEN)) {
+                    int close = indexOfAscii(html, DIV_CLOSE, i + GMAIL_QUOTE_OPEN.length());
+                    if (close >= 0) {
+                        i = close + DIV_CLOSE.length();
+                        continue;
+                    }
+                    quoteCloseMissing = true;
+                }
+
+                int gt = tagCloseMissing ? -1 : html.indexOf('>', i + 1);
+                if (gt < 0) tagCloseMissing = true;
+
+                if (gt > i + 1) {
+                    int breaks = lineBreaksFor(html, i + 1, gt);
+                    for (int b = 0; b < breaks; b++) {
+                        if (out.length() > 0) out.append('\n');
+                    }
+                    i = gt + 1;
+                    continue;
+                }
+                // "<>" or a '<' that never closes is plain text
+            } else if (c == '&') {
+                int entity = entityAt(html, i);
+                if (entity >= 0) {
+                    out.append(ENTITY_CHARS[entity]);
+                    significantEnd = out.length();
+                    i += ENTITIES[entity].length();
+                    continue;
+                }
+            }
+
+            if (c > ' ') {
+                out.append(c);
+                significantEnd = out.length();
+            } else if (out.length() > 0) {
+                out.append(c);
+            }
+            i++;
+        }
+
+        out.setLength(significantEnd);
+        return out.toString();
+    }
+
+    /**
+     * Cuts quoted history at the first line starting with "On ... wrote:", "From: ", "Sent: ",
+     * "-----Original Message-----" or five underscores, and trims what is left.
+     * Returns the input unchanged when there is no such line.
+     */
+    public static String cutReplyHistory(String body) {
+        if (body == null) return null;
+
+        final int n = body.length();
+        for (int i = body.indexOf('\n'); i >= 0 && i < n; i = body.indexOf('\n', i + 1)) {
+            if (isReplyMarker(body, i)) {
+                return body.substring(0, i).trim();
+            }
+        }
+        return body;
+    }
+
+    // '\n' at position nl starts one of: On\s.+wrote: | From:\s.+ | Sent:\s.+ | -----Original Message----- | _{5,}
+    private static boolean isReplyMarker(String s, int nl) {
+        int p = nl + 1;
+        if (regionMatchesAscii(s, p, "On")) {
+            if (isRegexSpace(s, p + 2) && hasWroteOnLine(s, p + 3)) return true;
+        }
+        if (regionMatchesAscii(s, p, "From:") || regionMatchesAscii(s, p, "Sent:")) {
+            if (isRegexSpace(s, p + 5) && p + 6 < s.length() && !isLineTerminator(s.charAt(p + 6))) return true;
+        }
+        if (regionMatchesAscii(s, p, "-----Original Message-----")) return true;
+        return s.startsWith("_____", p);
+    }
+
+    // .+wrote: starting at 'from' - at least one non-terminator char, then "wrote:" on the same line
+    private static boolean hasWroteOnLine(String s, int from) {
+        for (int k = from; k < s.length() && !isLineTerminator(s.charAt(k)); k++) {
+            if (k > from && regionMatchesAscii(s, k, "wrote:")) return true;
+        }
+        return false;
+    }
+
+    /** Line breaks emitted for the tag body between '<' and '>' (exclusive): br -> 1, /p -> 2, /div -> 1. */
+    private static int lineBreaksFor(String s, int start, int end) {
+        int len = end - start;
+        if (len >= 2 && lower(s.charAt(start)) == 'b' && lower(s.charAt(start + 1)) == 'r') {
+            // br\s*/?
+            int k = start + 2;
+            while (k < end && isRegexSpace(s, k)) k++;
+            if (k < end && s.charAt(k) == '/') k++;
+            return k == end ? 1 : 0;
+        }
+        if (len == 2 && regionMatchesAscii(s, start, "/p")) return 2;
+        if (len == 4 && regionMatchesAscii(s, start, "/div")) return 1;
+        return 0;
+    }
+
+    private static int entityAt(String s, int i) {
+        for (int e = 0; e < ENTITIES.length; e++) {
+            if (s.startsWith(ENTITIES[e], i)) return e;
+        }
+        return -1;
+    }
+
+    private static int indexOfAscii(String s, String needle, int from) {
+        char first = needle.charAt(0);
+        for (int i = s.indexOf(first, from); i >= 0; i = s.indexOf(first, i + 1)) {
+            if (regionMatchesAscii(s, i, needle)) return i;
+        }
+        return -1;
+    }
+
+    // Case-insensitive for ASCII letters only, like Pattern.CASE_INSENSITIVE without UNICODE_CASE
+    private static boolean regionMatchesAscii(String s, int offset, String expected) {
+        if (offset < 0 || offset + expected.length() > s.length()) return false;
+        for (int k = 0; k < expected.length(); k++) {
+            if (lower(s.charAt(offset + k)) != lower(expected.charAt(k))) return false;
+        }
+        return true;
+    }
+
+    private static char lower(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+    }
+
+    // Regex \s: [ \t\n\x0B\f\r]
+    private static boolean isRegexSpace(String s, int i) {
+        if (i >= s.length()) return false;
+        char c = s.charAt(i);
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Chars regex '.' does not match (default, non-UNIX_LINES mode)
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -7,5 +7,6 @@ public final class StoragePaths {
     public static final String RETURN_PHOTOS  = "returns/photos/";
     public static final String INVOICES       = "invoices/";
     public static final String SIGNATURES     = "signatures/";
+    public static final String INBOX_ATTACHMENTS = "inbox/attachments/";
 }
 
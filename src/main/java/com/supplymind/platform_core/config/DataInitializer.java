@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
@@ -14,6 +15,7 @@ public class DataInitializer {
 
     @Autowired private UserRepository userRepository;
     @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private JdbcTemplate jdbcTemplate;
 
     @Bean
     public CommandLineRunner initData() {
@@ -44,6 +46,41 @@ public class DataInitializer {
         };
     }
 
+    /**
+     * inventory_transactions moved from AUTO_INCREMENT to a pooled sequence table.
+     * Push the sequence past existing ids (plus one allocation block) so new rows never collide.
+     */
+    @Bean
+    public CommandLineRunner alignInventoryTransactionSequence() {
+        return args -> {
+            int updated = jdbcTemplate.update(
+                    "UPDATE inventory_transactions_seq " +
+                    "SET next_val = (SELECT COALESCE(MAX(transaction_id), 0) + 51 FROM inventory_transactions) " +
+                    "WHERE next_val <= (SELECT COALESCE(MAX(transaction_id), 0) + 50 FROM inventory_transactions)"
+            );
+            if (updated > 0) {
+                System.out.println(">>> Aligned inventory_transactions_seq with existing transaction ids");
+            }
+        };
+    }
+
+    /**
+     * Same move for demand_forecasting, whose rows are now written in batches by the forecast job.
+     */
+    @Bean
+    public CommandLineRunner alignDemandForecastingSequence() {
+        return args -> {
+            int updated = jdbcTemplate.update(
+                    "UPDATE demand_forecasting_seq " +
+                    "SET next_val = (SELECT COALESCE(MAX(forecast_id), 0) + 51 FROM demand_forecasting) " +
+                    "WHERE next_val <= (SELECT COALESCE(MAX(forecast_id), 0) + 50 FROM demand_forecasting)"
+            );
+            if (updated > 0) {
+                System.out.println(">>> Aligned demand_forecasting_seq with existing forecast ids");
+            }
+        };
+    }
+
     private void createUserIfNotFound(String email, String rawPassword, String first, String last, Role role) {
         if (!userRepository.existsByEmail(email)) {
             User user = new User();
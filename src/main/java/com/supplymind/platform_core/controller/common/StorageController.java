@@ -1,9 +1,11 @@
 package com.supplymind.platform_core.controller.common;
 
+import com.supplymind.platform_core.common.util.BoundedTtlCache;
 import com.supplymind.platform_core.dto.core.storage.PresignPutRequestDTO;
 import com.supplymind.platform_core.dto.core.storage.PresignPutResponseDTO;
 import com.supplymind.platform_core.service.common.StorageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -49,4 +51,13 @@ public class StorageController {
         }
         return Map.of("url", storageService.presignGetUrl(objectKey));
     }
+
+    /**
+     * Hit/miss counters for the presigned GET URL cache.
+     */
+    @GetMapping("/presign-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public BoundedTtlCache.Stats presignCacheStats() {
+        return storageService.presignCacheStats();
+    }
 }
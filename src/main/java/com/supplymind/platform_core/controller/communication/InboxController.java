@@ -2,17 +2,25 @@ package com.supplymind.platform_core.controller.communication;
 
 import com.supplymind.platform_core.dto.communication.InboxConversation;
 import com.supplymind.platform_core.dto.core.purchaseorder.InboxMessage;
+import com.supplymind.platform_core.common.util.BoundedTtlCache;
+import com.supplymind.platform_core.exception.BadRequestException;
+import com.supplymind.platform_core.service.common.StorageService;
+import com.supplymind.platform_core.service.communication.EmailRoutingPipeline;
+import com.supplymind.platform_core.service.communication.ImapConnectionPool;
+import com.supplymind.platform_core.service.communication.InboxAttachmentCache;
 import com.supplymind.platform_core.service.communication.InboxService;
 import com.supplymind.platform_core.service.intel.AiStatusScanner;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +31,9 @@ public class InboxController {
 
     private final InboxService inboxService;
     private final AiStatusScanner aiScanner;
+    private final ImapConnectionPool imapConnectionPool;
+    private final InboxAttachmentCache attachmentCache;
+    private final EmailRoutingPipeline routingPipeline;
 
     /**
      * Get List of Conversations (Sidebar)
@@ -37,11 +48,21 @@ public class InboxController {
     /**
      * Get Chat History (Triggers AI Scan)
      * Used by: InboxPage.jsx (loadChat)
+     * Newest page, oldest-first; older pages via ?before=<X-Next-Cursor from the previous response>
      */
     @GetMapping("/po/{poId}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','PROCUREMENT_OFFICER')")
-    public ResponseEntity<List<InboxMessage>> getPoChat(@PathVariable Long poId) {
-        return ResponseEntity.ok(inboxService.getPoChat(poId));
+    public ResponseEntity<List<InboxMessage>> getPoChat(
+            @PathVariable Long poId,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "50") int limit) {
+        InboxService.ChatPage page = inboxService.getPoChat(poId, before, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(page.messages());
     }
     @PostMapping("/test-ai")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','PROCUREMENT_OFFICER')")
@@ -59,20 +80,66 @@ public class InboxController {
     public ResponseEntity<Resource> downloadAttachment(
             @PathVariable Long poId,
             @PathVariable String fileName,
-            @RequestParam String messageId) {
+            @RequestParam String messageId,
+            @RequestParam(defaultValue = "false") boolean redirect) {
 
         try {
-            byte[] fileData = inboxService.getAttachment(poId, messageId, fileName);
-            ByteArrayResource resource = new ByteArrayResource(fileData);
+            if (redirect) {
+                // Browser downloads straight from object storage
+                String url = inboxService.getAttachmentUrl(poId, messageId, fileName);
+                return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(url)).build();
+            }
 
-            return ResponseEntity.ok()
+            // Streamed through in chunks, never fully buffered in memory
+            StorageService.StoredObject stored = inboxService.openAttachment(poId, messageId, fileName);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                    .contentLength(fileData.length)
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(resource);
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM);
+            if (stored.contentLength() >= 0) {
+                response.contentLength(stored.contentLength());
+            }
+            return response.body(new InputStreamResource(stored.content()));
+        } catch (BadRequestException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.notFound().build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Connect / reuse / failure counters for the shared IMAP connection pool.
+     */
+    @GetMapping("/imap-pool/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ImapConnectionPool.Stats imapPoolStats() {
+        return imapConnectionPool.stats();
+    }
+
+    /**
+     * Hit/miss counters for the local index of attachments already copied to object storage.
+     */
+    @GetMapping("/attachment-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public BoundedTtlCache.Stats attachmentCacheStats() {
+        return attachmentCache.indexStats();
+    }
+
+    /**
+     * Per-stage latency and queue depth of the inbox scan (fetch, match, route, classify, persist).
+     */
+    @GetMapping("/pipeline/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public EmailRoutingPipeline.Stats pipelineStats() {
+        return routingPipeline.stats();
+    }
+
+    /**
+     * How many status scans were answered by the local rules, the LLM result cache, or the LLM.
+     */
+    @GetMapping("/ai-status/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public AiStatusScanner.Stats aiStatusStats() {
+        return aiScanner.stats();
+    }
+}
@@ -1,7 +1,9 @@
 package com.supplymind.platform_core.controller.core;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.supplymind.platform_core.common.util.PaginationDefaults;
 import com.supplymind.platform_core.dto.core.inventory.*;
+import com.supplymind.platform_core.exception.BadRequestException;
 import com.supplymind.platform_core.service.core.InventoryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,15 +13,25 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/core/inventory")
 @RequiredArgsConstructor
 public class InventoryController {
 
     private final InventoryService service;
+    private final ObjectMapper objectMapper;
 
     private Pageable capPageSize(Pageable pageable) {
         int size = Math.min(pageable.getPageSize(), PaginationDefaults.MAX_PAGE_SIZE);
@@ -57,6 +69,38 @@ public class InventoryController {
         service.recordTransaction(req);
     }
 
+    // POST /api/core/inventory/transactions/bulk - JSON array of transactions
+    @PostMapping(value = "/transactions/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER','STAFF')")
+    public InventoryBulkTransactionResponse recordTransactions(@RequestBody List<InventoryTransactionRequest> reqs) {
+        return service.recordTransactions(reqs);
+    }
+
+    // POST /api/core/inventory/transactions/bulk - NDJSON, one transaction per line (blank lines skipped,
+    // so errors refer to record numbers, not physical lines). Reading stops past MAX_BULK_LINES records.
+    @PostMapping(value = "/transactions/bulk", consumes = "application/x-ndjson")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER','STAFF')")
+    public InventoryBulkTransactionResponse recordTransactionsNdjson(InputStream body) throws IOException {
+        List<InventoryTransactionRequest> reqs = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                if (reqs.size() == InventoryService.MAX_BULK_LINES) {
+                    throw new BadRequestException("Too many lines in one batch (max " + InventoryService.MAX_BULK_LINES + ")");
+                }
+                try {
+                    reqs.add(objectMapper.readValue(line, InventoryTransactionRequest.class));
+                } catch (IOException e) {
+                    reqs.add(null); // reported as a per-line failure by the service
+                }
+            }
+        }
+
+        return service.recordTransactions(reqs);
+    }
+
     @GetMapping("/transactions")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','PROCUREMENT_OFFICER','STAFF')")
     public Page<InventoryTransactionResponse> listTransactions(
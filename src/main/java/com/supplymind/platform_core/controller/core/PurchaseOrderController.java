@@ -2,6 +2,7 @@ package com.supplymind.platform_core.controller.core;
 
 import com.supplymind.platform_core.common.enums.PurchaseOrderStatus;
 import com.supplymind.platform_core.dto.core.purchaseorder.*;
+import com.supplymind.platform_core.exception.BadRequestException;
 import com.supplymind.platform_core.service.core.PurchaseOrderService;
 
 
@@ -11,7 +12,7 @@ import com.supplymind.platform_core.repository.auth.UserRepository;
 import com.supplymind.platform_core.repository.core.PurchaseOrderRepository;
 import com.supplymind.platform_core.service.common.PdfGenerationService;
 import com.supplymind.platform_core.service.communication.EmailProvider;
-import com.supplymind.platform_core.service.intel.AiContentService;
+import com.supplymind.platform_core.service.intel.EmailDraftService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -50,7 +51,7 @@ public class PurchaseOrderController {
     private final PurchaseOrderRepository purchaseOrderRepository;
     private final UserRepository userRepository;
     private final EmailProvider emailProvider;
-    private final AiContentService aiContentService;
+    private final EmailDraftService emailDraftService;
     private final PdfGenerationService pdfGenerationService;
     private final InboxService inboxService;
 
@@ -157,6 +158,19 @@ public class PurchaseOrderController {
         service.removeItem(poId, itemId);
     }
 
+    /**
+     * Adds or updates many items on a draft Purchase Order in one transaction.
+     * @param poId The ID of the Purchase Order.
+     * @param req Lines to add (no poItemId) or update (with poItemId).
+     * @return The updated Purchase Order with its recomputed total.
+     */
+    @PostMapping("/{poId}/items:batch")
+    @PreAuthorize("hasAnyRole('ADMIN','PROCUREMENT_OFFICER')")
+    public PurchaseOrderResponse batchUpsertItems(@PathVariable Long poId,
+                                                  @Valid @RequestBody PurchaseOrderItemBatchRequest req) {
+        return service.batchUpsertItems(poId, req);
+    }
+
     /**
      * Submits a draft Purchase Order for approval.
      * @param poId The ID of the Purchase Order to submit.
@@ -260,34 +274,27 @@ public class PurchaseOrderController {
     }
 
     /**
-     * Generates an AI-drafted email body for sending a Purchase Order to a supplier.
+     * Returns the AI-drafted email body for sending a Purchase Order to a supplier.
+     * The draft is pre-generated at approval and only regenerated when the PO contents change.
      * @param poId The ID of the Purchase Order.
      * @param principal The current authenticated user.
      * @return A response entity containing the email subject, body, and recipient.
      */
     @GetMapping("/{poId}/email-draft")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','PROCUREMENT_OFFICER')")
-    @Transactional(readOnly = true)
     public ResponseEntity<EmailDraftResponse> getEmailDraft(@PathVariable Long poId, Principal principal) {
         try {
-            PurchaseOrder po = purchaseOrderRepository.findByIdWithItems(poId)
-                    .orElseThrow(() -> new RuntimeException("Purchase Order not found: " + poId));
-
-            // Identify Manager for the AI Signature
+            // Signature for POs that have no approver yet
             String managerName = "SupplyMind Manager";
             if (principal != null) {
                 User user = userRepository.findByEmail(principal.getName()).orElse(null);
                 if (user != null) managerName = user.getFirstName() + " " + user.getLastName();
             }
 
-            if (po.getSupplier() == null) return ResponseEntity.badRequest().build();
-
-            // Ask AI for the draft
-            String body = aiContentService.generatePurchaseOrderEmail(po, managerName, po.getSupplier().getName());
-            String subject = "Official Purchase Order PO-" + po.getPoId();
-
-            return ResponseEntity.ok(new EmailDraftResponse(subject, body, po.getSupplier().getContactEmail()));
+            return ResponseEntity.ok(emailDraftService.getDraft(poId, managerName));
 
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error generating email draft for PO: {}", poId, e);
             return ResponseEntity.internalServerError().build();
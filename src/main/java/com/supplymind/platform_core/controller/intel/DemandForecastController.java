@@ -1,13 +1,18 @@
 package com.supplymind.platform_core.controller.intel;
 
+import com.supplymind.platform_core.dto.intel.forecast.ForecastBatchProgress;
 import com.supplymind.platform_core.dto.intel.forecast.ForecastResponse;
+import com.supplymind.platform_core.dto.intel.forecast.ForecastTuningProgress;
+import com.supplymind.platform_core.dto.intel.forecast.PrecomputedForecastResponse;
+import com.supplymind.platform_core.service.intel.DemandForecastBatchService;
+import com.supplymind.platform_core.service.intel.DemandForecastCache;
 import com.supplymind.platform_core.service.intel.DemandForecastingService;
+import com.supplymind.platform_core.service.intel.ForecastTuningService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/api/intel/demand")
@@ -15,10 +20,68 @@ import org.springframework.web.bind.annotation.RestController;
 public class DemandForecastController {
 
     private final DemandForecastingService forecastingService;
+    private final DemandForecastBatchService batchService;
+    private final ForecastTuningService tuningService;
+    private final DemandForecastCache forecastCache;
 
     @GetMapping("/{productId}")
     public ResponseEntity<ForecastResponse> getProductForecast(@PathVariable Long productId) {
         ForecastResponse response = forecastingService.calculateForecast(productId);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Latest forecast from the catalog batch job; served from demand_forecasting without scanning history.
+     */
+    @GetMapping("/{productId}/precomputed")
+    public PrecomputedForecastResponse getPrecomputedForecast(@PathVariable Long productId) {
+        return batchService.getPrecomputed(productId);
+    }
+
+    /**
+     * Starts a forecast run over all products in the background (it also runs nightly).
+     */
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ForecastBatchProgress startBatch() {
+        return batchService.start();
+    }
+
+    /**
+     * Phase and product/row counts of the current or last batch run.
+     */
+    @GetMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ForecastBatchProgress batchProgress() {
+        return batchService.progress();
+    }
+
+    /**
+     * Starts tuning the smoothing factors of every product in the background (it also runs weekly).
+     */
+    @PostMapping("/tuning")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ForecastTuningProgress startTuning() {
+        return tuningService.start();
+    }
+
+    /**
+     * Phase, worker count, tuning time and product counts of the current or last tuning run.
+     */
+    @GetMapping("/tuning")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ForecastTuningProgress tuningProgress() {
+        return tuningService.progress();
+    }
+
+    /**
+     * Hit rate, computations, shared waits and invalidations of the per-product forecast cache.
+     */
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public DemandForecastCache.Stats cacheStats() {
+        return forecastCache.stats();
+    }
+}
@@ -0,0 +1,36 @@
+package com.supplymind.platform_core.controller.intel;
+
+import com.supplymind.platform_core.service.intel.EmailDraftService;
+import com.supplymind.platform_core.service.intel.LlmGateway;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/intel/llm")
+@RequiredArgsConstructor
+public class LlmController {
+
+    private final LlmGateway llmGateway;
+    private final EmailDraftService emailDraftService;
+
+    /**
+     * Call outcomes, latency, token usage and circuit state of the shared OpenRouter gateway.
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public LlmGateway.Stats stats() {
+        return llmGateway.stats();
+    }
+
+    /**
+     * How often PO email drafts were served from storage, generated, or shared with a concurrent request.
+     */
+    @GetMapping("/email-drafts/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public EmailDraftService.Stats emailDraftStats() {
+        return emailDraftService.stats();
+    }
+}
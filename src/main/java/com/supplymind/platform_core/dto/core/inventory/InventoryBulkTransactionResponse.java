@@ -0,0 +1,13 @@
+package com.supplymind.platform_core.dto.core.inventory;
+
+import java.util.List;
+
+public record InventoryBulkTransactionResponse(
+        int received,
+        int applied,
+        int failed,
+        List<LineError> errors
+) {
+    // line is the 0-based record number: the position in the submitted array, or among the non-blank NDJSON lines
+    public record LineError(int line, String message) {}
+}
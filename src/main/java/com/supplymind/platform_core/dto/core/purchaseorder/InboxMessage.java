@@ -12,6 +12,7 @@ import java.util.List;
 @NoArgsConstructor
 public class InboxMessage {
     private String messageId;
+    private Long uid; // IMAP UID within the folder it was fetched from
     private String subject;
     private String from;
     private String body;
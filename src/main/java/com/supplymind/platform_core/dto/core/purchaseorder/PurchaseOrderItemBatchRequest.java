@@ -0,0 +1,23 @@
+package com.supplymind.platform_core.dto.core.purchaseorder;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record PurchaseOrderItemBatchRequest(
+        @NotEmpty List<@Valid Line> lines
+) {
+    /**
+     * poItemId set -> update that line (productId ignored).
+     * poItemId null -> add a new line for productId (orderedQty required).
+     */
+    public record Line(
+            Long poItemId,
+            Long productId,
+            @Min(1) Integer orderedQty,
+            BigDecimal unitCost
+    ) {}
+}
@@ -0,0 +1,11 @@
+package com.supplymind.platform_core.dto.intel.forecast;
+
+/**
+ * Units shipped out for one product on one day of the history window.
+ * {@code dayIndex} counts whole days since the start of the window.
+ */
+public interface DailyOutTotal {
+    Long getProductId();
+    Integer getDayIndex();
+    Long getQuantity();
+}
@@ -0,0 +1,10 @@
+package com.supplymind.platform_core.dto.intel.forecast;
+
+/**
+ * Projection of one row of the per-product daily sales aggregate.
+ * {@code dayIndex} counts whole days since the start of the history window.
+ */
+public interface DaySalesTotal {
+    Integer getDayIndex();
+    Long getQuantity();
+}
@@ -0,0 +1,16 @@
+package com.supplymind.platform_core.dto.intel.forecast;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record ForecastBatchProgress(
+        String state,
+        String phase,
+        LocalDate targetDate,
+        int productsTotal,
+        int productsForecast,
+        int rowsWritten,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {}
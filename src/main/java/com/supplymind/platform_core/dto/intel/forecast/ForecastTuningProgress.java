@@ -0,0 +1,16 @@
+package com.supplymind.platform_core.dto.intel.forecast;
+
+import java.time.Instant;
+
+public record ForecastTuningProgress(
+        String state,
+        String phase,
+        int workers,
+        int productsTotal,
+        int productsTuned,
+        int productsStored,
+        long tuneMillis,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {}
@@ -0,0 +1,7 @@
+package com.supplymind.platform_core.dto.intel.forecast;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Latest forecast written by the batch job; {@code forecastedQty} covers the 30 days up to {@code targetDate}. */
+public record PrecomputedForecastResponse(Long productId, Integer forecastedQty, LocalDate targetDate, BigDecimal confScore) {}
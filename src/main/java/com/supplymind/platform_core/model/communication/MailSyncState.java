@@ -0,0 +1,34 @@
+package com.supplymind.platform_core.model.communication;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+
+/**
+ * IMAP sync checkpoint per folder: everything up to lastUid (under uidValidity) has been processed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "mail_sync_state")
+public class MailSyncState {
+
+    @Id
+    @Column(name = "folder_name", nullable = false, length = 255)
+    private String folderName;
+
+    @Column(name = "uid_validity", nullable = false)
+    private Long uidValidity;
+
+    @Column(name = "last_uid", nullable = false)
+    private Long lastUid;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
@@ -0,0 +1,64 @@
+package com.supplymind.platform_core.model.communication;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local copy of an email routed into a PO conversation (SupplyMind/PO-{id} folder).
+ * Written once at routing time so opening a PO chat never has to go to IMAP.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "po_message",
+        uniqueConstraints = @UniqueConstraint(name = "uk_po_message_message_id", columnNames = "message_id"),
+        indexes = @Index(name = "idx_po_message_po_sent", columnList = "po_id, sent_at, id"))
+public class PoMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "po_id", nullable = false)
+    private Long poId;
+
+    @Column(name = "message_id", nullable = false, length = 500)
+    private String messageId;
+
+    @Column(name = "subject", length = 998)
+    private String subject;
+
+    @Column(name = "from_address", length = 320)
+    private String fromAddress;
+
+    @Column(name = "sent_at", nullable = false)
+    private Instant sentAt;
+
+    @Column(name = "body", columnDefinition = "MEDIUMTEXT")
+    private String body;
+
+    @Column(name = "snippet", length = 200)
+    private String snippet;
+
+    @ElementCollection
+    @CollectionTable(name = "po_message_attachments", joinColumns = @JoinColumn(name = "po_message_id"))
+    @Column(name = "file_name", length = 255)
+    @OrderColumn(name = "position")
+    @BatchSize(size = 50)
+    @Builder.Default
+    private List<String> attachments = new ArrayList<>();
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+}
@@ -16,14 +16,17 @@ import java.time.Instant;
 @Table(
         name = "inventory_transactions",
         indexes = {
-                @Index(name = "idx_inventory_tx_product_id", columnList = "product_id"),
+                // Covers product_id lookups too; the forecast history range scan needs all three columns
+                @Index(name = "idx_inventory_tx_product_type_ts", columnList = "product_id, type, timestamp"),
                 @Index(name = "idx_inventory_tx_warehouse_id", columnList = "warehouse_id")
         }
 )
 public class InventoryTransaction {
 
+    // Pooled sequence (table-backed on MySQL) instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_tx_seq")
+    @SequenceGenerator(name = "inventory_tx_seq", sequenceName = "inventory_transactions_seq", allocationSize = 50)
     @Column(name = "transaction_id", nullable = false)
     private Long transactionId;
 
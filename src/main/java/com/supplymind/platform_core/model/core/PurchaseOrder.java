@@ -4,6 +4,7 @@ import com.supplymind.platform_core.common.enums.PurchaseOrderStatus;
 import com.supplymind.platform_core.model.auth.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -52,6 +53,12 @@ public class PurchaseOrder {
     @Column(name = "pdf_url")
     private String pdfUrl;
 
+    // Optimistic lock: totalAmount is maintained incrementally, so concurrent item edits must not interleave
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_on", updatable = false)
     private Instant createdOn;
@@ -0,0 +1,37 @@
+package com.supplymind.platform_core.model.core;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * AI-written supplier email for a PO, generated once after approval.
+ * {@code contentHash} fingerprints the PO contents the draft was written from; a mismatch means the
+ * draft is stale and gets regenerated on the next read.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "po_email_drafts")
+public class PurchaseOrderEmailDraft {
+
+    @Id
+    @Column(name = "po_id", nullable = false)
+    private Long poId;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "body", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String body;
+
+    @Column(name = "signed_by", length = 200)
+    private String signedBy;
+
+    @Column(name = "generated_at", nullable = false)
+    private Instant generatedAt;
+}
@@ -0,0 +1,59 @@
+package com.supplymind.platform_core.model.core;
+
+import com.supplymind.platform_core.common.enums.PdfJobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Outbox row for rendering + uploading an approved PO's PDF outside the approval transaction.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "po_pdf_jobs", indexes = {
+        @Index(name = "idx_po_pdf_jobs_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_po_pdf_jobs_po_id", columnList = "po_id")
+})
+public class PurchaseOrderPdfJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "po_id", nullable = false)
+    private Long poId;
+
+    @Column(name = "approver_id")
+    private Long approverId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private PdfJobStatus status = PdfJobStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
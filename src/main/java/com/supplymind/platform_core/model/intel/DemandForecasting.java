@@ -12,11 +12,14 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "demand_forecasting", schema = "defaultdb", indexes = {
         @Index(name = "product_id", columnList = "product_id"),
-        @Index(name = "warehouse_id", columnList = "warehouse_id")
+        @Index(name = "warehouse_id", columnList = "warehouse_id"),
+        @Index(name = "idx_demand_forecast_product_target", columnList = "product_id, target_date")
 })
 public class DemandForecasting {
+    // Pooled sequence instead of IDENTITY so the batch forecast job's inserts are JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "demand_forecast_seq")
+    @SequenceGenerator(name = "demand_forecast_seq", sequenceName = "demand_forecasting_seq", allocationSize = 50)
     @Column(name = "forecast_id", nullable = false)
     private Long id;
 
@@ -37,4 +40,8 @@ public class DemandForecasting {
     @Column(name = "conf_score", precision = 15, scale = 2)
     private BigDecimal confScore;
 
+    // Catalog batch run that wrote the row; null for rows written outside the batch job
+    @Column(name = "run_id", length = 36)
+    private String runId;
+
 }
\ No newline at end of file
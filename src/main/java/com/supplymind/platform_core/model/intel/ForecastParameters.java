@@ -0,0 +1,40 @@
+package com.supplymind.platform_core.model.intel;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Holt-Winters smoothing factors tuned for one product by the offline tuning job.
+ * Products without a row use the model defaults.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "forecast_parameters")
+public class ForecastParameters {
+
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "alpha", nullable = false)
+    private Double alpha;
+
+    @Column(name = "beta", nullable = false)
+    private Double beta;
+
+    @Column(name = "gamma", nullable = false)
+    private Double gamma;
+
+    // Mean squared one-step-ahead error on the tuning history
+    @Column(name = "one_step_mse")
+    private Double oneStepMse;
+
+    @Column(name = "tuned_at", nullable = false)
+    private Instant tunedAt;
+}
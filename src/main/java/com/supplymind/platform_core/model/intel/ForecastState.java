@@ -0,0 +1,50 @@
+package com.supplymind.platform_core.model.intel;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Holt-Winters smoothing state of one product, advanced by one day each night so forecasts do not
+ * replay the transaction history. Also keeps the last 90 daily OUT totals for the chart and trend.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "forecast_state")
+public class ForecastState {
+
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "level", nullable = false)
+    private Double level;
+
+    @Column(name = "trend", nullable = false)
+    private Double trend;
+
+    // Seasonal vector as big-endian doubles, one per day of the season
+    @Column(name = "seasonals", nullable = false, columnDefinition = "VARBINARY(56)")
+    private byte[] seasonals;
+
+    // Days smoothed into the state; fixes the seasonal phase
+    @Column(name = "observations", nullable = false)
+    private Integer observations;
+
+    // Daily OUT totals as big-endian ints, ring-indexed by epoch day % 90
+    @Column(name = "daily_window", nullable = false, columnDefinition = "VARBINARY(360)")
+    private byte[] dailyWindow;
+
+    // Last complete day included in the state
+    @Column(name = "last_day", nullable = false)
+    private LocalDate lastDay;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
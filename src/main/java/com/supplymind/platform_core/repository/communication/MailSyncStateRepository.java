@@ -0,0 +1,9 @@
+package com.supplymind.platform_core.repository.communication;
+
+import com.supplymind.platform_core.model.communication.MailSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MailSyncStateRepository extends JpaRepository<MailSyncState, String> {
+}
@@ -0,0 +1,36 @@
+package com.supplymind.platform_core.repository.communication;
+
+import com.supplymind.platform_core.model.communication.PoMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PoMessageRepository extends JpaRepository<PoMessage, Long> {
+
+    boolean existsByMessageId(String messageId);
+
+    @Query("SELECT m.messageId FROM PoMessage m WHERE m.messageId IN :messageIds")
+    List<String> findExistingMessageIds(@Param("messageIds") Collection<String> messageIds);
+
+    /** Newest page of a PO conversation. */
+    List<PoMessage> findByPoIdOrderBySentAtDescIdDesc(Long poId, Pageable pageable);
+
+    /** Keyset page: messages strictly older than the (sentAt, id) cursor, newest first. */
+    @Query("""
+            SELECT m FROM PoMessage m
+            WHERE m.poId = :poId
+              AND (m.sentAt < :sentAt OR (m.sentAt = :sentAt AND m.id < :id))
+            ORDER BY m.sentAt DESC, m.id DESC
+            """)
+    List<PoMessage> findPageBefore(@Param("poId") Long poId,
+                                   @Param("sentAt") Instant sentAt,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+}
@@ -1,9 +1,11 @@
 package com.supplymind.platform_core.repository.core;
 
+import com.supplymind.platform_core.common.enums.InventoryTransactionType;
 import com.supplymind.platform_core.model.core.Inventory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -74,4 +76,67 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
             Pageable pageable
     );
 
+    // -------------------------
+    // Atomic stock mutations
+    // -------------------------
+    // Applied in SQL so concurrent scans on the same SKU never lose updates and the
+    // row lock is only held for a single statement instead of a read-modify-write.
+
+    @Query("SELECT i.qtyOnHand FROM Inventory i " +
+            "WHERE i.warehouse.warehouseId = :warehouseId AND i.product.productId = :productId")
+    Optional<Integer> findQtyOnHand(@Param("warehouseId") Long warehouseId, @Param("productId") Long productId);
+
+    // Returns 0 when the row is missing or the delta would take stock below zero
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE inventory " +
+            "SET qty_on_hand = qty_on_hand + :delta, updated_at = CURRENT_TIMESTAMP(6) " +
+            "WHERE warehouse_id = :warehouseId AND product_id = :productId " +
+            "AND qty_on_hand + :delta >= 0",
+            nativeQuery = true)
+    int applyStockDelta(
+            @Param("warehouseId") Long warehouseId,
+            @Param("productId") Long productId,
+            @Param("delta") int delta
+    );
+
+    // Creates the (warehouse, product) row on first receipt, otherwise increments it
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO inventory " +
+            "(warehouse_id, product_id, qty_on_hand, min_stock_level, max_stock_level, created_at, updated_at) " +
+            "VALUES (:warehouseId, :productId, :qty, 10, 100, CURRENT_TIMESTAMP(6), CURRENT_TIMESTAMP(6)) " +
+            "ON DUPLICATE KEY UPDATE qty_on_hand = qty_on_hand + :qty, updated_at = CURRENT_TIMESTAMP(6)",
+            nativeQuery = true)
+    int upsertAddStock(
+            @Param("warehouseId") Long warehouseId,
+            @Param("productId") Long productId,
+            @Param("qty") int qty
+    );
+
+    // Stock counts (ADJUST) overwrite the on-hand value instead of applying a delta
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO inventory " +
+            "(warehouse_id, product_id, qty_on_hand, min_stock_level, max_stock_level, created_at, updated_at) " +
+            "VALUES (:warehouseId, :productId, :qty, 10, 100, CURRENT_TIMESTAMP(6), CURRENT_TIMESTAMP(6)) " +
+            "ON DUPLICATE KEY UPDATE qty_on_hand = :qty, updated_at = CURRENT_TIMESTAMP(6)",
+            nativeQuery = true)
+    int upsertSetStock(
+            @Param("warehouseId") Long warehouseId,
+            @Param("productId") Long productId,
+            @Param("qty") int qty
+    );
+
+    /**
+     * Applies a single stock movement atomically.
+     * @return false if an OUT would take the on-hand quantity below zero (or the row does not exist).
+     */
+    default boolean applyStockMovement(Long warehouseId, Long productId, InventoryTransactionType type, int qty) {
+        return switch (type) {
+            case IN, RETURN -> upsertAddStock(warehouseId, productId, qty) > 0;
+            case OUT -> applyStockDelta(warehouseId, productId, -qty) > 0;
+            case ADJUST -> {
+                upsertSetStock(warehouseId, productId, qty);
+                yield true;
+            }
+        };
+    }
 }
@@ -1,16 +1,22 @@
 package com.supplymind.platform_core.repository.core;
 
 import com.supplymind.platform_core.common.enums.InventoryTransactionType;
+import com.supplymind.platform_core.dto.intel.forecast.DailyOutTotal;
+import com.supplymind.platform_core.dto.intel.forecast.DaySalesTotal;
 import com.supplymind.platform_core.model.core.InventoryTransaction;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long> {
@@ -22,6 +28,36 @@ public interface InventoryTransactionRepository extends JpaRepository<InventoryT
             "ORDER BY t.timestamp ASC")
     List<InventoryTransaction> findSalesHistory(Long productId, InventoryTransactionType type, Instant since);
 
+    // One row per day instead of one entity per transaction; resolved from idx_inventory_tx_product_type_ts.
+    // Days are whole 24h windows counted from :since, the same buckets as streamDailyTotals.
+    @Query(value = "SELECT TIMESTAMPDIFF(DAY, :since, t.timestamp) AS dayIndex, SUM(t.quantity) AS quantity " +
+            "FROM inventory_transactions t " +
+            "WHERE t.product_id = :productId AND t.type = :type AND t.timestamp >= :since AND t.timestamp < :until " +
+            "GROUP BY dayIndex", nativeQuery = true)
+    List<DaySalesTotal> sumDailyQuantities(@Param("productId") Long productId,
+                                           @Param("type") String type,
+                                           @Param("since") Instant since,
+                                           @Param("until") Instant until);
+
+    // Per-product daily totals for the whole catalog, ordered so each product's days arrive together.
+    // Fetch size MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the full result;
+    // the caller must consume it inside a transaction and close it.
+    // Days are counted from the bound :since rather than cast to a date in the database session's zone,
+    // so they line up with the day boundaries the caller computed in Java.
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query(value = "SELECT t.product_id AS productId, TIMESTAMPDIFF(DAY, :since, t.timestamp) AS dayIndex, " +
+            "SUM(t.quantity) AS quantity " +
+            "FROM inventory_transactions t " +
+            "WHERE t.type = :type AND t.timestamp >= :since AND t.timestamp < :until " +
+            "GROUP BY t.product_id, dayIndex " +
+            "ORDER BY t.product_id, dayIndex", nativeQuery = true)
+    Stream<DailyOutTotal> streamDailyTotals(@Param("type") String type,
+                                            @Param("since") Instant since,
+                                            @Param("until") Instant until);
+
     // ✅ Fixed for UI: Added EntityGraph to fetch Product and Warehouse in 1 query
     @EntityGraph(attributePaths = {"product", "warehouse"})
     Page<InventoryTransaction> findAllByWarehouse_WarehouseId(Long warehouseId, Pageable pageable);
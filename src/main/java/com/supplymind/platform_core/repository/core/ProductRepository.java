@@ -6,6 +6,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -17,4 +18,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             "LEFT JOIN Inventory i ON p.productId = i.product.productId " +
             "GROUP BY p")
     Page<Object[]> findAllWithTotalStock(Pageable pageable);
-}
\ No newline at end of file
+
+    @Query("SELECT p.productId FROM Product p ORDER BY p.productId")
+    List<Long> findAllIds();
+}
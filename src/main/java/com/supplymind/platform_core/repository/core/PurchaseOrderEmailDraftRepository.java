@@ -0,0 +1,9 @@
+package com.supplymind.platform_core.repository.core;
+
+import com.supplymind.platform_core.model.core.PurchaseOrderEmailDraft;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PurchaseOrderEmailDraftRepository extends JpaRepository<PurchaseOrderEmailDraft, Long> {
+}
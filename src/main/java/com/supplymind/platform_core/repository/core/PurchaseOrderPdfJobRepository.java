@@ -0,0 +1,48 @@
+package com.supplymind.platform_core.repository.core;
+
+import com.supplymind.platform_core.common.enums.PdfJobStatus;
+import com.supplymind.platform_core.model.core.PurchaseOrderPdfJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PurchaseOrderPdfJobRepository extends JpaRepository<PurchaseOrderPdfJob, Long> {
+
+    @Query("SELECT j FROM PurchaseOrderPdfJob j " +
+            "WHERE j.status = :status AND j.nextAttemptAt <= :now " +
+            "ORDER BY j.nextAttemptAt ASC")
+    List<PurchaseOrderPdfJob> findDue(@Param("status") PdfJobStatus status,
+                                      @Param("now") Instant now,
+                                      Pageable pageable);
+
+    // Compare-and-set so only one worker (or instance) ever picks up a given job.
+    // Own transaction: the claim must commit on its own, whatever the caller has bound
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE PurchaseOrderPdfJob j SET j.status = :running, j.updatedAt = :now " +
+            "WHERE j.jobId = :jobId AND j.status = :pending")
+    int claim(@Param("jobId") Long jobId,
+              @Param("pending") PdfJobStatus pending,
+              @Param("running") PdfJobStatus running,
+              @Param("now") Instant now);
+
+    // Jobs left RUNNING by a crashed worker go back to the queue
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE PurchaseOrderPdfJob j SET j.status = :pending " +
+            "WHERE j.status = :running AND j.updatedAt < :cutoff")
+    int requeueStuck(@Param("pending") PdfJobStatus pending,
+                     @Param("running") PdfJobStatus running,
+                     @Param("cutoff") Instant cutoff);
+
+    List<PurchaseOrderPdfJob> findByPoIdOrderByJobIdDesc(Long poId);
+}
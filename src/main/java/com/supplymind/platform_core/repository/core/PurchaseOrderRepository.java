@@ -5,6 +5,7 @@ import com.supplymind.platform_core.model.core.PurchaseOrder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,7 +20,8 @@ public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Lo
     String FIND_PO_WITH_DETAILS = "SELECT po FROM PurchaseOrder po " +
             "LEFT JOIN FETCH po.supplier s " +
             "LEFT JOIN FETCH po.warehouse w " +
-            "LEFT JOIN FETCH po.buyer b ";
+            "LEFT JOIN FETCH po.buyer b " +
+            "LEFT JOIN FETCH po.approver a ";
 
     // 1. Get ONLY the ID and Status (Zero Joins)
     @Query("SELECT p.status FROM PurchaseOrder p WHERE p.poId = :id")
@@ -96,4 +98,9 @@ public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Lo
 
     List<PurchaseOrder> findByStatusIn(List<PurchaseOrderStatus> statuses);
 
+    // Patch only the PDF key (no version bump, so it never conflicts with a user editing the PO)
+    @Modifying
+    @Query("UPDATE PurchaseOrder p SET p.pdfUrl = :pdfUrl WHERE p.poId = :id")
+    int updatePdfUrl(@Param("id") Long id, @Param("pdfUrl") String pdfUrl);
+
 }
@@ -0,0 +1,28 @@
+package com.supplymind.platform_core.repository.intel;
+
+import com.supplymind.platform_core.model.intel.DemandForecasting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface DemandForecastingRepository extends JpaRepository<DemandForecasting, Long> {
+
+    Optional<DemandForecasting> findFirstByProduct_ProductIdOrderByTargetDateDescIdDesc(Long productId);
+
+    // A rerun on the same day replaces that day's batch instead of duplicating it, once all its rows are in
+    @Modifying
+    @Query("DELETE FROM DemandForecasting f WHERE f.targetDate = :targetDate AND f.warehouse IS NULL " +
+            "AND (f.runId IS NULL OR f.runId <> :runId)")
+    int deleteOtherCatalogRuns(@Param("targetDate") LocalDate targetDate, @Param("runId") String runId);
+
+    // Drops the rows of a run that failed part-way, leaving the previous complete batch in place
+    @Modifying
+    @Query("DELETE FROM DemandForecasting f WHERE f.runId = :runId")
+    int deleteRun(@Param("runId") String runId);
+}
@@ -0,0 +1,9 @@
+package com.supplymind.platform_core.repository.intel;
+
+import com.supplymind.platform_core.model.intel.ForecastParameters;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ForecastParametersRepository extends JpaRepository<ForecastParameters, Long> {
+}
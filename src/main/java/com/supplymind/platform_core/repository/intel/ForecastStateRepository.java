@@ -0,0 +1,19 @@
+package com.supplymind.platform_core.repository.intel;
+
+import com.supplymind.platform_core.model.intel.ForecastState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ForecastStateRepository extends JpaRepository<ForecastState, Long> {
+
+    @Query("SELECT s.productId FROM ForecastState s WHERE s.productId IN :productIds AND s.lastDay = :lastDay")
+    List<Long> findProductIdsRolledOverTo(@Param("productIds") Collection<Long> productIds,
+                                          @Param("lastDay") LocalDate lastDay);
+}
@@ -1,15 +1,28 @@
 package com.supplymind.platform_core.service.common;
 
+import com.supplymind.platform_core.common.util.BoundedTtlCache;
+
 import java.io.File;
+import java.io.InputStream;
 
 public interface StorageService {
+
+    /** Open download stream of a stored object; the caller closes {@code content}. */
+    record StoredObject(InputStream content, long contentLength, String contentType) {}
+
     String buildObjectKey(String category, Long ownerId, String fileName);
 
     String presignPutUrl(String objectKey, String contentType);
 
     String presignGetUrl(String objectKey);
 
+    BoundedTtlCache.Stats presignCacheStats();
+
     String uploadFile(String objectKey, File file, String contentType);
 
     void deleteFile(String objectKey);
+
+    boolean exists(String objectKey);
+
+    StoredObject openStream(String objectKey);
 }
@@ -1,19 +1,27 @@
 package com.supplymind.platform_core.service.communication;
 
-import com.supplymind.platform_core.common.enums.PurchaseOrderStatus;
 import com.supplymind.platform_core.dto.core.purchaseorder.InboxMessage;
+import com.supplymind.platform_core.model.communication.MailSyncState;
+import com.supplymind.platform_core.repository.communication.MailSyncStateRepository;
 import com.supplymind.platform_core.repository.core.PurchaseOrderRepository;
-import com.supplymind.platform_core.service.intel.AiStatusScanner;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
-import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,94 +32,147 @@ public class EmailAutomationService {
 
     private final ImapInboxAdapter inboxProvider;
     private final PurchaseOrderRepository poRepo;
-    private final AiStatusScanner aiScanner;
     private final SimpMessagingTemplate messagingTemplate;
+    private final MailSyncStateRepository syncStateRepo;
+    private final InboxService inboxService;
+    private final EmailRoutingPipeline pipeline;
 
     private final Pattern PO_PATTERN = Pattern.compile("(?i)(?:Purchase\\s+Order|PO)[-\\s#]*(\\d+)");
 
+    private record RoutingCandidate(InboxMessage msg, Long poId) {}
+
+    // Scheduled poll and IDLE push never scan concurrently; requests during a scan collapse into one rerun
+    private final ReentrantLock scanLock = new ReentrantLock();
+    private final AtomicBoolean rescanRequested = new AtomicBoolean();
+
+    // One worker, one queued wake-up at most: extra push notifications are dropped, not stacked
+    private final ThreadPoolExecutor scanTrigger = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1),
+            r -> {
+                Thread t = new Thread(r, "email-scan-trigger");
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    @PreDestroy
+    void shutdown() {
+        scanTrigger.shutdownNow();
+    }
+
+    /**
+     * Non-blocking wake-up used by {@link ImapIdleListener} when new mail is pushed.
+     */
+    public void requestScan() {
+        scanTrigger.execute(this::scanAndRouteEmails);
+    }
+
     // changed initialDelay to 60 seconds. that's mostly login screen
-    @Scheduled(initialDelay = 60000, fixedDelay = 60000)
+    // Fallback poll; with imap.idle.enabled the delay can be raised since pushes trigger scans directly
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${imap.scan.fixed-delay-ms:60000}")
     public void scanAndRouteEmails() {
-        log.debug("🕵️ Starting Inbox & Sent Scan...");
-        scanFolderAndRoute("INBOX", true);
-        scanFolderAndRoute("[Gmail]/Sent Mail", false);
-        scanFolderAndRoute("[Gmail]/Sent", false);
+        rescanRequested.set(true);
+        do {
+            if (!scanLock.tryLock()) return; // the running scan will pick the request up
+            try {
+                while (rescanRequested.getAndSet(false)) {
+                    log.debug("🕵️ Starting Inbox & Sent Scan...");
+                    scanFolderAndRoute("INBOX", true);
+                    scanFolderAndRoute("[Gmail]/Sent Mail", false);
+                    scanFolderAndRoute("[Gmail]/Sent", false);
+                }
+            } finally {
+                scanLock.unlock();
+            }
+            // A request may have landed between the last check and unlock()
+        } while (rescanRequested.get());
     }
 
     private void scanFolderAndRoute(String sourceFolder, boolean isMoveOperation) {
         try {
-            List<InboxMessage> messages = inboxProvider.fetchMessages(sourceFolder);
-            if (messages.isEmpty()) return;
-
-            for (InboxMessage msg : messages) {
+            // ✅ STAGE 1 (fetch): Only pull UIDs above the stored checkpoint (full resync if UIDVALIDITY changed)
+            long stageStart = System.nanoTime();
+            MailSyncState state = syncStateRepo.findById(sourceFolder).orElse(null);
+            ImapInboxAdapter.SyncBatch batch = inboxProvider.fetchMessagesSince(
+                    sourceFolder,
+                    state != null ? state.getUidValidity() : null,
+                    state != null ? state.getLastUid() : 0L);
+            pipeline.record(EmailRoutingPipeline.Stage.FETCH, stageStart, batch != null);
+            if (batch == null || batch.folderMissing()) return;
+
+            // ✅ STAGE 2 (match): Headers only (No bodies downloaded yet)
+            stageStart = System.nanoTime();
+            List<RoutingCandidate> candidates = new ArrayList<>();
+            Map<Long, Boolean> poExists = new HashMap<>();
+            for (InboxMessage msg : batch.messages()) {
                 if (msg.getSubject() == null) continue;
 
                 Matcher matcher = PO_PATTERN.matcher(msg.getSubject());
                 if (matcher.find()) {
                     Long poId = Long.parseLong(matcher.group(1));
 
-                    // ✅ STEP 1: Use the Slim check (No Joins, connection released immediately)
-                    if (poRepo.existsByPoId(poId).isEmpty()) continue;
-
-                    String targetLabel = "SupplyMind/PO-" + poId;
-                    boolean isSupplierReply = !msg.getFrom().toLowerCase().contains("supplymind");
-
-                    // ✅ STEP 2: Slow Network I/O (Happens while DB pool is free)
-                    try {
-                        if (isMoveOperation) {
-                            inboxProvider.moveMessage(msg.getMessageId(), sourceFolder, targetLabel);
-                            log.info("✅ Moved message for PO #{}", poId);
-                        } else {
-                            inboxProvider.copyMessage(msg.getMessageId(), sourceFolder, targetLabel);
-                            log.info("✅ Copied sent message for PO #{}", poId);
-                        }
-
-                        messagingTemplate.convertAndSend("/topic/po/" + poId, msg);
-                    } catch (Exception e) {
-                        log.error("❌ Email I/O failed for PO #{}", poId, e);
-                        continue;
-                    }
-
-                    // ✅ STEP 3: Transactional DB Update (Only if needed)
-                    if (isMoveOperation && isSupplierReply) {
-                        updateStatusWithAi(poId, msg);
-                    }
+                    // Slim check (No Joins, connection released immediately), once per PO in the batch
+                    if (!poExists.computeIfAbsent(poId, id -> poRepo.existsByPoId(id).isPresent())) continue;
+                    candidates.add(new RoutingCandidate(msg, poId));
+                }
+            }
+            pipeline.record(EmailRoutingPipeline.Stage.MATCH, stageStart, true);
+
+            // ✅ STAGE 3 (route): Batched body fetch for the matches only (UIDs above the checkpoint = not routed yet)
+            stageStart = System.nanoTime();
+            if (!candidates.isEmpty()) {
+                List<InboxMessage> toFetch = candidates.stream().map(RoutingCandidate::msg).toList();
+                if (!inboxProvider.fetchBodies(sourceFolder, batch.uidValidity(), toFetch)) {
+                    log.warn("Body fetch failed for {}, keeping checkpoint for next scan", sourceFolder);
+                    pipeline.record(EmailRoutingPipeline.Stage.ROUTE, stageStart, false);
+                    return;
                 }
             }
-        } catch (Exception e) {
-            log.debug("Skipping scan for folder {}: {}", sourceFolder, e.getMessage());
-        }
-    }
-
-    // This method is now the only place that holds a short-lived transaction
-    @Transactional
-    public void updateStatusWithAi(Long poId, InboxMessage msg) {
-        // We use findById here because we actually need to update the object
-        poRepo.findById(poId).ifPresent(po -> {
-            log.info("📧 Analyzing Supplier Reply for PO #{}", poId);
-            AiStatusScanner.StatusScanResult analysis = aiScanner.scanEmailForStatus(msg.getSnippet());
 
-            if (analysis.deliveryDate() != null) {
-                po.setExpectedDeliveryDate(analysis.deliveryDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
+            // Slow Network I/O, one COPY/MOVE per target folder (DB pool is free)
+            Map<String, List<InboxMessage>> byTarget = new LinkedHashMap<>();
+            int routable = 0;
+            for (RoutingCandidate candidate : candidates) {
+                if (candidate.msg().getBody() == null) continue; // deleted on the server between the phases
+                byTarget.computeIfAbsent("SupplyMind/PO-" + candidate.poId(), k -> new ArrayList<>()).add(candidate.msg());
+                routable++;
             }
+            Set<Long> routed = inboxProvider.routeMessages(sourceFolder, batch.uidValidity(), byTarget, isMoveOperation);
+            pipeline.record(EmailRoutingPipeline.Stage.ROUTE, stageStart, routed.size() == routable);
 
-            // Logic to update status based on analysis...
-            try {
-                PurchaseOrderStatus detected = PurchaseOrderStatus.valueOf(analysis.status());
-                List<PurchaseOrderStatus> validTransitions = List.of(
-                        PurchaseOrderStatus.DELAY_EXPECTED,
-                        PurchaseOrderStatus.CONFIRMED,
-                        PurchaseOrderStatus.SUPPLIER_REPLIED,
-                        PurchaseOrderStatus.SHIPPED
-                );
-
-                if (validTransitions.contains(detected)) {
-                    po.setStatus(detected);
+            Long firstFailedUid = null;
+
+            for (RoutingCandidate candidate : candidates) {
+                InboxMessage msg = candidate.msg();
+                Long poId = candidate.poId();
+                if (msg.getBody() == null) continue;
+
+                if (!routed.contains(msg.getUid())) {
+                    log.error("❌ Email I/O failed for PO #{}", poId);
+                    // Hold the checkpoint below this UID so the message is retried next scan
+                    if (firstFailedUid == null || msg.getUid() < firstFailedUid) firstFailedUid = msg.getUid();
+                    continue;
                 }
-            } catch (Exception ignored) {}
+                log.info(isMoveOperation ? "✅ Moved message for PO #{}" : "✅ Copied sent message for PO #{}", poId);
+                inboxService.storeMessage(poId, msg);
+                messagingTemplate.convertAndSend("/topic/po/" + poId, msg);
+
+                // ✅ STAGES 4-5 (classify, persist): AI status update runs off the scanner thread
+                boolean isSupplierReply = !msg.getFrom().toLowerCase().contains("supplymind");
+                if (isMoveOperation && isSupplierReply) {
+                    pipeline.submitSupplierReply(poId, msg);
+                }
+            }
 
-            po.setLastActivityAt(Instant.now());
-            poRepo.save(po);
-        });
+            long checkpoint = firstFailedUid != null ? firstFailedUid - 1 : batch.highestUid();
+            syncStateRepo.save(MailSyncState.builder()
+                    .folderName(sourceFolder)
+                    .uidValidity(batch.uidValidity())
+                    .lastUid(checkpoint)
+                    .build());
+        } catch (Exception e) {
+            log.debug("Skipping scan for folder {}: {}", sourceFolder, e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,259 @@
+package com.supplymind.platform_core.service.communication;
+
+import com.supplymind.platform_core.common.enums.PurchaseOrderStatus;
+import com.supplymind.platform_core.dto.core.purchaseorder.InboxMessage;
+import com.supplymind.platform_core.repository.core.PurchaseOrderRepository;
+import com.supplymind.platform_core.service.intel.AiStatusScanner;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stages of the inbox scan: fetch -> match -> route -> classify -> persist.
+ * <p>
+ * Fetch, match and route run as batch steps on the scanner thread (the UID checkpoint may only move
+ * once a batch is routed). Supplier replies are then handed over through bounded queues:
+ * classification (the LLM call) runs on virtual threads capped by a semaphore, and a single persist
+ * thread applies each result in its own short transaction. When classification falls behind the
+ * queues fill up and {@link #submitSupplierReply} blocks the scanner, so it stops pulling new mail.
+ * Replies for the same PO are classified in arrival order so an older reply never overwrites a newer status.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailRoutingPipeline {
+
+    public enum Stage { FETCH, MATCH, ROUTE, CLASSIFY, PERSIST }
+
+    /** Latency is per batch for the scanner stages and per message for classify/persist. */
+    public record StageStats(Stage stage, long processed, long failures, double avgMillis, double maxMillis,
+                             int queueDepth, int queueCapacity) {}
+
+    public record Stats(List<StageStats> stages, int classifyInFlight, int classifyConcurrency, long rejected) {}
+
+    private record ClassifyTask(Long poId, InboxMessage msg) {}
+
+    private record PersistTask(Long poId, AiStatusScanner.StatusScanResult analysis) {}
+
+    private static final List<PurchaseOrderStatus> AI_STATUSES = List.of(
+            PurchaseOrderStatus.DELAY_EXPECTED,
+            PurchaseOrderStatus.CONFIRMED,
+            PurchaseOrderStatus.SUPPLIER_REPLIED,
+            PurchaseOrderStatus.SHIPPED
+    );
+
+    private final PurchaseOrderRepository poRepo;
+    private final AiStatusScanner aiScanner;
+    private final TransactionTemplate txTemplate;
+
+    @Value("${email.pipeline.classify.concurrency:16}")
+    private int classifyConcurrency;
+
+    @Value("${email.pipeline.classify.queue-capacity:100}")
+    private int classifyQueueCapacity;
+
+    @Value("${email.pipeline.persist.queue-capacity:100}")
+    private int persistQueueCapacity;
+
+    @Value("${email.pipeline.enqueue-timeout-seconds:120}")
+    private long enqueueTimeoutSeconds;
+
+    private BlockingQueue<ClassifyTask> classifyQueue;
+    private BlockingQueue<PersistTask> persistQueue;
+    private Semaphore classifySlots;
+    private ExecutorService classifyExecutor;
+    private Thread dispatcher;
+    private Thread persister;
+    private volatile boolean running;
+
+    // Tail of the classification chain per PO; removed once the chain drains
+    private final Map<Long, CompletableFuture<Void>> poTails = new ConcurrentHashMap<>();
+
+    private final Map<Stage, StageMetrics> metrics = new EnumMap<>(Stage.class);
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        for (Stage stage : Stage.values()) metrics.put(stage, new StageMetrics());
+        classifyQueue = new ArrayBlockingQueue<>(classifyQueueCapacity);
+        persistQueue = new ArrayBlockingQueue<>(persistQueueCapacity);
+        classifySlots = new Semaphore(classifyConcurrency);
+        classifyExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("email-classify-", 0).factory());
+
+        running = true;
+        dispatcher = Thread.ofPlatform().daemon().name("email-classify-dispatcher").start(this::dispatchLoop);
+        persister = Thread.ofPlatform().daemon().name("email-persist").start(this::persistLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (dispatcher != null) dispatcher.interrupt();
+        if (persister != null) persister.interrupt();
+        if (classifyExecutor != null) classifyExecutor.shutdownNow();
+        if (!classifyQueue.isEmpty() || !persistQueue.isEmpty()) {
+            log.warn("Email pipeline stopped with {} replies unclassified and {} results unsaved",
+                    classifyQueue.size(), persistQueue.size());
+        }
+    }
+
+    /**
+     * Hands a routed supplier reply to the classify stage. Blocks while the queue is full (backpressure
+     * on the scanner); returns false if there was still no room after the enqueue timeout.
+     */
+    public boolean submitSupplierReply(Long poId, InboxMessage msg) {
+        try {
+            if (running && classifyQueue.offer(new ClassifyTask(poId, msg), enqueueTimeoutSeconds, TimeUnit.SECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.incrementAndGet();
+        log.warn("Email pipeline full, reply for PO #{} was not classified", poId);
+        return false;
+    }
+
+    /** Records one run of a scanner-side stage (fetch/match/route) started at {@code startNanos}. */
+    public void record(Stage stage, long startNanos, boolean success) {
+        metrics.get(stage).record(System.nanoTime() - startNanos, success);
+    }
+
+    public Stats stats() {
+        List<StageStats> stages = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            int depth = switch (stage) {
+                case CLASSIFY -> classifyQueue.size();
+                case PERSIST -> persistQueue.size();
+                default -> 0;
+            };
+            int capacity = switch (stage) {
+                case CLASSIFY -> classifyQueueCapacity;
+                case PERSIST -> persistQueueCapacity;
+                default -> 0;
+            };
+            stages.add(metrics.get(stage).snapshot(stage, depth, capacity));
+        }
+        return new Stats(stages, classifyConcurrency - classifySlots.availablePermits(), classifyConcurrency,
+                rejected.get());
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                ClassifyTask task = classifyQueue.take();
+                classifySlots.acquire(); // concurrency cap; while all slots are busy the queue backs up
+
+                CompletableFuture<Void> tail = poTails.compute(task.poId(), (poId, previous) ->
+                        (previous != null ? previous : CompletableFuture.<Void>completedFuture(null))
+                                .handleAsync((ignored, error) -> {
+                                    classify(task);
+                                    return null;
+                                }, classifyExecutor));
+                tail.whenComplete((ignored, error) -> poTails.remove(task.poId(), tail));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RejectedExecutionException e) {
+                return; // shutting down
+            }
+        }
+    }
+
+    private void classify(ClassifyTask task) {
+        long start = System.nanoTime();
+        try {
+            log.info("📧 Analyzing Supplier Reply for PO #{}", task.poId());
+            AiStatusScanner.StatusScanResult analysis = aiScanner.scanEmailForStatus(task.msg().getSnippet());
+            metrics.get(Stage.CLASSIFY).record(System.nanoTime() - start, true);
+
+            if (!persistQueue.offer(new PersistTask(task.poId(), analysis), enqueueTimeoutSeconds, TimeUnit.SECONDS)) {
+                rejected.incrementAndGet();
+                log.warn("Persist queue full, status for PO #{} was dropped", task.poId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            metrics.get(Stage.CLASSIFY).record(System.nanoTime() - start, false);
+            log.warn("Classification failed for PO #{}: {}", task.poId(), e.getMessage());
+        } finally {
+            classifySlots.release();
+        }
+    }
+
+    private void persistLoop() {
+        while (running) {
+            PersistTask task;
+            try {
+                task = persistQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                txTemplate.executeWithoutResult(status -> applyStatus(task));
+                metrics.get(Stage.PERSIST).record(System.nanoTime() - start, true);
+            } catch (RuntimeException e) {
+                metrics.get(Stage.PERSIST).record(System.nanoTime() - start, false);
+                log.error("Failed to save AI status for PO #{}: {}", task.poId(), e.getMessage());
+            }
+        }
+    }
+
+    private void applyStatus(PersistTask task) {
+        // We use findById here because we actually need to update the object
+        poRepo.findById(task.poId()).ifPresent(po -> {
+            AiStatusScanner.StatusScanResult analysis = task.analysis();
+            if (analysis.deliveryDate() != null) {
+                po.setExpectedDeliveryDate(analysis.deliveryDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
+            }
+
+            try {
+                PurchaseOrderStatus detected = PurchaseOrderStatus.valueOf(analysis.status());
+                if (AI_STATUSES.contains(detected)) {
+                    po.setStatus(detected);
+                }
+            } catch (Exception ignored) {}
+
+            po.setLastActivityAt(Instant.now());
+            poRepo.save(po);
+        });
+    }
+
+    private static final class StageMetrics {
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean success) {
+            processed.increment();
+            if (!success) failures.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        StageStats snapshot(Stage stage, int queueDepth, int queueCapacity) {
+            long count = processed.sum();
+            double avgMillis = count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+            return new StageStats(stage, count, failures.sum(), avgMillis, maxNanos.get() / 1_000_000.0,
+                    queueDepth, queueCapacity);
+        }
+    }
+}
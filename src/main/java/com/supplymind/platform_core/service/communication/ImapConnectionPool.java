@@ -0,0 +1,215 @@
+package com.supplymind.platform_core.service.communication;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small pool of authenticated IMAP {@link Store}s shared by the background scanner and the inbox UI.
+ * Avoids a TLS handshake + LOGIN for every fetch/move/copy/attachment call.
+ * Connections are health-checked on borrow, closed after an idle timeout, and transparently
+ * re-established once if the server drops them mid-operation.
+ */
+@Slf4j
+@Component
+public class ImapConnectionPool {
+
+    public record Stats(long connects, long reuses, long failures, long evictions, int idle, int maxSize) {}
+
+    @FunctionalInterface
+    public interface StoreCallback<T> {
+        T doWithStore(Store store) throws Exception;
+    }
+
+    private record PooledStore(Store store, long lastUsedMillis) {}
+
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+
+    @Value("${spring.mail.username}")
+    private String username;
+
+    @Value("${spring.mail.password}")
+    private String password;
+
+    @Value("${imap.host:imap.gmail.com}")
+    private String host;
+
+    @Value("${imap.port:993}")
+    private int port;
+
+    @Value("${imap.protocol:imaps}")
+    private String protocol;
+
+    @Value("${imap.pool.max-size:3}")
+    private int maxSize;
+
+    @Value("${imap.pool.idle-timeout-seconds:300}")
+    private long idleTimeoutSeconds;
+
+    // Most-recently-used first, so a quiet pool shrinks from the tail
+    private final Deque<PooledStore> idle = new ArrayDeque<>();
+    private Semaphore permits;
+
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Runs the callback with a pooled, connected Store.
+     * If the connection turns out to be dead (Store/Folder closed by the server), it is replaced and
+     * the callback retried once, so callbacks should be idempotent.
+     */
+    public <T> T execute(StoreCallback<T> callback) throws Exception {
+        if (!permits.tryAcquire(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new MessagingException("Timed out waiting for an IMAP connection");
+        }
+        try {
+            Store store = borrow();
+            try {
+                T result = callback.doWithStore(store);
+                giveBack(store);
+                return result;
+            } catch (StoreClosedException | FolderClosedException e) {
+                failures.incrementAndGet();
+                discard(store);
+                log.warn("IMAP connection dropped ({}), reconnecting", e.getMessage());
+
+                Store fresh = connect();
+                try {
+                    T result = callback.doWithStore(fresh);
+                    giveBack(fresh);
+                    return result;
+                } catch (Exception retryFailure) {
+                    failures.incrementAndGet();
+                    discard(fresh);
+                    throw retryFailure;
+                }
+            } catch (Exception e) {
+                // Business errors (message not found, ...) leave the connection reusable
+                if (store.isConnected()) {
+                    giveBack(store);
+                } else {
+                    failures.incrementAndGet();
+                    discard(store);
+                }
+                throw e;
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Opens a dedicated, non-pooled connection (e.g. for a long-lived IDLE listener).
+     * The caller owns it and must close it.
+     */
+    public Store openDedicated() throws MessagingException {
+        return connect();
+    }
+
+    public Stats stats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new Stats(connects.get(), reuses.get(), failures.get(), evictions.get(), idleCount, maxSize);
+    }
+
+    // Reaper: close connections nobody used for a while (servers drop them anyway)
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+        synchronized (idle) {
+            Iterator<PooledStore> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledStore pooled = it.next();
+                if (pooled.lastUsedMillis() >= cutoff) break;
+                it.remove();
+                evictions.incrementAndGet();
+                closeQuietly(pooled.store());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        synchronized (idle) {
+            idle.forEach(p -> closeQuietly(p.store()));
+            idle.clear();
+        }
+    }
+
+    private Store borrow() throws MessagingException {
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+        while (true) {
+            PooledStore pooled;
+            synchronized (idle) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) return connect();
+
+            // isConnected() on an IMAP store issues a NOOP, so this doubles as the health check
+            if (pooled.lastUsedMillis() < cutoff || !pooled.store().isConnected()) {
+                evictions.incrementAndGet();
+                closeQuietly(pooled.store());
+                continue;
+            }
+            reuses.incrementAndGet();
+            return pooled.store();
+        }
+    }
+
+    private void giveBack(Store store) {
+        synchronized (idle) {
+            idle.addFirst(new PooledStore(store, System.currentTimeMillis()));
+        }
+    }
+
+    private void discard(Store store) {
+        closeQuietly(store);
+    }
+
+    private Store connect() throws MessagingException {
+        Properties props = new Properties();
+        props.put("mail.store.protocol", protocol);
+        props.put("mail." + protocol + ".host", host);
+        props.put("mail." + protocol + ".port", String.valueOf(port));
+        props.put("mail." + protocol + ".ssl.enable", String.valueOf("imaps".equals(protocol)));
+        props.put("mail." + protocol + ".partialfetch", "false");
+
+        Session session = Session.getInstance(props);
+        Store store = session.getStore(protocol);
+        try {
+            store.connect(host, port, username, password);
+        } catch (MessagingException e) {
+            failures.incrementAndGet();
+            throw e;
+        }
+        connects.incrementAndGet();
+        return store;
+    }
+
+    private void closeQuietly(Store store) {
+        try {
+            if (store != null) store.close();
+        } catch (Exception e) { /* ignore */ }
+    }
+}
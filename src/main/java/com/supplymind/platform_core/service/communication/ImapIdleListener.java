@@ -0,0 +1,194 @@
+package com.supplymind.platform_core.service.communication;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Store;
+import jakarta.mail.event.MessageCountAdapter;
+import jakarta.mail.event.MessageCountEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.eclipse.angus.mail.imap.IMAPStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Push mode for the email scanner: keeps one dedicated IMAP connection in IDLE on the inbox and wakes
+ * {@link EmailAutomationService} as soon as the server reports new mail.
+ * Falls back to NOOP polling when the server has no IDLE capability. Reconnects with jittered
+ * exponential backoff and requests a catch-up scan after every (re)connect; the scheduled poller in
+ * EmailAutomationService stays on as a safety net.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImapIdleListener {
+
+    private static final long MIN_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 300_000;
+
+    private final ImapConnectionPool connectionPool;
+    private final EmailAutomationService automationService;
+
+    @Value("${imap.idle.enabled:false}")
+    private boolean enabled;
+
+    @Value("${imap.idle.folder:INBOX}")
+    private String folderName;
+
+    // Servers drop IDLE after ~30 min of silence (RFC 2177), so re-issue it before that
+    @Value("${imap.idle.keepalive-minutes:9}")
+    private long keepaliveMinutes;
+
+    @Value("${imap.idle.noop-interval-seconds:30}")
+    private long noopIntervalSeconds;
+
+    private volatile boolean running;
+    private volatile Thread worker;
+    private volatile Store currentStore;
+    private volatile Folder currentFolder;
+    private ScheduledExecutorService keepalive;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) start();
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+
+        keepalive = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "imap-idle-keepalive");
+            t.setDaemon(true);
+            return t;
+        });
+        keepalive.scheduleWithFixedDelay(this::refreshIdle, keepaliveMinutes, keepaliveMinutes, TimeUnit.MINUTES);
+
+        worker = new Thread(this::runLoop, "imap-idle");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+
+        keepalive.shutdownNow();
+        closeQuietly(currentStore); // breaks a pending IDLE
+        worker.interrupt();
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runLoop() {
+        long backoff = MIN_BACKOFF_MS;
+
+        while (running) {
+            Store store = null;
+            Folder folder = null;
+            try {
+                store = connectionPool.openDedicated();
+                currentStore = store;
+
+                folder = store.getFolder(folderName);
+                folder.open(Folder.READ_ONLY);
+                folder.addMessageCountListener(new MessageCountAdapter() {
+                    @Override
+                    public void messagesAdded(MessageCountEvent e) {
+                        log.debug("IMAP push: {} new message(s) in {}", e.getMessages().length, folderName);
+                        automationService.requestScan();
+                    }
+                });
+                currentFolder = folder;
+                backoff = MIN_BACKOFF_MS;
+
+                // Catch up on anything that arrived while we were disconnected
+                automationService.requestScan();
+
+                if (((IMAPStore) store).hasCapability("IDLE")) {
+                    log.info("IMAP IDLE listening on {}", folderName);
+                    while (running && folder.isOpen()) {
+                        ((IMAPFolder) folder).idle();
+                    }
+                    if (running) throw new MessagingException("Folder closed by server");
+                } else {
+                    log.info("Server has no IDLE, polling {} with NOOP every {}s", folderName, noopIntervalSeconds);
+                    pollWithNoop(folder);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                if (!running) break;
+
+                // Jitter over [backoff/2, backoff] so several instances don't reconnect in lockstep
+                long sleep = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                log.warn("IMAP IDLE connection lost ({}), reconnecting in {} ms", e.getMessage(), sleep);
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+            } finally {
+                currentFolder = null;
+                currentStore = null;
+                closeQuietly(folder);
+                closeQuietly(store);
+            }
+        }
+        log.info("IMAP IDLE listener stopped");
+    }
+
+    private void pollWithNoop(Folder folder) throws MessagingException, InterruptedException {
+        int lastCount = folder.getMessageCount();
+        while (running) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(noopIntervalSeconds));
+            // getMessageCount() on an open IMAP folder issues a NOOP, which also fires messagesAdded
+            int count = folder.getMessageCount();
+            if (count > lastCount) automationService.requestScan();
+            lastCount = count;
+        }
+    }
+
+    // Any command from another thread ends the current IDLE; the loop then re-enters it
+    private void refreshIdle() {
+        Folder folder = currentFolder;
+        if (folder == null) return;
+        try {
+            folder.getMessageCount();
+        } catch (Exception e) {
+            log.debug("IDLE keepalive failed: {}", e.getMessage());
+        }
+    }
+
+    private void closeQuietly(Folder folder) {
+        try {
+            if (folder != null && folder.isOpen()) folder.close(false);
+        } catch (Exception e) { /* ignore */ }
+    }
+
+    private void closeQuietly(Store store) {
+        try {
+            if (store != null) store.close();
+        } catch (Exception e) { /* ignore */ }
+    }
+}
@@ -1,64 +1,45 @@
 package com.supplymind.platform_core.service.communication;
 
+import com.supplymind.platform_core.common.util.EmailTextExtractor;
 import com.supplymind.platform_core.dto.core.purchaseorder.InboxMessage;
+import com.supplymind.platform_core.exception.BadRequestException;
 import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.search.HeaderTerm;
+import jakarta.mail.search.OrTerm;
+import jakarta.mail.search.SearchTerm;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.eclipse.angus.mail.imap.IMAPStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ImapInboxAdapter implements InboxProvider {
 
-    @Value("${spring.mail.username}")
-    private String username;
+    private final ImapConnectionPool connectionPool;
 
-    @Value("${spring.mail.password}")
-    private String password;
+    // MESSAGE = whole RFC822 source per batch (one round trip), CONTENT_INFO = BODYSTRUCTURE + lazy part fetches
+    @Value("${imap.fetch.body-profile:MESSAGE}")
+    private String bodyProfile;
+
+    @Value("${imap.fetch.body-batch-size:25}")
+    private int bodyBatchSize;
 
     // 1. CONFIG: Scan Depth (Keep this high)
     private static final int SCAN_DEPTH = 2000;
-    private static final String IMAP_HOST = "imap.gmail.com";
-
-    // 2. REGEX: Identify HTML Tags
-    private static final Pattern HTML_TAG_PATTERN = Pattern.compile("<[^>]+>");
-
-    // 3. REGEX: Identify Gmail's hidden quote block (The "History" container)
-    private static final Pattern GMAIL_QUOTE_PATTERN = Pattern.compile(
-            "(?s)<div class=\"gmail_quote\">.*?</div>",
-            Pattern.CASE_INSENSITIVE
-    );
-
-    // 4. REGEX: Aggressive Splitter for "On [Date] [User] wrote:" lines
-    private static final Pattern REPLY_SPLIT_PATTERN = Pattern.compile(
-            "(\\nOn\\s.+wrote:|\\nFrom:\\s.+|\\nSent:\\s.+|\\n-----Original Message-----|\\n_{5,})",
-            Pattern.CASE_INSENSITIVE
-    );
-
-    private Store connect() throws MessagingException {
-        Properties props = new Properties();
-        props.put("mail.store.protocol", "imaps");
-        props.put("mail.imaps.host", IMAP_HOST);
-        props.put("mail.imaps.port", "993");
-        props.put("mail.imaps.ssl.enable", "true");
-        props.put("mail.imaps.partialfetch", "false");
-
-        Session session = Session.getInstance(props);
-        Store store = session.getStore("imaps");
-        store.connect(IMAP_HOST, username, password);
-        return store;
-    }
+
+    // 2. HTML cleanup (Gmail quote block, tags, entities) and reply-history cut: see EmailTextExtractor
 
     @Override
     public String getOrCreateLabel(String labelName) {
@@ -67,73 +48,239 @@ public class ImapInboxAdapter implements InboxProvider {
 
     @Override
     public List<InboxMessage> fetchMessages(String labelId) {
-        Store store = null;
-        Folder folder = null;
-        List<InboxMessage> result = new ArrayList<>();
+        try {
+            return connectionPool.execute(store -> {
+                List<InboxMessage> result = new ArrayList<>();
+                Folder folder = store.getFolder(labelId);
+                if (!folder.exists()) return result;
+
+                folder.open(Folder.READ_ONLY);
+                try {
+                    int count = folder.getMessageCount();
+                    if (count == 0) return result;
+
+                    int start = Math.max(1, count - SCAN_DEPTH);
+                    Message[] messages = folder.getMessages(start, count);
+
+                    // Every message here is displayed, so bodies come in the same batched fetch
+                    FetchProfile fp = bodyFetchProfile();
+                    fp.add(FetchProfile.Item.ENVELOPE);
+                    fp.add("Message-ID");
+                    folder.fetch(messages, fp);
+
+                    for (int i = messages.length - 1; i >= 0; i--) {
+                        try {
+                            InboxMessage dto = toInboxMessage(messages[i]);
+                            if (dto != null) result.add(dto);
+                        } catch (FolderClosedException | StoreClosedException e) {
+                            throw e;
+                        } catch (Exception e) {
+                            log.error("Skipping message due to parse error", e);
+                        }
+                    }
+                    return result;
+                } finally {
+                    closeQuietly(folder);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to fetch messages from " + labelId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Result of an incremental folder sync.
+     * @param messages    new messages (newest first), headers only - see {@link #fetchBodies}
+     * @param uidValidity current UIDVALIDITY of the folder
+     * @param highestUid  highest UID seen in this fetch (or the previous checkpoint if nothing new)
+     * @param fullResync  true when the stored checkpoint was missing or invalidated
+     */
+    public record SyncBatch(List<InboxMessage> messages, long uidValidity, long highestUid, boolean fullResync) {
+
+        // UIDVALIDITY is a non-zero number (RFC 3501), so 0 can mark a folder that does not exist
+        static SyncBatch missingFolder() {
+            return new SyncBatch(List.of(), 0L, 0L, true);
+        }
 
+        public boolean folderMissing() {
+            return uidValidity == 0L;
+        }
+    }
+
+    /**
+     * Incremental fetch using IMAP UIDs: only messages with UID > lastUid are downloaded.
+     * When knownUidValidity is null or no longer matches the folder's UIDVALIDITY, UIDs have been
+     * reassigned by the server and we fall back to a full resync of the last SCAN_DEPTH messages.
+     * Only envelopes are downloaded; bodies are fetched separately for the messages the caller keeps.
+     *
+     * @return the batch ({@link SyncBatch#folderMissing()} if the folder does not exist), or null if it could not be read.
+     */
+    public SyncBatch fetchMessagesSince(String labelId, Long knownUidValidity, long lastUid) {
         try {
-            store = connect();
-            folder = store.getFolder(labelId);
+            return connectionPool.execute(store -> {
+                Folder folder = store.getFolder(labelId);
+                if (!folder.exists()) return SyncBatch.missingFolder();
 
-            if (!folder.exists()) return result;
+                folder.open(Folder.READ_ONLY);
+                try {
+                    return syncFolder(folder, knownUidValidity, lastUid);
+                } finally {
+                    closeQuietly(folder);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to sync messages from " + labelId, e);
+            return null;
+        }
+    }
+
+    private SyncBatch syncFolder(Folder folder, Long knownUidValidity, long lastUid) throws MessagingException {
+        UIDFolder uidFolder = (UIDFolder) folder;
+        long uidValidity = uidFolder.getUIDValidity();
+        boolean fullResync = knownUidValidity == null || knownUidValidity != uidValidity;
 
-            folder.open(Folder.READ_ONLY);
+        Message[] messages;
+        if (fullResync) {
             int count = folder.getMessageCount();
-            if (count == 0) return result;
+            messages = count == 0
+                    ? new Message[0]
+                    : folder.getMessages(Math.max(1, count - SCAN_DEPTH), count);
+        } else {
+            messages = uidFolder.getMessagesByUID(lastUid + 1, UIDFolder.MAXUID);
+        }
 
-            int start = Math.max(1, count - SCAN_DEPTH);
-            Message[] messages = folder.getMessages(start, count);
+        FetchProfile fp = new FetchProfile();
+        fp.add(FetchProfile.Item.ENVELOPE);
+        fp.add(UIDFolder.FetchProfileItem.UID);
+        fp.add("Message-ID"); // otherwise getHeader() costs one round trip per message
+        folder.fetch(messages, fp);
 
-            FetchProfile fp = new FetchProfile();
-            fp.add(FetchProfile.Item.ENVELOPE);
-            folder.fetch(messages, fp);
+        long highestUid = fullResync ? 0L : lastUid;
+        List<InboxMessage> result = new ArrayList<>();
 
-            for (int i = messages.length - 1; i >= 0; i--) {
-                Message msg = messages[i];
-                try {
-                    InboxMessage dto = new InboxMessage();
-                    dto.setSubject(msg.getSubject());
-                    if (dto.getSubject() == null) continue;
+        for (int i = messages.length - 1; i >= 0; i--) {
+            Message msg = messages[i];
+            long uid = uidFolder.getUID(msg);
+            // "n:*" always returns the last message even when its UID is below n
+            if (!fullResync && uid <= lastUid) continue;
+            highestUid = Math.max(highestUid, uid);
+
+            try {
+                InboxMessage dto = toHeaderMessage(msg);
+                if (dto == null) continue;
+                dto.setUid(uid);
+                result.add(dto);
+            } catch (FolderClosedException | StoreClosedException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Skipping message due to parse error", e);
+            }
+        }
 
-                    dto.setTimestamp(msg.getSentDate() != null ? msg.getSentDate().getTime() : System.currentTimeMillis());
+        return new SyncBatch(result, uidValidity, highestUid, fullResync);
+    }
 
-                    String[] messageIds = msg.getHeader("Message-ID");
-                    dto.setMessageId(messageIds != null && messageIds.length > 0 ? messageIds[0] : null);
+    /**
+     * Second phase of a scan: downloads and parses bodies for header-only messages (matched by UID),
+     * in batches of imap.fetch.body-batch-size. Messages that disappeared in between keep a null body.
+     *
+     * @return false if the folder's UIDVALIDITY changed or it could not be read (nothing was filled).
+     */
+    public boolean fetchBodies(String labelId, long uidValidity, List<InboxMessage> messages) {
+        if (messages.isEmpty()) return true;
+        try {
+            return connectionPool.execute(store -> {
+                Folder folder = store.getFolder(labelId);
+                if (!folder.exists()) return false;
 
-                    Address[] froms = msg.getFrom();
-                    String from = (froms != null && froms.length > 0) ? ((InternetAddress) froms[0]).getAddress() : "Unknown";
-                    dto.setFrom(from);
+                folder.open(Folder.READ_ONLY);
+                try {
+                    UIDFolder uidFolder = (UIDFolder) folder;
+                    if (uidFolder.getUIDValidity() != uidValidity) return false;
 
-                    StringBuilder textBody = new StringBuilder();
-                    List<String> attachmentNames = new ArrayList<>();
+                    FetchProfile fp = bodyFetchProfile();
+                    for (int from = 0; from < messages.size(); from += bodyBatchSize) {
+                        List<InboxMessage> chunk = messages.subList(from, Math.min(messages.size(), from + bodyBatchSize));
+                        long[] uids = chunk.stream().mapToLong(InboxMessage::getUid).toArray();
 
-                    try {
-                        extractContent(msg, textBody, attachmentNames);
-                    } catch (Exception e) {
-                        log.warn("Could not extract content for msg: {}", dto.getSubject());
+                        // Same order as uids, null where the UID no longer exists
+                        Message[] found = uidFolder.getMessagesByUID(uids);
+                        folder.fetch(Arrays.stream(found).filter(Objects::nonNull).toArray(Message[]::new), fp);
+
+                        for (int i = 0; i < chunk.size(); i++) {
+                            if (found[i] != null) fillBody(found[i], chunk.get(i));
+                        }
                     }
+                    return true;
+                } finally {
+                    closeQuietly(folder);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to fetch bodies from " + labelId, e);
+            return false;
+        }
+    }
 
-                    String fullBody = textBody.toString().trim();
-                    if (fullBody.isEmpty()) fullBody = "(No text content found)";
+    private FetchProfile bodyFetchProfile() {
+        FetchProfile fp = new FetchProfile();
+        if ("CONTENT_INFO".equalsIgnoreCase(bodyProfile)) {
+            fp.add(FetchProfile.Item.CONTENT_INFO);
+        } else {
+            fp.add(IMAPFolder.FetchProfileItem.MESSAGE);
+        }
+        return fp;
+    }
 
-                    // 5. CLEANUP: Cut the history off
-                    String cleanBody = cleanReplyBody(fullBody);
-                    dto.setBody(cleanBody);
-                    dto.setSnippet(cleanBody.length() > 150 ? cleanBody.substring(0, 150) + "..." : cleanBody);
-                    dto.setAttachments(attachmentNames);
+    /**
+     * Converts an IMAP message to the DTO (parses body + attachments).
+     * @return null for messages without a subject.
+     */
+    private InboxMessage toInboxMessage(Message msg) throws MessagingException {
+        InboxMessage dto = toHeaderMessage(msg);
+        if (dto != null) fillBody(msg, dto);
+        return dto;
+    }
 
-                    result.add(dto);
-                } catch (Exception e) {
-                    log.error("Skipping message due to parse error", e);
-                }
-            }
+    /**
+     * Envelope-only conversion: subject, sender, date and Message-ID. Body fields stay null.
+     * @return null for messages without a subject.
+     */
+    private InboxMessage toHeaderMessage(Message msg) throws MessagingException {
+        InboxMessage dto = new InboxMessage();
+        dto.setSubject(msg.getSubject());
+        if (dto.getSubject() == null) return null;
+
+        dto.setTimestamp(msg.getSentDate() != null ? msg.getSentDate().getTime() : System.currentTimeMillis());
+
+        String[] messageIds = msg.getHeader("Message-ID");
+        dto.setMessageId(messageIds != null && messageIds.length > 0 ? messageIds[0] : null);
+
+        Address[] froms = msg.getFrom();
+        String from = (froms != null && froms.length > 0) ? ((InternetAddress) froms[0]).getAddress() : "Unknown";
+        dto.setFrom(from);
+        return dto;
+    }
+
+    private void fillBody(Message msg, InboxMessage dto) {
+        StringBuilder textBody = new StringBuilder();
+        List<String> attachmentNames = new ArrayList<>();
+
+        try {
+            extractContent(msg, textBody, attachmentNames);
         } catch (Exception e) {
-            log.error("Failed to fetch messages from " + labelId, e);
-        } finally {
-            closeQuietly(folder, store);
+            log.warn("Could not extract content for msg: {}", dto.getSubject());
         }
 
-        return result;
+        String fullBody = textBody.toString().trim();
+        if (fullBody.isEmpty()) fullBody = "(No text content found)";
+
+        // 3. CLEANUP: Cut the history off
+        String cleanBody = cleanReplyBody(fullBody);
+        dto.setBody(cleanBody);
+        dto.setSnippet(cleanBody.length() > 150 ? cleanBody.substring(0, 150) + "..." : cleanBody);
+        dto.setAttachments(attachmentNames);
     }
 
     /**
@@ -149,19 +296,8 @@ public class ImapInboxAdapter implements InboxProvider {
         }
         else if (part.isMimeType("text/html")) {
             // Prefer HTML, clear any previous plain text if we found "better" content
-            String html = (String) part.getContent();
-
-            // FIX HISTORY: Remove <div class="gmail_quote"> BEFORE stripping tags
-            html = GMAIL_QUOTE_PATTERN.matcher(html).replaceAll("");
-
-            html = html.replaceAll("(?i)<br\\s*/?>", "\n")
-                    .replaceAll("(?i)</p>", "\n\n")
-                    .replaceAll("(?i)</div>", "\n");
-
-            String cleanText = HTML_TAG_PATTERN.matcher(html).replaceAll("").trim();
-            cleanText = cleanText.replace("&nbsp;", " ")
-                    .replace("&amp;", "&").replace("&quot;", "\"")
-                    .replace("&gt;", ">").replace("&lt;", "<");
+            // FIX HISTORY: <div class="gmail_quote"> is dropped in the same single pass that strips tags
+            String cleanText = EmailTextExtractor.htmlToText((String) part.getContent());
 
             // Overwrite plain text with this cleaner version if both existed
             textBody.setLength(0);
@@ -204,11 +340,138 @@ public class ImapInboxAdapter implements InboxProvider {
      * Cuts text when it sees "On ... wrote:"
      */
     private String cleanReplyBody(String body) {
-        Matcher matcher = REPLY_SPLIT_PATTERN.matcher(body);
-        if (matcher.find()) {
-            return body.substring(0, matcher.start()).trim();
+        return EmailTextExtractor.cutReplyHistory(body);
+    }
+
+    /**
+     * Routes many messages out of one source folder in a single session.
+     * Per target folder: one OR-ed Message-ID search for duplicates, then one COPY (or UID MOVE when the
+     * server advertises MOVE). For moves without MOVE support, DELETED flags are set in bulk and the
+     * folder is expunged once at the end. Cost scales with the number of target folders, not messages.
+     *
+     * @param byTarget target folder -> messages (with UIDs from sourceLabel)
+     * @return UIDs that are now present in their target folder (routed now or earlier)
+     */
+    public Set<Long> routeMessages(String sourceLabel, long uidValidity,
+                                   Map<String, List<InboxMessage>> byTarget, boolean isMove) {
+        if (byTarget.isEmpty()) return Set.of();
+        try {
+            return connectionPool.execute(store -> {
+                Set<Long> routed = new HashSet<>();
+                Folder source = store.getFolder(sourceLabel);
+                if (!source.exists()) return routed;
+
+                source.open(Folder.READ_WRITE);
+                try {
+                    UIDFolder uidSource = (UIDFolder) source;
+                    if (uidSource.getUIDValidity() != uidValidity) return routed;
+
+                    IMAPStore imapStore = (IMAPStore) store;
+                    boolean canMove = isMove && imapStore.hasCapability("MOVE");
+                    List<Message> toDelete = new ArrayList<>();
+
+                    for (Map.Entry<String, List<InboxMessage>> entry : byTarget.entrySet()) {
+                        try {
+                            routeToFolder(store, source, entry.getKey(), entry.getValue(), isMove, canMove, toDelete, routed);
+                        } catch (FolderClosedException | StoreClosedException e) {
+                            throw e;
+                        } catch (MessagingException e) {
+                            log.error("Failed to route {} message(s) to {}", entry.getValue().size(), entry.getKey(), e);
+                        }
+                    }
+
+                    if (!toDelete.isEmpty()) {
+                        Message[] deleted = toDelete.toArray(new Message[0]);
+                        source.setFlags(deleted, new Flags(Flags.Flag.DELETED), true);
+                        // UID EXPUNGE only touches our messages; plain EXPUNGE would also purge others' deletions
+                        if (imapStore.hasCapability("UIDPLUS")) {
+                            ((IMAPFolder) source).expunge(deleted);
+                        } else {
+                            source.expunge();
+                        }
+                    }
+                    return routed;
+                } finally {
+                    closeQuietly(source);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to route messages from " + sourceLabel, e);
+            return Set.of();
+        }
+    }
+
+    private void routeToFolder(Store store, Folder source, String targetLabel, List<InboxMessage> group,
+                               boolean isMove, boolean canMove, List<Message> toDelete, Set<Long> routed)
+            throws MessagingException {
+        Folder target = store.getFolder(targetLabel);
+        if (!target.exists()) {
+            target.create(Folder.HOLDS_MESSAGES);
+        }
+
+        Set<String> alreadyThere = findExistingMessageIds(target, group);
+
+        List<Message> pending = new ArrayList<>();
+        List<Message> duplicates = new ArrayList<>();
+        List<Long> pendingUids = new ArrayList<>();
+
+        Message[] found = ((UIDFolder) source).getMessagesByUID(group.stream().mapToLong(InboxMessage::getUid).toArray());
+        for (int i = 0; i < group.size(); i++) {
+            InboxMessage msg = group.get(i);
+            if (found[i] == null) continue; // gone from the source folder
+
+            if (msg.getMessageId() != null && alreadyThere.contains(msg.getMessageId())) {
+                duplicates.add(found[i]);
+                routed.add(msg.getUid());
+            } else {
+                pending.add(found[i]);
+                pendingUids.add(msg.getUid());
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            Message[] batch = pending.toArray(new Message[0]);
+            if (canMove) {
+                ((IMAPFolder) source).moveMessages(batch, target);
+            } else {
+                source.copyMessages(batch, target);
+                if (isMove) toDelete.addAll(pending);
+            }
+            routed.addAll(pendingUids);
+        }
+
+        // A previous run copied these but never removed them from the source
+        if (isMove && !duplicates.isEmpty()) {
+            toDelete.addAll(duplicates);
+        }
+    }
+
+    private Set<String> findExistingMessageIds(Folder target, List<InboxMessage> group) throws MessagingException {
+        SearchTerm[] terms = group.stream()
+                .map(InboxMessage::getMessageId)
+                .filter(Objects::nonNull)
+                .map(id -> new HeaderTerm("Message-ID", id))
+                .toArray(SearchTerm[]::new);
+        if (terms.length == 0) return Set.of();
+
+        target.open(Folder.READ_ONLY);
+        try {
+            Message[] hits = target.search(terms.length == 1 ? terms[0] : new OrTerm(terms));
+            if (hits.length == 0) return Set.of();
+
+            FetchProfile fp = new FetchProfile();
+            fp.add("Message-ID");
+            target.fetch(hits, fp);
+
+            Set<String> ids = new HashSet<>();
+            for (Message hit : hits) {
+                String[] header = hit.getHeader("Message-ID");
+                if (header != null && header.length > 0) ids.add(header[0]);
+            }
+            return ids;
+        } finally {
+            closeQuietly(target);
         }
-        return body;
     }
 
     @Override
@@ -222,90 +485,144 @@ public class ImapInboxAdapter implements InboxProvider {
     }
 
     private void operateOnMessage(String messageId, String sourceLabel, String targetLabel, boolean isMove) {
-        Store store = null;
-        Folder sourceFolder = null;
-        Folder targetFolder = null;
         try {
-            store = connect();
-            sourceFolder = store.getFolder(sourceLabel);
-            if (!sourceFolder.exists()) return;
-            sourceFolder.open(Folder.READ_WRITE);
-
-            targetFolder = store.getFolder(targetLabel);
-            if (!targetFolder.exists()) {
-                targetFolder.create(Folder.HOLDS_MESSAGES);
-            }
-            targetFolder.open(Folder.READ_WRITE);
+            connectionPool.execute(store -> {
+                Folder sourceFolder = store.getFolder(sourceLabel);
+                if (!sourceFolder.exists()) return null;
 
-            // Check existence
-            if (targetFolder.search(new HeaderTerm("Message-ID", messageId)).length > 0) return;
+                Folder targetFolder = store.getFolder(targetLabel);
+                try {
+                    sourceFolder.open(Folder.READ_WRITE);
+                    if (!targetFolder.exists()) {
+                        targetFolder.create(Folder.HOLDS_MESSAGES);
+                    }
+                    targetFolder.open(Folder.READ_WRITE);
 
-            Message[] messages = sourceFolder.search(new HeaderTerm("Message-ID", messageId));
-            if (messages.length > 0) {
-                sourceFolder.copyMessages(messages, targetFolder);
-                if (isMove) {
-                    messages[0].setFlag(Flags.Flag.DELETED, true);
+                    // Check existence (also makes a retry after a dropped connection harmless)
+                    if (targetFolder.search(new HeaderTerm("Message-ID", messageId)).length > 0) return null;
+
+                    Message[] messages = sourceFolder.search(new HeaderTerm("Message-ID", messageId));
+                    if (messages.length > 0) {
+                        sourceFolder.copyMessages(messages, targetFolder);
+                        if (isMove) {
+                            messages[0].setFlag(Flags.Flag.DELETED, true);
+                        }
+                    }
+                    return null;
+                } finally {
+                    closeQuietly(targetFolder);
+                    closeQuietly(sourceFolder);
                 }
-            }
+            });
         } catch (Exception e) {
             log.error("Failed to move/copy", e);
-        } finally {
-            closeQuietly(targetFolder, null);
-            closeQuietly(sourceFolder, store);
         }
     }
 
     @Override
     public byte[] fetchAttachment(String labelId, String messageId, String fileName) {
-        Store store = null;
-        Folder folder = null;
         try {
-            store = connect();
-            folder = store.getFolder(labelId);
-            if (!folder.exists()) throw new RuntimeException("Folder not found");
-            folder.open(Folder.READ_ONLY);
+            return connectionPool.execute(store -> withAttachmentPart(store, labelId, messageId, fileName, part -> {
+                try (InputStream in = part.getInputStream()) {
+                    return in.readAllBytes();
+                }
+            }));
+        } catch (Exception e) {
+            log.error("Failed to fetch attachment", e);
+            throw new RuntimeException(e);
+        }
+    }
 
-            Message[] messages = folder.search(new HeaderTerm("Message-ID", messageId));
-            if (messages.length == 0) throw new RuntimeException("Message not found");
+    /**
+     * Attachment streamed to a temp file (never fully buffered in memory). The caller deletes {@code file}.
+     */
+    public record AttachmentFile(File file, String contentType, long size) {}
 
-            return findAttachmentInContent(messages[0], fileName);
+    /**
+     * @throws BadRequestException if the decoded attachment is larger than maxBytes
+     */
+    public AttachmentFile fetchAttachmentToFile(String labelId, String messageId, String fileName, long maxBytes) {
+        try {
+            return connectionPool.execute(store -> withAttachmentPart(store, labelId, messageId, fileName, part -> {
+                File tmp = File.createTempFile("inbox-attachment-", ".bin");
+                try (InputStream in = part.getInputStream(); OutputStream out = new FileOutputStream(tmp)) {
+                    long size = copyLimited(in, out, maxBytes);
+                    return new AttachmentFile(tmp, baseContentType(part), size);
+                } catch (Exception e) {
+                    if (!tmp.delete()) log.warn("Could not delete temporary attachment file: {}", tmp.getAbsolutePath());
+                    throw e;
+                }
+            }));
+        } catch (BadRequestException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to fetch attachment", e);
             throw new RuntimeException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PartReader<T> {
+        T read(Part part) throws Exception;
+    }
+
+    private <T> T withAttachmentPart(Store store, String labelId, String messageId, String fileName,
+                                     PartReader<T> reader) throws Exception {
+        Folder folder = store.getFolder(labelId);
+        if (!folder.exists()) throw new RuntimeException("Folder not found");
+        folder.open(Folder.READ_ONLY);
+        try {
+            Message[] messages = folder.search(new HeaderTerm("Message-ID", messageId));
+            if (messages.length == 0) throw new RuntimeException("Message not found");
+
+            Part part = findAttachmentPart(messages[0], fileName);
+            if (part == null) throw new RuntimeException("Attachment not found: " + fileName);
+            return reader.read(part);
         } finally {
-            closeQuietly(folder, store);
+            closeQuietly(folder);
         }
     }
 
-    private byte[] findAttachmentInContent(Part part, String fileName) throws Exception {
-        if (Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition()) ||
-                (part.getFileName() != null && part.getFileName().equalsIgnoreCase(fileName))) {
-            return readInputStream(part.getInputStream());
+    // Matches by file name only: any ATTACHMENT-disposition part used to match, returning the wrong file
+    private Part findAttachmentPart(Part part, String fileName) throws Exception {
+        if (part.getFileName() != null && part.getFileName().equalsIgnoreCase(fileName)) {
+            return part;
         }
         if (part.isMimeType("multipart/*")) {
             Multipart multi = (Multipart) part.getContent();
             for (int i = 0; i < multi.getCount(); i++) {
-                byte[] found = findAttachmentInContent(multi.getBodyPart(i), fileName);
+                Part found = findAttachmentPart(multi.getBodyPart(i), fileName);
                 if (found != null) return found;
             }
         }
         return null;
     }
 
-    private byte[] readInputStream(InputStream is) throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        int nRead;
-        byte[] data = new byte[1024];
-        while ((nRead = is.read(data, 0, data.length)) != -1) {
-            buffer.write(data, 0, nRead);
+    private long copyLimited(InputStream in, OutputStream out, long maxBytes) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            total += n;
+            if (total > maxBytes) {
+                throw new BadRequestException("Attachment exceeds the " + (maxBytes / (1024 * 1024)) + " MB limit");
+            }
+            out.write(buffer, 0, n);
         }
-        return buffer.toByteArray();
+        return total;
+    }
+
+    private String baseContentType(Part part) throws MessagingException {
+        String type = part.getContentType();
+        if (type == null) return "application/octet-stream";
+        int semi = type.indexOf(';');
+        return (semi >= 0 ? type.substring(0, semi) : type).trim().toLowerCase();
     }
 
-    private void closeQuietly(Folder folder, Store store) {
+    // Only the folder is closed; the Store goes back to the pool
+    private void closeQuietly(Folder folder) {
         try {
             if (folder != null && folder.isOpen()) folder.close(false);
-            if (store != null) store.close();
         } catch (Exception e) { /* ignore */ }
     }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.supplymind.platform_core.service.communication;
+
+import com.supplymind.platform_core.common.util.BoundedTtlCache;
+import com.supplymind.platform_core.common.util.StoragePaths;
+import com.supplymind.platform_core.service.common.StorageService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Copies inbox attachments from IMAP into object storage on first download; later downloads are served
+ * from B2 (presigned redirect or stream) without touching the mail server.
+ * Object key: inbox/attachments/{poId}/{sha256(messageId)}/{sha256(fileName)[0..16]}/{sanitized fileName}
+ * so the browser still sees the original file name.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InboxAttachmentCache {
+
+    private final ImapInboxAdapter inboxProvider;
+    private final StorageService storageService;
+
+    @Value("${inbox.attachments.max-bytes:26214400}")
+    private long maxBytes;
+
+    @Value("${inbox.attachments.index.max-entries:10000}")
+    private int indexMaxEntries;
+
+    @Value("${inbox.attachments.index.ttl-hours:24}")
+    private long indexTtlHours;
+
+    // Keys known to exist in B2. LRU-bounded; after the TTL an entry is re-verified with a HEAD request.
+    private BoundedTtlCache<String, Boolean> index;
+
+    @PostConstruct
+    void init() {
+        index = new BoundedTtlCache<>(indexMaxEntries, Duration.ofHours(indexTtlHours));
+    }
+
+    /**
+     * Makes sure the attachment is in object storage (copying it from IMAP if needed) and returns its key.
+     */
+    public String ensureStored(Long poId, String messageId, String fileName) {
+        String key = objectKey(poId, messageId, fileName);
+        if (index.get(key) != null) return key;
+
+        if (!storageService.exists(key)) {
+            ImapInboxAdapter.AttachmentFile attachment = inboxProvider.fetchAttachmentToFile(
+                    "SupplyMind/PO-" + poId, messageId, fileName, maxBytes);
+            try {
+                storageService.uploadFile(key, attachment.file(), attachment.contentType());
+                log.info("Cached attachment '{}' ({} bytes) for PO #{}", fileName, attachment.size(), poId);
+            } finally {
+                if (!attachment.file().delete()) {
+                    log.warn("Could not delete temporary attachment file: {}", attachment.file().getAbsolutePath());
+                }
+            }
+        }
+
+        index.put(key, Boolean.TRUE);
+        return key;
+    }
+
+    public BoundedTtlCache.Stats indexStats() {
+        return index.stats();
+    }
+
+    private String objectKey(Long poId, String messageId, String fileName) {
+        return StoragePaths.INBOX_ATTACHMENTS + poId + "/"
+                + sha256(messageId) + "/"
+                + sha256(fileName).substring(0, 16) + "/"
+                + sanitizeFilename(fileName);
+    }
+
+    private String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String sanitizeFilename(String name) {
+        String safe = name.replaceAll("[^a-zA-Z0-9._-]", "_");
+        return safe.length() <= 100 ? safe : safe.substring(safe.length() - 100);
+    }
+}
@@ -2,24 +2,46 @@ package com.supplymind.platform_core.service.communication;
 
 import com.supplymind.platform_core.dto.communication.InboxConversation;
 import com.supplymind.platform_core.dto.core.purchaseorder.InboxMessage;
+import com.supplymind.platform_core.exception.BadRequestException;
+import com.supplymind.platform_core.model.communication.MailSyncState;
+import com.supplymind.platform_core.model.communication.PoMessage;
 import com.supplymind.platform_core.model.core.PurchaseOrder;
+import com.supplymind.platform_core.repository.communication.MailSyncStateRepository;
+import com.supplymind.platform_core.repository.communication.PoMessageRepository;
 import com.supplymind.platform_core.repository.core.PurchaseOrderRepository;
+import com.supplymind.platform_core.service.common.StorageService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class InboxService {
 
+    private static final int MAX_CHAT_PAGE = 200;
+
     private final ImapInboxAdapter inboxProvider;
     private final PurchaseOrderRepository poRepo;
+    private final PoMessageRepository poMessageRepo;
+    private final MailSyncStateRepository syncStateRepo;
+    private final TransactionTemplate txTemplate;
+    private final InboxAttachmentCache attachmentCache;
+    private final StorageService storageService;
+
+    /**
+     * One page of a PO conversation, oldest first.
+     * @param nextCursor pass as {@code before} to load older messages; null when there are none
+     */
+    public record ChatPage(List<InboxMessage> messages, String nextCursor) {}
 
     /**
      * Ensures the folder exists (e.g., "SupplyMind/PO-102")
@@ -59,35 +81,160 @@ public class InboxService {
     }
 
     /**
-     * Fetches the actual chat messages (Emails) for a specific PO.
-     * FIX: Looks specifically in 'SupplyMind/PO-{id}' instead of 'INBOX'.
-     * This solves the issue where Localhost moves the email and Prod can't find it.
+     * Fetches the chat messages (Emails) for a specific PO from the local po_message store.
+     * Messages are persisted when the scanner routes them into 'SupplyMind/PO-{id}'; IMAP is only
+     * read once per PO to backfill mail routed before the store existed.
+     *
+     * @param before keyset cursor from a previous page (null = newest page)
      */
-    @Transactional(readOnly = true)
-    public List<InboxMessage> getPoChat(Long poId) {
-        PurchaseOrder po = poRepo.findById(poId).orElse(null);
-        if (po == null) return new ArrayList<>();
+    public ChatPage getPoChat(Long poId, String before, int limit) {
+        if (!poRepo.existsById(poId)) return new ChatPage(new ArrayList<>(), null);
+
+        backfillFromImap(poId);
+
+        int size = Math.min(Math.max(limit, 1), MAX_CHAT_PAGE);
+        PageRequest page = PageRequest.of(0, size);
+
+        return txTemplate.execute(status -> {
+            List<PoMessage> rows;
+            if (before == null || before.isBlank()) {
+                rows = poMessageRepo.findByPoIdOrderBySentAtDescIdDesc(poId, page);
+            } else {
+                long[] cursor = parseCursor(before);
+                rows = poMessageRepo.findPageBefore(poId, Instant.ofEpochMilli(cursor[0]), cursor[1], page);
+            }
+
+            String nextCursor = rows.size() == size ? toCursor(rows.get(rows.size() - 1)) : null;
+
+            // Query is newest-first for the keyset; the chat renders oldest-first
+            List<InboxMessage> messages = new ArrayList<>(rows.size());
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                messages.add(toDto(rows.get(i)));
+            }
+            return new ChatPage(messages, nextCursor);
+        });
+    }
 
+    /**
+     * Persists a routed message into the PO's local conversation. Idempotent per Message-ID.
+     */
+    public void storeMessage(Long poId, InboxMessage msg) {
+        PoMessage entity = toEntity(poId, msg);
+        if (!poMessageRepo.existsByMessageId(entity.getMessageId())) {
+            insertQuietly(entity);
+        }
+    }
+
+    private void insertQuietly(PoMessage entity) {
+        try {
+            poMessageRepo.save(entity);
+        } catch (DataIntegrityViolationException e) {
+            // Same Message-ID stored concurrently (scanner vs. backfill) - nothing to do
+            log.debug("Message {} already stored for PO #{}", entity.getMessageId(), entity.getPoId());
+        }
+    }
 
-        String targetLabel = "SupplyMind/PO-" + poId;
+    /**
+     * One-time import of the IMAP 'SupplyMind/PO-{id}' folder; a MailSyncState row marks it as done.
+     * If IMAP is unreachable nothing is marked and the next chat open retries.
+     */
+    private void backfillFromImap(Long poId) {
+        String label = "SupplyMind/PO-" + poId;
+        if (syncStateRepo.existsById(label)) return;
+
+        ImapInboxAdapter.SyncBatch batch = inboxProvider.fetchMessagesSince(label, null, 0L);
+        if (batch == null) return;
+
+        if (!batch.folderMissing()) {
+            List<InboxMessage> messages = batch.messages();
+            if (!inboxProvider.fetchBodies(label, batch.uidValidity(), messages)) return;
+
+            List<PoMessage> entities = messages.stream()
+                    .filter(m -> m.getBody() != null)
+                    .map(m -> toEntity(poId, m))
+                    .toList();
+            Set<String> known = new HashSet<>(poMessageRepo.findExistingMessageIds(
+                    entities.stream().map(PoMessage::getMessageId).toList()));
+
+            int stored = 0;
+            for (PoMessage entity : entities) {
+                if (known.add(entity.getMessageId())) {
+                    insertQuietly(entity);
+                    stored++;
+                }
+            }
+            log.info("Backfilled {} message(s) for PO #{} from IMAP", stored, poId);
+        }
 
+        syncStateRepo.save(MailSyncState.builder()
+                .folderName(label)
+                .uidValidity(batch.uidValidity())
+                .lastUid(batch.highestUid())
+                .build());
+    }
 
-        String labelId = inboxProvider.getOrCreateLabel(targetLabel);
+    private PoMessage toEntity(Long poId, InboxMessage msg) {
+        String messageId = msg.getMessageId();
+        if (messageId == null || messageId.isBlank()) {
+            // No Message-ID header: derive a stable key so re-scans still dedupe
+            messageId = "<no-id-" + poId + "-" + msg.getTimestamp() + "-"
+                    + Objects.hash(msg.getFrom(), msg.getSubject()) + ">";
+        }
+        return PoMessage.builder()
+                .poId(poId)
+                .messageId(truncate(messageId, 500))
+                .subject(truncate(msg.getSubject(), 998))
+                .fromAddress(truncate(msg.getFrom(), 320))
+                .sentAt(Instant.ofEpochMilli(msg.getTimestamp()))
+                .body(msg.getBody())
+                .snippet(truncate(msg.getSnippet(), 200))
+                .attachments(msg.getAttachments() != null ? new ArrayList<>(msg.getAttachments()) : new ArrayList<>())
+                .build();
+    }
 
+    private InboxMessage toDto(PoMessage m) {
+        return InboxMessage.builder()
+                .messageId(m.getMessageId())
+                .subject(m.getSubject())
+                .from(m.getFromAddress())
+                .body(m.getBody())
+                .snippet(m.getSnippet())
+                .timestamp(m.getSentAt().toEpochMilli())
+                .attachments(new ArrayList<>(m.getAttachments()))
+                .build();
+    }
 
-        List<InboxMessage> messages = inboxProvider.fetchMessages(labelId);
+    private String toCursor(PoMessage m) {
+        return m.getSentAt().toEpochMilli() + "_" + m.getId();
+    }
 
+    private long[] parseCursor(String cursor) {
+        int sep = cursor.indexOf('_');
+        try {
+            if (sep <= 0) throw new NumberFormatException();
+            return new long[]{Long.parseLong(cursor.substring(0, sep)), Long.parseLong(cursor.substring(sep + 1))};
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
 
-        messages.sort(Comparator.comparingLong(InboxMessage::getTimestamp));
+    private String truncate(String value, int max) {
+        if (value == null) return null;
+        return value.length() <= max ? value : value.substring(0, max);
+    }
 
-        return messages;
+    /**
+     * Opens an attachment from the specific PO folder, via the object-storage copy.
+     * Only the first download per attachment reads IMAP.
+     */
+    public StorageService.StoredObject openAttachment(Long poId, String messageId, String fileName) {
+        return storageService.openStream(attachmentCache.ensureStored(poId, messageId, fileName));
     }
 
     /**
-     * Fetches attachment from the specific PO folder.
+     * Presigned download URL for an attachment (copied into object storage on first access).
      */
-    public byte[] getAttachment(Long poId, String messageId, String fileName) {
-        String labelId = "SupplyMind/PO-" + poId;
-        return inboxProvider.fetchAttachment(labelId, messageId, fileName);
+    public String getAttachmentUrl(Long poId, String messageId, String fileName) {
+        return storageService.presignGetUrl(attachmentCache.ensureStored(poId, messageId, fileName));
     }
 }
\ No newline at end of file
@@ -4,8 +4,13 @@ import com.supplymind.platform_core.dto.core.inventory.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 public interface InventoryService {
 
+    /** Most transactions accepted in one bulk submission. */
+    int MAX_BULK_LINES = 10_000;
+
     Page<InventorySlimResponse> listByWarehouse(Long warehouseId, String sku, Pageable pageable);
 
     void executeImmediateTransfer(InventoryTransferRequest req);
@@ -14,6 +19,8 @@ public interface InventoryService {
 
     void recordTransaction(InventoryTransactionRequest req);
 
+    InventoryBulkTransactionResponse recordTransactions(List<InventoryTransactionRequest> reqs);
+
     Page<InventoryTransactionResponse> listTransactions(Long warehouseId, Long productId, Pageable pageable);
 
     Page<InventoryResponse> findLowStock(Long warehouseId, Long supplierId, Pageable pageable);
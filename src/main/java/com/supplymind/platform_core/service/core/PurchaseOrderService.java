@@ -23,6 +23,8 @@ public interface PurchaseOrderService {
 
     void removeItem(Long poId, Long itemId);
 
+    PurchaseOrderResponse batchUpsertItems(Long poId, PurchaseOrderItemBatchRequest req);
+
     PurchaseOrderResponse submit(Long poId);
 
     PurchaseOrderResponse approve(Long poId);
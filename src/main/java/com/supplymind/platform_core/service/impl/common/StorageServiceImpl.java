@@ -1,15 +1,22 @@
 package com.supplymind.platform_core.service.impl.common;
 
+import com.supplymind.platform_core.common.util.BoundedTtlCache;
 import com.supplymind.platform_core.common.util.StoragePaths;
 import com.supplymind.platform_core.service.common.StorageService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
@@ -20,6 +27,7 @@ import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class StorageServiceImpl implements StorageService {
 
     private final S3Client s3Client;
@@ -34,6 +42,26 @@ public class StorageServiceImpl implements StorageService {
     @Value("${b2.presign.get.minutes:30}")
     private long presignGetMinutes;
 
+    // Cached GET URLs are only handed out while they still have at least this much validity left
+    @Value("${b2.presign.get.cache.safety-minutes:5}")
+    private long presignCacheSafetyMinutes;
+
+    @Value("${b2.presign.get.cache.max-entries:5000}")
+    private int presignCacheMaxEntries;
+
+    // objectKey -> presigned GET URL; null when the signature window is too short to cache safely
+    private BoundedTtlCache<String, String> presignGetCache;
+
+    @PostConstruct
+    void initPresignCache() {
+        long ttlMinutes = presignGetMinutes - presignCacheSafetyMinutes;
+        if (ttlMinutes > 0) {
+            presignGetCache = new BoundedTtlCache<>(presignCacheMaxEntries, Duration.ofMinutes(ttlMinutes));
+        } else {
+            log.warn("Presigned GET cache disabled: b2.presign.get.minutes={} leaves no safety margin", presignGetMinutes);
+        }
+    }
+
     @Override
     public String buildObjectKey(String category, Long ownerId, String fileName) {
         String safeName = sanitizeFilename(fileName);
@@ -68,6 +96,20 @@ public class StorageServiceImpl implements StorageService {
 
     @Override
     public String presignGetUrl(String objectKey) {
+        if (presignGetCache == null) {
+            return signGetUrl(objectKey);
+        }
+        return presignGetCache.getOrCompute(objectKey, this::signGetUrl);
+    }
+
+    @Override
+    public BoundedTtlCache.Stats presignCacheStats() {
+        return presignGetCache != null
+                ? presignGetCache.stats()
+                : new BoundedTtlCache.Stats(0, 0, 0, 0, 0);
+    }
+
+    private String signGetUrl(String objectKey) {
         GetObjectRequest getReq = GetObjectRequest.builder()
                 .bucket(bucket)
                 .key(objectKey)
@@ -90,6 +132,7 @@ public class StorageServiceImpl implements StorageService {
                 .build();
 
         s3Client.putObject(putReq, file.toPath());
+        evictPresigned(objectKey);
 
         return presignGetUrl(objectKey);
     }
@@ -101,6 +144,41 @@ public class StorageServiceImpl implements StorageService {
                 .key(objectKey)
                 .build();
         s3Client.deleteObject(deleteReq);
+        evictPresigned(objectKey);
+    }
+
+    @Override
+    public boolean exists(String objectKey) {
+        try {
+            s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(objectKey)
+                    .build());
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return false;
+            throw e;
+        }
+    }
+
+    @Override
+    public StoredObject openStream(String objectKey) {
+        GetObjectRequest getReq = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(objectKey)
+                .build();
+
+        ResponseInputStream<GetObjectResponse> in = s3Client.getObject(getReq);
+        GetObjectResponse meta = in.response();
+        return new StoredObject(in,
+                meta.contentLength() != null ? meta.contentLength() : -1L,
+                meta.contentType());
+    }
+
+    private void evictPresigned(String objectKey) {
+        if (presignGetCache != null) {
+            presignGetCache.invalidate(objectKey);
+        }
     }
 
     private String sanitizeFilename(String name) {
@@ -7,8 +7,12 @@ import com.supplymind.platform_core.exception.NotFoundException;
 import com.supplymind.platform_core.model.core.*;
 import com.supplymind.platform_core.repository.core.*;
 import com.supplymind.platform_core.service.core.InventoryService;
+import com.supplymind.platform_core.service.intel.DemandForecastCache;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -18,8 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +34,8 @@ public class InventoryServiceImpl implements InventoryService {
     private final WarehouseRepository warehouseRepo;
     private final ProductRepository productRepo;
     private final SupplierProductRepository supplierProductRepo;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional(readOnly = true)
@@ -108,34 +113,20 @@ public class InventoryServiceImpl implements InventoryService {
         Product product = productRepo.findById(req.productId())
                 .orElseThrow(() -> new NotFoundException("Product not found: " + req.productId()));
 
-        Inventory inv = inventoryRepo
-                .findByWarehouse_WarehouseIdAndProduct_ProductId(req.warehouseId(), req.productId())
-                .orElseGet(() -> Inventory.builder()
-                        .warehouse(warehouse)
-                        .product(product)
-                        .qtyOnHand(0)
-                        .build()
-                );
-
-        int current = inv.getQtyOnHand() == null ? 0 : inv.getQtyOnHand();
         int qty = req.quantity();
 
-        int updatedQty = switch (req.type()) {
-            case IN, RETURN -> current + qty;
-            case OUT -> current - qty;
-            case ADJUST -> qty;
-        };
+        // Single conditional UPDATE / upsert: no read-modify-write, no lost updates
+        boolean applied = inventoryRepo.applyStockMovement(
+                warehouse.getWarehouseId(), product.getProductId(), req.type(), qty);
 
-        if (updatedQty < 0) {
+        if (!applied) {
+            int current = inventoryRepo.findQtyOnHand(req.warehouseId(), req.productId()).orElse(0);
             throw new BadRequestException(
                     "Inventory cannot go below 0. Current=" + current +
                             ", requested=" + req.type() + " " + qty
             );
         }
 
-        inv.setQtyOnHand(updatedQty);
-        inventoryRepo.save(inv);
-
         InventoryTransaction tx = InventoryTransaction.builder()
                 .warehouse(warehouse)
                 .product(product)
@@ -144,8 +135,160 @@ public class InventoryServiceImpl implements InventoryService {
                 .build();
 
         txRepo.save(tx);
+
+        if (req.type() == InventoryTransactionType.OUT) {
+            eventPublisher.publishEvent(new DemandForecastCache.SalesRecorded(Set.of(product.getProductId())));
+        }
+    }
+
+    /**
+     * Bulk ingestion for scanner uploads.
+     * Lines are grouped by (warehouse, product); each group is replayed in submission order against
+     * the current on-hand value and its net result is written with a single atomic statement.
+     * The audit rows are then inserted in JDBC batches. Invalid lines are reported, not fatal.
+     */
+    @Override
+    @Transactional
+    public InventoryBulkTransactionResponse recordTransactions(List<InventoryTransactionRequest> reqs) {
+        if (reqs.size() > MAX_BULK_LINES) {
+            throw new BadRequestException("Too many lines in one batch: " + reqs.size() + " (max " + MAX_BULK_LINES + ")");
+        }
+
+        // Working copy: lines that fail validation are nulled out so later passes skip them
+        List<InventoryTransactionRequest> lines = new ArrayList<>(reqs);
+        List<InventoryBulkTransactionResponse.LineError> errors = new ArrayList<>();
+
+        // 1. Bean validation per line + resolve every referenced warehouse / product in one query each
+        Set<Long> warehouseIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            InventoryTransactionRequest req = lines.get(i);
+            if (req == null) {
+                errors.add(new InventoryBulkTransactionResponse.LineError(i, "Malformed line"));
+                continue;
+            }
+            Set<ConstraintViolation<InventoryTransactionRequest>> violations = validator.validate(req);
+            if (!violations.isEmpty()) {
+                String msg = violations.stream()
+                        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                errors.add(new InventoryBulkTransactionResponse.LineError(i, msg));
+                lines.set(i, null);
+                continue;
+            }
+            warehouseIds.add(req.warehouseId());
+            productIds.add(req.productId());
+        }
+
+        Set<Long> knownWarehouses = warehouseRepo.findAllById(warehouseIds).stream()
+                .map(Warehouse::getWarehouseId)
+                .collect(Collectors.toSet());
+        Set<Long> knownProducts = productRepo.findAllById(productIds).stream()
+                .map(Product::getProductId)
+                .collect(Collectors.toSet());
+
+        // 2. Group by stock row; sorted keys give every batch the same lock order
+        Map<StockKey, List<Integer>> groups = new TreeMap<>(
+                Comparator.comparing(StockKey::warehouseId).thenComparing(StockKey::productId));
+
+        for (int i = 0; i < lines.size(); i++) {
+            InventoryTransactionRequest req = lines.get(i);
+            if (req == null) continue;
+
+            if (!knownWarehouses.contains(req.warehouseId())) {
+                errors.add(new InventoryBulkTransactionResponse.LineError(i, "Warehouse not found: " + req.warehouseId()));
+                continue;
+            }
+            if (!knownProducts.contains(req.productId())) {
+                errors.add(new InventoryBulkTransactionResponse.LineError(i, "Product not found: " + req.productId()));
+                continue;
+            }
+            groups.computeIfAbsent(new StockKey(req.warehouseId(), req.productId()), k -> new ArrayList<>()).add(i);
+        }
+
+        // 3. One read + one write per stock row
+        List<InventoryTransaction> txs = new ArrayList<>();
+        Set<Long> soldProducts = new HashSet<>();
+
+        for (Map.Entry<StockKey, List<Integer>> group : groups.entrySet()) {
+            StockKey key = group.getKey();
+            int current = inventoryRepo.findQtyOnHand(key.warehouseId(), key.productId()).orElse(0);
+
+            int qty = current;
+            boolean absolute = false;
+            List<Integer> accepted = new ArrayList<>();
+
+            for (int i : group.getValue()) {
+                InventoryTransactionRequest req = lines.get(i);
+                int next = switch (req.type()) {
+                    case IN, RETURN -> qty + req.quantity();
+                    case OUT -> qty - req.quantity();
+                    case ADJUST -> req.quantity();
+                };
+
+                if (next < 0) {
+                    errors.add(new InventoryBulkTransactionResponse.LineError(i,
+                            "Inventory cannot go below 0. Current=" + qty + ", requested=" + req.type() + " " + req.quantity()));
+                    continue;
+                }
+
+                absolute |= req.type() == InventoryTransactionType.ADJUST;
+                qty = next;
+                accepted.add(i);
+            }
+
+            if (accepted.isEmpty()) continue;
+
+            int net = qty - current;
+            boolean applied;
+            if (absolute) {
+                inventoryRepo.upsertSetStock(key.warehouseId(), key.productId(), qty);
+                applied = true;
+            } else if (net > 0) {
+                applied = inventoryRepo.upsertAddStock(key.warehouseId(), key.productId(), net) > 0;
+            } else if (net < 0) {
+                applied = inventoryRepo.applyStockDelta(key.warehouseId(), key.productId(), net) > 0;
+            } else {
+                applied = true;
+            }
+
+            if (!applied) {
+                // Stock moved underneath us between the read and the guarded write
+                for (int i : accepted) {
+                    errors.add(new InventoryBulkTransactionResponse.LineError(i,
+                            "Insufficient stock for net change " + net + " on warehouse " + key.warehouseId()
+                                    + ", product " + key.productId()));
+                }
+                continue;
+            }
+
+            for (int i : accepted) {
+                InventoryTransactionRequest req = lines.get(i);
+                if (req.type() == InventoryTransactionType.OUT) soldProducts.add(req.productId());
+                txs.add(InventoryTransaction.builder()
+                        .warehouse(warehouseRepo.getReferenceById(req.warehouseId()))
+                        .product(productRepo.getReferenceById(req.productId()))
+                        .type(req.type())
+                        .quantity(req.quantity())
+                        .build());
+            }
+        }
+
+        // 4. Sequence ids -> hibernate.jdbc.batch_size applies to these inserts
+        txRepo.saveAll(txs);
+        txRepo.flush();
+
+        if (!soldProducts.isEmpty()) {
+            eventPublisher.publishEvent(new DemandForecastCache.SalesRecorded(soldProducts));
+        }
+
+        errors.sort(Comparator.comparingInt(InventoryBulkTransactionResponse.LineError::line));
+        return new InventoryBulkTransactionResponse(lines.size(), txs.size(), errors.size(), errors);
     }
 
+    private record StockKey(Long warehouseId, Long productId) {}
+
     private InventoryResponse toResponse(Inventory inv) {
         Product p = inv.getProduct();
 
@@ -175,37 +318,23 @@ public class InventoryServiceImpl implements InventoryService {
     @Override
     @Transactional
     public void executeImmediateTransfer(InventoryTransferRequest req) {
-        LocalDateTime now = LocalDateTime.now();
-
-        Inventory sourceInv = inventoryRepo.findByWarehouse_WarehouseIdAndProduct_ProductId(
-                        req.fromWarehouseId(), req.productId())
-                .orElseThrow(() -> new EntityNotFoundException("Product not found in source warehouse"));
-
-        if (sourceInv.getQtyOnHand() < req.quantity()) {
+        int decremented = inventoryRepo.applyStockDelta(req.fromWarehouseId(), req.productId(), -req.quantity());
+        if (decremented == 0) {
+            Integer available = inventoryRepo.findQtyOnHand(req.fromWarehouseId(), req.productId())
+                    .orElseThrow(() -> new EntityNotFoundException("Product not found in source warehouse"));
             throw new BadRequestException("Insufficient stock in source warehouse. Available: "
-                    + sourceInv.getQtyOnHand() + ", Requested: " + req.quantity());
+                    + available + ", Requested: " + req.quantity());
         }
 
-        Inventory destInv = inventoryRepo.findByWarehouse_WarehouseIdAndProduct_ProductId(
-                        req.toWarehouseId(), req.productId())
-                .orElseGet(() -> {
-                    Inventory newInv = new Inventory();
-                    newInv.setWarehouse(warehouseRepo.getReferenceById(req.toWarehouseId()));
-                    newInv.setProduct(productRepo.getReferenceById(req.productId()));
-                    newInv.setQtyOnHand(0);
-                    return newInv;
-                });
-
-        sourceInv.setQtyOnHand(sourceInv.getQtyOnHand() - req.quantity());
-        destInv.setQtyOnHand(destInv.getQtyOnHand() + req.quantity());
-
-        inventoryRepo.save(sourceInv);
-        inventoryRepo.save(destInv);
+        inventoryRepo.upsertAddStock(req.toWarehouseId(), req.productId(), req.quantity());
 
         saveTransaction(req.fromWarehouseId(), req.productId(), req.quantity(), InventoryTransactionType.OUT);
         saveTransaction(req.toWarehouseId(), req.productId(), req.quantity(), InventoryTransactionType.IN);
 
         txRepo.flush();
+
+        // The OUT leg counts in the demand history like any other OUT
+        eventPublisher.publishEvent(new DemandForecastCache.SalesRecorded(Set.of(req.productId())));
     }
 
     private void saveTransaction(Long whId, Long prodId, Integer qty, InventoryTransactionType type) {
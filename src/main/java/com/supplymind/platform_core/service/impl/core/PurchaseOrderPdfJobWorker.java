@@ -0,0 +1,208 @@
+package com.supplymind.platform_core.service.impl.core;
+
+import com.supplymind.platform_core.common.enums.PdfJobStatus;
+import com.supplymind.platform_core.model.auth.User;
+import com.supplymind.platform_core.model.core.PurchaseOrder;
+import com.supplymind.platform_core.model.core.PurchaseOrderPdfJob;
+import com.supplymind.platform_core.repository.auth.UserRepository;
+import com.supplymind.platform_core.repository.core.PurchaseOrderPdfJobRepository;
+import com.supplymind.platform_core.repository.core.PurchaseOrderRepository;
+import com.supplymind.platform_core.service.common.PdfGenerationService;
+import com.supplymind.platform_core.service.common.StorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders and uploads approved PO PDFs from the po_pdf_jobs outbox.
+ * Approval only commits the status change and a PENDING job; this worker does the slow
+ * OpenPDF / signature download / B2 upload work on a bounded pool without holding a DB connection.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PurchaseOrderPdfJobWorker {
+
+    /** Published by the PO service when a job row is written; handled after the commit. */
+    public record JobEnqueued(Long poId) {}
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(15);
+    private static final Duration STUCK_AFTER = Duration.ofMinutes(10);
+
+    private final PurchaseOrderPdfJobRepository jobRepo;
+    private final PurchaseOrderRepository poRepo;
+    private final UserRepository userRepo;
+    private final PdfGenerationService pdfGenerationService;
+    private final StorageService storageService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate txTemplate;
+
+    @Value("${po.pdf.workers:2}")
+    private int workers;
+
+    @Value("${po.pdf.queue-capacity:50}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    // Runs the after-commit dispatch off the committing thread, where its transaction resources are still bound
+    private ExecutorService dispatcher;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "po-pdf-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "po-pdf-dispatch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdown();
+        executor.shutdown();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onJobEnqueued(JobEnqueued event) {
+        dispatcher.execute(() -> {
+            try {
+                dispatch();
+            } catch (Exception e) {
+                // The poller picks the job up on its next pass
+                log.error("Immediate dispatch for PO #{} failed", event.poId(), e);
+            }
+        });
+    }
+
+    // Fallback poller: picks up retries, jobs enqueued on another instance, and anything missed on restart
+    @Scheduled(initialDelayString = "${po.pdf.poll-initial-delay-ms:10000}", fixedDelayString = "${po.pdf.poll-delay-ms:5000}")
+    public void poll() {
+        int requeued = jobRepo.requeueStuck(PdfJobStatus.PENDING, PdfJobStatus.RUNNING, Instant.now().minus(STUCK_AFTER));
+        if (requeued > 0) {
+            log.warn("Requeued {} stuck PO PDF job(s)", requeued);
+        }
+        dispatch();
+    }
+
+    private synchronized void dispatch() {
+        int free = executor.getQueue().remainingCapacity();
+        if (free <= 0) return; // backpressure: leave the rest PENDING in the table
+
+        Instant now = Instant.now();
+        List<PurchaseOrderPdfJob> due = jobRepo.findDue(PdfJobStatus.PENDING, now, PageRequest.of(0, free));
+
+        for (PurchaseOrderPdfJob job : due) {
+            if (jobRepo.claim(job.getJobId(), PdfJobStatus.PENDING, PdfJobStatus.RUNNING, now) == 1) {
+                Long jobId = job.getJobId();
+                executor.execute(() -> process(jobId));
+            }
+        }
+    }
+
+    private record RenderInput(PurchaseOrderPdfJob job, PurchaseOrder po, User approver) {}
+
+    private void process(Long jobId) {
+        try {
+            // 1. Short read-only transaction to load everything the PDF needs
+            RenderInput in = txTemplate.execute(status -> {
+                PurchaseOrderPdfJob job = jobRepo.findById(jobId).orElseThrow();
+                PurchaseOrder po = poRepo.findByIdWithItems(job.getPoId())
+                        .orElseThrow(() -> new IllegalStateException("PO not found: " + job.getPoId()));
+                User approver = job.getApproverId() != null ? userRepo.findById(job.getApproverId()).orElse(null) : null;
+                return new RenderInput(job, po, approver);
+            });
+
+            // 2. Slow I/O with no connection held
+            PurchaseOrder po = in.po();
+            File pdfFile = pdfGenerationService.generatePurchaseOrderPdf(po, in.approver(), true);
+            String objectKey = storageService.buildObjectKey("invoice", po.getSupplier().getSupplierId(), pdfFile.getName());
+            try {
+                storageService.uploadFile(objectKey, pdfFile, MediaType.APPLICATION_PDF_VALUE);
+            } finally {
+                if (pdfFile.exists() && !pdfFile.delete()) {
+                    log.warn("Could not delete temporary PDF file: {}", pdfFile.getAbsolutePath());
+                }
+            }
+
+            // 3. Patch the PO and close the job
+            txTemplate.executeWithoutResult(status -> {
+                poRepo.updatePdfUrl(po.getPoId(), objectKey);
+                PurchaseOrderPdfJob job = jobRepo.findById(jobId).orElseThrow();
+                job.setStatus(PdfJobStatus.DONE);
+                job.setAttempts(job.getAttempts() + 1);
+                job.setLastError(null);
+                jobRepo.save(job);
+            });
+
+            messagingTemplate.convertAndSend("/topic/po/" + po.getPoId(), Map.of(
+                    "type", "PDF_READY",
+                    "poId", po.getPoId(),
+                    "pdfUrl", storageService.presignGetUrl(objectKey)
+            ));
+            log.info("PDF ready for PO #{}", po.getPoId());
+
+        } catch (Exception e) {
+            log.error("PDF job {} failed", jobId, e);
+            markFailed(jobId, e);
+        }
+    }
+
+    private void markFailed(Long jobId, Exception e) {
+        try {
+            txTemplate.executeWithoutResult(status -> jobRepo.findById(jobId).ifPresent(job -> {
+                int attempts = job.getAttempts() + 1;
+                job.setAttempts(attempts);
+                job.setLastError(truncate(e.getMessage()));
+
+                if (attempts >= MAX_ATTEMPTS) {
+                    job.setStatus(PdfJobStatus.FAILED);
+                } else {
+                    // exponential backoff: 15s, 30s, 60s, 120s
+                    job.setStatus(PdfJobStatus.PENDING);
+                    job.setNextAttemptAt(Instant.now().plus(BASE_BACKOFF.multipliedBy(1L << (attempts - 1))));
+                }
+                jobRepo.save(job);
+            }));
+        } catch (Exception inner) {
+            log.error("Could not record failure for PDF job {}", jobId, inner);
+        }
+    }
+
+    private String truncate(String msg) {
+        if (msg == null) return null;
+        return msg.length() <= 1000 ? msg : msg.substring(0, 1000);
+    }
+}
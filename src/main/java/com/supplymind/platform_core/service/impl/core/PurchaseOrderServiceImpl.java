@@ -9,20 +9,21 @@ import com.supplymind.platform_core.model.auth.User;
 import com.supplymind.platform_core.model.core.*;
 import com.supplymind.platform_core.repository.core.*;
 import com.supplymind.platform_core.service.auth.AuthService;
-import com.supplymind.platform_core.service.common.PdfGenerationService;
 import com.supplymind.platform_core.service.common.StorageService;
 import com.supplymind.platform_core.service.core.PurchaseOrderService;
+import com.supplymind.platform_core.service.intel.EmailDraftService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.File;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -50,7 +51,8 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
 
     private final AuthService authService;
 
-    private final PdfGenerationService pdfGenerationService;
+    private final PurchaseOrderPdfJobRepository pdfJobRepo;
+    private final ApplicationEventPublisher eventPublisher;
     private final StorageService storageService;
 
     /**
@@ -108,8 +110,15 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             page = poRepo.findAllWithDetails(pageable);
         }
 
+        // One IN query for every item on the page, grouped in memory (no per-PO lookups)
+        List<Long> poIds = page.getContent().stream().map(PurchaseOrder::getPoId).toList();
+        Map<Long, List<PurchaseOrderItem>> itemsByPo = poIds.isEmpty()
+                ? Map.of()
+                : itemRepo.findAllByPoIdsWithProduct(poIds).stream()
+                        .collect(Collectors.groupingBy(i -> i.getPo().getPoId()));
+
         List<PurchaseOrderResponse> dtoList = page.getContent().stream()
-                .map(po -> toResponse(po, itemRepo.findAllByPo_PoId(po.getPoId())))
+                .map(po -> toResponse(po, itemsByPo.getOrDefault(po.getPoId(), List.of())))
                 .collect(Collectors.toList());
 
         return new PageImpl<>(dtoList, pageable, page.getTotalElements());
@@ -153,10 +162,10 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             po.setWarehouse(w);
         }
 
-        List<PurchaseOrderItem> items = itemRepo.findAllByPo_PoId(poId);
-        recalcTotal(po, items);
+        // Header fields don't affect the total, so no recalculation here
+        poRepo.save(po);
 
-        return toResponse(po, items);
+        return toResponse(po, itemRepo.findAllByPo_PoId(poId));
     }
 
     @Override
@@ -177,9 +186,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
                 .build();
 
         PurchaseOrderItem saved = itemRepo.save(item);
-
-        List<PurchaseOrderItem> items = itemRepo.findAllByPo_PoId(poId);
-        recalcTotal(po, items);
+        applyTotalDelta(po, lineTotal(saved));
 
         return toItemResponse(saved);
     }
@@ -191,14 +198,13 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         ensureDraft(po);
 
         PurchaseOrderItem item = requireItem(poId, itemId);
+        BigDecimal before = lineTotal(item);
 
         if (req.orderedQty() != null) item.setOrderedQty(req.orderedQty());
         if (req.unitCost() != null) item.setUnitCost(req.unitCost());
 
         PurchaseOrderItem saved = itemRepo.save(item);
-
-        List<PurchaseOrderItem> items = itemRepo.findAllByPo_PoId(poId);
-        recalcTotal(po, items);
+        applyTotalDelta(po, lineTotal(saved).subtract(before));
 
         return toItemResponse(saved);
     }
@@ -210,10 +216,70 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         ensureDraft(po);
 
         PurchaseOrderItem item = requireItem(poId, itemId);
+        BigDecimal removed = lineTotal(item);
         itemRepo.delete(item);
 
-        List<PurchaseOrderItem> items = itemRepo.findAllByPo_PoId(poId);
+        applyTotalDelta(po, removed.negate());
+    }
+
+    /**
+     * Adds and/or updates many lines of a draft PO in one transaction.
+     * Items are loaded once and the total is recomputed once at the end.
+     */
+    @Override
+    @Transactional
+    public PurchaseOrderResponse batchUpsertItems(Long poId, PurchaseOrderItemBatchRequest req) {
+        PurchaseOrder po = requirePo(poId);
+        ensureDraft(po);
+
+        List<PurchaseOrderItem> items = new ArrayList<>(itemRepo.findAllByPo_PoId(poId));
+        Map<Long, PurchaseOrderItem> itemsById = items.stream()
+                .collect(Collectors.toMap(PurchaseOrderItem::getPoItemId, i -> i));
+
+        List<Long> newProductIds = req.lines().stream()
+                .filter(l -> l.poItemId() == null)
+                .map(PurchaseOrderItemBatchRequest.Line::productId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, Product> productsById = productRepo.findAllById(newProductIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, p -> p));
+
+        List<PurchaseOrderItem> toSave = new ArrayList<>();
+
+        for (PurchaseOrderItemBatchRequest.Line line : req.lines()) {
+            if (line.poItemId() != null) {
+                PurchaseOrderItem item = itemsById.get(line.poItemId());
+                if (item == null) {
+                    throw new BadRequestException("Item " + line.poItemId() + " does not belong to PO " + poId);
+                }
+                if (line.orderedQty() != null) item.setOrderedQty(line.orderedQty());
+                if (line.unitCost() != null) item.setUnitCost(line.unitCost());
+                toSave.add(item);
+            } else {
+                if (line.productId() == null || line.orderedQty() == null) {
+                    throw new BadRequestException("New lines require productId and orderedQty.");
+                }
+                Product product = productsById.get(line.productId());
+                if (product == null) {
+                    throw new NotFoundException("Product not found: " + line.productId());
+                }
+                PurchaseOrderItem item = PurchaseOrderItem.builder()
+                        .po(po)
+                        .product(product)
+                        .orderedQty(line.orderedQty())
+                        .receivedQty(0)
+                        .unitCost(line.unitCost())
+                        .build();
+                items.add(item);
+                toSave.add(item);
+            }
+        }
+
+        itemRepo.saveAll(toSave);
         recalcTotal(po, items);
+
+        return toResponse(po, items);
     }
 
     @Override
@@ -244,11 +310,13 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
                 .orElseThrow(() -> new BadRequestException("Could not identify current user to set as approver."));
         po.setApprover(approver);
 
-        generateAndStorePdf(po, approver);
-
         po.setStatus(PurchaseOrderStatus.APPROVED);
         poRepo.save(po);
 
+        // PDF render + upload and the supplier email draft happen after commit, off the request thread
+        enqueuePdfJob(po, approver);
+        eventPublisher.publishEvent(new EmailDraftService.DraftRequested(po.getPoId()));
+
         List<PurchaseOrderItem> items = itemRepo.findAllByPo_PoId(poId);
         return toResponse(po, items);
     }
@@ -329,20 +397,8 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
                     Long warehouseId = po.getWarehouse().getWarehouseId();
                     Long productId = item.getProduct().getProductId();
 
-                    // FIX 4: Explicitly manage the Inventory state
-                    Inventory inv = inventoryRepo.findByWarehouse_WarehouseIdAndProduct_ProductId(warehouseId, productId)
-                            .orElseGet(() -> {
-                                Inventory newInv = Inventory.builder()
-                                        .warehouse(po.getWarehouse())
-                                        .product(item.getProduct())
-                                        .qtyOnHand(0)
-                                        .build();
-                                return inventoryRepo.save(newInv); // Save immediately if new
-                            });
-
-                    int currentQtyOnHand = inv.getQtyOnHand() == null ? 0 : inv.getQtyOnHand();
-                    inv.setQtyOnHand(currentQtyOnHand + qtyToAddToInventory);
-                    inventoryRepo.save(inv);
+                    // Atomic increment (creates the inventory row on first receipt)
+                    inventoryRepo.upsertAddStock(warehouseId, productId, qtyToAddToInventory);
 
                     InventoryTransaction tx = InventoryTransaction.builder()
                             .warehouse(po.getWarehouse())
@@ -396,7 +452,8 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             User approver = authService.getCurrentUser()
                     .orElseThrow(() -> new BadRequestException("Could not identify current user to set as approver."));
             po.setApprover(approver);
-            generateAndStorePdf(po, approver);
+            enqueuePdfJob(po, approver);
+            eventPublisher.publishEvent(new EmailDraftService.DraftRequested(po.getPoId()));
         }
 
         po.setStatus(next);
@@ -451,12 +508,27 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         }
     }
 
+    private BigDecimal lineTotal(PurchaseOrderItem i) {
+        if (i.getUnitCost() == null || i.getOrderedQty() == null) return BigDecimal.ZERO;
+        return i.getUnitCost().multiply(BigDecimal.valueOf(i.getOrderedQty()));
+    }
+
+    /**
+     * Applies a single item mutation to the stored total instead of re-summing every line.
+     * saveAndFlush runs the @Version check now, so a concurrent edit of the same PO
+     * fails with a conflict rather than silently drifting the total.
+     */
+    private void applyTotalDelta(PurchaseOrder po, BigDecimal delta) {
+        BigDecimal current = po.getTotalAmount() == null ? BigDecimal.ZERO : po.getTotalAmount();
+        po.setTotalAmount(current.add(delta));
+        poRepo.saveAndFlush(po);
+    }
+
     private void recalcTotal(PurchaseOrder po, List<PurchaseOrderItem> items) {
         BigDecimal total = BigDecimal.ZERO;
 
         for (PurchaseOrderItem i : items) {
-            if (i.getUnitCost() == null || i.getOrderedQty() == null) continue;
-            total = total.add(i.getUnitCost().multiply(BigDecimal.valueOf(i.getOrderedQty())));
+            total = total.add(lineTotal(i));
         }
 
         po.setTotalAmount(total);
@@ -478,7 +550,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         if (pdfUrl != null && !pdfUrl.startsWith("http")) {
             try {
                 pdfUrl = storageService.presignGetUrl(pdfUrl);
-                log.info("Generated presigned URL for key {}: {}", po.getPdfUrl(), pdfUrl);
+                log.debug("Resolved presigned URL for key {}", po.getPdfUrl());
             } catch (Exception e) {
                 log.error("Failed to generate presigned URL for key: {}", po.getPdfUrl(), e);
             }
@@ -516,31 +588,12 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         );
     }
 
-    private void generateAndStorePdf(PurchaseOrder po, User approver) {
-        try {
-            // 1. Generate PDF
-            File pdfFile = pdfGenerationService.generatePurchaseOrderPdf(po, approver, true);
-
-            // 2. Upload to Storage
-            String objectKey = storageService.buildObjectKey(
-                    "invoice",
-                    po.getSupplier().getSupplierId(),
-                    pdfFile.getName()
-            );
-            storageService.uploadFile(objectKey, pdfFile, MediaType.APPLICATION_PDF_VALUE);
-
-            // 3. Update PO with URL (Storing Object Key now)
-            po.setPdfUrl(objectKey);
-
-            // 4. Clean up temp file
-            if (pdfFile.exists()) {
-                if (!pdfFile.delete()) {
-                    log.warn("Could not delete temporary PDF file: {}", pdfFile.getAbsolutePath());
-                }
-            }
-
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to approve and store PO: " + e.getMessage(), e);
-        }
+    private void enqueuePdfJob(PurchaseOrder po, User approver) {
+        pdfJobRepo.save(PurchaseOrderPdfJob.builder()
+                .poId(po.getPoId())
+                .approverId(approver.getId())
+                .nextAttemptAt(Instant.now())
+                .build());
+        eventPublisher.publishEvent(new PurchaseOrderPdfJobWorker.JobEnqueued(po.getPoId()));
     }
 }
@@ -1,32 +1,18 @@
 package com.supplymind.platform_core.service.intel;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.supplymind.platform_core.model.core.PurchaseOrder;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@RequiredArgsConstructor
 public class AiContentService {
 
-    @Value("${openrouter.api.key}")
-    private String openRouterApiKey;
-
-    private final RestClient restClient;
-    private final ObjectMapper objectMapper;
-
-    public AiContentService() {
-        this.restClient = RestClient.builder()
-                .baseUrl("https://openrouter.ai/api/v1")
-                .build();
-        this.objectMapper = new ObjectMapper();
-    }
+    private final LlmGateway llmGateway;
 
     /**
      * Generates a professional email using Arcee Trinity via OpenRouter.
@@ -34,6 +20,7 @@ public class AiContentService {
      * @param managerName The name of the user clicking "Send".
      * @param supplierName The name of the recipient supplier.
      * @return HTML Email Body string.
+     * @throws LlmGateway.LlmException if the model could not be reached; callers decide whether to fall back.
      */
     public String generatePurchaseOrderEmail(PurchaseOrder po, String managerName, String supplierName) {
 
@@ -63,38 +50,25 @@ public class AiContentService {
             - OUTPUT ONLY RAW HTML (<body> content). Do not use markdown blocks.
             """.formatted(managerName, supplierName, po.getPoId(), po.getTotalAmount(), itemsSummary, managerName);
 
-        try {
-            String responseBody = restClient.post()
-                    .uri("/chat/completions")
-                    .header("Authorization", "Bearer " + openRouterApiKey)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(Map.of(
-                            "model", "arcee-ai/trinity-large-preview:free",
-                            "messages", List.of(
-                                    Map.of("role", "system", "content", "You are a backend API that outputs only valid HTML."),
-                                    Map.of("role", "user", "content", prompt)
-                            ),
-                            "temperature", 0.7
-                    ))
-                    .retrieve()
-                    .body(String.class);
-
-            // 4. PARSE & CLEAN
-            JsonNode root = objectMapper.readTree(responseBody);
-            String content = root.path("choices").get(0).path("message").path("content").asText();
+        String content = llmGateway.complete(List.of(
+                Map.of("role", "system", "content", "You are a backend API that outputs only valid HTML."),
+                Map.of("role", "user", "content", prompt)
+        ), 0.7);
 
-            // Remove Markdown if the model adds it (e.g. ```html ... ```)
-            return content
-                    .replace("```html", "")
-                    .replace("```", "")
-                    .trim();
+        // Remove Markdown if the model adds it (e.g. ```html ... ```)
+        return content
+                .replace("```html", "")
+                .replace("```", "")
+                .trim();
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "<h2>Purchase Order PO-" + po.getPoId() + "</h2>" +
-                    "<p>Dear " + supplierName + ",</p>" +
-                    "<p>Please find the official purchase order attached.</p>" +
-                    "<br/><p>Best regards,<br/>" + managerName + "</p>";
-        }
+    /**
+     * Plain template used when the model is unavailable.
+     */
+    public String fallbackPurchaseOrderEmail(PurchaseOrder po, String managerName, String supplierName) {
+        return "<h2>Purchase Order PO-" + po.getPoId() + "</h2>" +
+                "<p>Dear " + supplierName + ",</p>" +
+                "<p>Please find the official purchase order attached.</p>" +
+                "<br/><p>Best regards,<br/>" + managerName + "</p>";
     }
 }
\ No newline at end of file
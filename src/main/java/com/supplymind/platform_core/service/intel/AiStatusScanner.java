@@ -2,76 +2,344 @@ package com.supplymind.platform_core.service.intel;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supplymind.platform_core.common.util.BoundedTtlCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
 public class AiStatusScanner {
 
-    @Value("${openrouter.api.key}")
-    private String openRouterApiKey;
+    /**
+     * llmCalls counts replies sent to the LLM, llmRequests the HTTP requests used for them
+     * (lower than llmCalls when replies are batched).
+     */
+    public record Stats(long requests, long ruleHits, long llmCalls, long llmRequests, long llmFailures,
+                        long batchFallbacks, BoundedTtlCache.Stats llmCache) {
+        /** Share of requests answered without a network call (rules + cache). */
+        public double networkSkipRate() {
+            return requests == 0 ? 0.0 : (double) (requests - llmCalls) / requests;
+        }
+    }
+
+    private record Pending(String emailBody, String key, CompletableFuture<StatusScanResult> result) {}
+
+    private static final StatusScanResult FALLBACK = new StatusScanResult("SUPPLIER_REPLIED", null);
+
+    private final StatusRuleClassifier ruleClassifier;
+    private final LlmGateway llmGateway;
+
+    @Value("${ai.status.cache.max-entries:2000}")
+    private int cacheMaxEntries;
+
+    @Value("${ai.status.cache.ttl-minutes:1440}")
+    private long cacheTtlMinutes;
+
+    @Value("${ai.status.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${ai.status.batch.max-size:10}")
+    private int batchMaxSize;
+
+    @Value("${ai.status.batch.max-wait-ms:200}")
+    private long batchMaxWaitMs;
 
-    private final RestClient restClient = RestClient.builder().baseUrl("https://openrouter.ai/api/v1").build();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // LLM results keyed by a hash of the normalized text, so re-scans of the same reply skip the network
+    private BoundedTtlCache<String, StatusScanResult> llmCache;
+
+    // Replies waiting for the next batch (guarded by itself) and replies already on their way to the LLM
+    private final List<Pending> pending = new ArrayList<>();
+    private final Map<String, CompletableFuture<StatusScanResult>> inFlight = new ConcurrentHashMap<>();
+    private ScheduledExecutorService batchTimer;
+    private ScheduledFuture<?> flushTask;
+    private ExecutorService batchSender;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong ruleHits = new AtomicLong();
+    private final AtomicLong llmCalls = new AtomicLong();
+    private final AtomicLong llmRequests = new AtomicLong();
+    private final AtomicLong llmFailures = new AtomicLong();
+    private final AtomicLong batchFallbacks = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        llmCache = new BoundedTtlCache<>(cacheMaxEntries, Duration.ofMinutes(cacheTtlMinutes));
+        if (batchEnabled) {
+            batchTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ai-status-batch-timer");
+                t.setDaemon(true);
+                return t;
+            });
+            batchSender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-status-batch-", 0).factory());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (batchTimer != null) batchTimer.shutdownNow();
+        if (batchSender != null) batchSender.shutdownNow();
+        synchronized (pending) {
+            pending.forEach(p -> p.result().complete(FALLBACK));
+            pending.clear();
+        }
+    }
+
+    /**
+     * Rules first, then the LLM result cache, then the LLM itself.
+     * Failed LLM calls fall back to SUPPLIER_REPLIED and are not cached.
+     * With ai.status.batch.enabled this blocks until the reply's batch has been answered.
+     */
     public StatusScanResult scanEmailForStatus(String emailBody) {
+        if (batchEnabled) return scanEmailForStatusAsync(emailBody).join();
+
+        requests.incrementAndGet();
+        Optional<StatusScanResult> ruled = classifyByRules(emailBody);
+        if (ruled.isPresent()) return ruled.get();
+
+        String key = contentKey(emailBody);
+        StatusScanResult cached = llmCache.get(key);
+        if (cached != null) return cached;
+
+        llmCalls.incrementAndGet();
+        return askSingle(emailBody, key);
+    }
+
+    /**
+     * Like {@link #scanEmailForStatus}, but replies that need the LLM are collected for up to
+     * ai.status.batch.max-wait-ms or ai.status.batch.max-size items and classified with one prompt.
+     * Identical replies already waiting or in flight share one result. Never completes exceptionally.
+     */
+    public CompletableFuture<StatusScanResult> scanEmailForStatusAsync(String emailBody) {
+        if (!batchEnabled) return CompletableFuture.completedFuture(scanEmailForStatus(emailBody));
+
+        requests.incrementAndGet();
+        Optional<StatusScanResult> ruled = classifyByRules(emailBody);
+        if (ruled.isPresent()) return CompletableFuture.completedFuture(ruled.get());
+
+        String key = contentKey(emailBody);
+        StatusScanResult cached = llmCache.get(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<StatusScanResult> created = new CompletableFuture<>();
+        CompletableFuture<StatusScanResult> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) return existing;
+
+        created.whenComplete((result, error) -> inFlight.remove(key, created));
+        llmCalls.incrementAndGet();
+        enqueue(new Pending(emailBody, key, created));
+        return created;
+    }
+
+    public Stats stats() {
+        return new Stats(requests.get(), ruleHits.get(), llmCalls.get(), llmRequests.get(), llmFailures.get(),
+                batchFallbacks.get(), llmCache.stats());
+    }
+
+    private Optional<StatusScanResult> classifyByRules(String emailBody) {
+        Optional<StatusScanResult> ruled = ruleClassifier.classify(emailBody);
+        if (ruled.isPresent()) ruleHits.incrementAndGet();
+        return ruled;
+    }
+
+    private void enqueue(Pending item) {
+        List<Pending> full = null;
+        synchronized (pending) {
+            pending.add(item);
+            if (pending.size() >= batchMaxSize) {
+                full = drainPending();
+            } else if (pending.size() == 1) {
+                flushTask = batchTimer.schedule(this::flushDue, batchMaxWaitMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) send(full);
+    }
+
+    private void flushDue() {
+        List<Pending> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) return;
+            batch = drainPending();
+        }
+        send(batch);
+    }
+
+    // Caller holds the lock on pending
+    private List<Pending> drainPending() {
+        List<Pending> batch = new ArrayList<>(pending);
+        pending.clear();
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        return batch;
+    }
+
+    private void send(List<Pending> batch) {
+        try {
+            batchSender.execute(() -> classifyBatch(batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(p -> p.result().complete(FALLBACK)); // shutting down
+        }
+    }
+
+    private void classifyBatch(List<Pending> batch) {
+        if (batch.size() == 1) {
+            Pending only = batch.get(0);
+            only.result().complete(askSingle(only.emailBody(), only.key()));
+            return;
+        }
+
+        List<StatusScanResult> results;
+        try {
+            llmRequests.incrementAndGet();
+            results = askLlmBatch(batch.stream().map(Pending::emailBody).toList());
+        } catch (Exception e) {
+            System.err.println("⚠️ AI Batch Scan Failed (" + batch.size() + " emails): " + e.getMessage());
+            results = new ArrayList<>();
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Pending item = batch.get(i);
+            StatusScanResult result = i < results.size() ? results.get(i) : null;
+            if (result != null) {
+                llmCache.put(item.key(), result);
+                item.result().complete(result);
+            } else {
+                // Missing or unreadable entry: ask for this email on its own
+                batchFallbacks.incrementAndGet();
+                item.result().complete(askSingle(item.emailBody(), item.key()));
+            }
+        }
+    }
+
+    private StatusScanResult askSingle(String emailBody, String key) {
+        try {
+            llmRequests.incrementAndGet();
+            StatusScanResult result = askLlm(emailBody);
+            llmCache.put(key, result);
+            return result;
+        } catch (Exception e) {
+            llmFailures.incrementAndGet();
+            System.err.println("⚠️ AI Scan Failed: " + e.getMessage());
+            return FALLBACK;
+        }
+    }
+
+    private StatusScanResult askLlm(String emailBody) throws Exception {
         String prompt = """
             Analyze this supplier email regarding a Purchase Order.
-            
+
             Current Status Options: [CONFIRMED, SHIPPED, DELIVERED, CANCELLED, DELAY_EXPECTED, SUPPLIER_REPLIED]
-            
+
             Task:
             1. Determine the best status. Use 'DELAY_EXPECTED' if they mention a delay, backorder, or later date.
             2. Extract expected delivery date (ISO YYYY-MM-DD) if present.
-            
+
             Email Content:
             "%s"
-            
+
             Output strictly valid JSON:
             { "status": "SHIPPED", "deliveryDate": "2026-02-12" }
-            """.formatted(emailBody.replace("\"", "'").replace("\n", " "));
+            """.formatted(sanitize(emailBody));
 
-        try {
-            String response = restClient.post()
-                    .uri("/chat/completions")
-                    .header("Authorization", "Bearer " + openRouterApiKey)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(Map.of(
-                            "model", "arcee-ai/trinity-large-preview:free",
-                            "messages", List.of(Map.of("role", "user", "content", prompt)),
-                            "temperature", 0.1
-                    ))
-                    .retrieve()
-                    .body(String.class);
-
-            JsonNode root = objectMapper.readTree(response);
-            String content = root.path("choices").get(0).path("message").path("content").asText();
-            content = content.replace("```json", "").replace("```", "").trim();
-
-            JsonNode json = objectMapper.readTree(content);
-            String status = json.has("status") ? json.get("status").asText() : "SUPPLIER_REPLIED";
-            String dateStr = json.has("deliveryDate") ? json.get("deliveryDate").asText() : null;
-
-            LocalDate date = null;
-            if (dateStr != null && !dateStr.equalsIgnoreCase("null")) {
-                try { date = LocalDate.parse(dateStr); } catch (Exception e) {}
+        return toResult(objectMapper.readTree(complete(prompt)));
+    }
+
+    /**
+     * One prompt for several emails. The answer is matched back by "id"; entries that are missing,
+     * duplicated or unreadable come back as null so the caller can retry them one by one.
+     */
+    private List<StatusScanResult> askLlmBatch(List<String> emailBodies) throws Exception {
+        StringBuilder emails = new StringBuilder();
+        for (int i = 0; i < emailBodies.size(); i++) {
+            emails.append('[').append(i + 1).append("] \"").append(sanitize(emailBodies.get(i))).append("\"\n");
+        }
+
+        String prompt = """
+            Analyze each of these supplier emails regarding Purchase Orders.
+
+            Current Status Options: [CONFIRMED, SHIPPED, DELIVERED, CANCELLED, DELAY_EXPECTED, SUPPLIER_REPLIED]
+
+            Task, for every email:
+            1. Determine the best status. Use 'DELAY_EXPECTED' if they mention a delay, backorder, or later date.
+            2. Extract expected delivery date (ISO YYYY-MM-DD) if present.
+
+            Emails:
+            %s
+            Output strictly a valid JSON array with exactly one object per email, using the email number as "id":
+            [ { "id": 1, "status": "SHIPPED", "deliveryDate": "2026-02-12" }, { "id": 2, "status": "CONFIRMED", "deliveryDate": null } ]
+            """.formatted(emails);
+
+        JsonNode array = objectMapper.readTree(complete(prompt));
+        List<StatusScanResult> results = new ArrayList<>();
+        for (int i = 0; i < emailBodies.size(); i++) results.add(null);
+        if (!array.isArray()) return results;
+
+        boolean[] seen = new boolean[emailBodies.size()];
+        for (JsonNode item : array) {
+            int id = item.path("id").asInt(0);
+            if (id < 1 || id > emailBodies.size() || !item.hasNonNull("status")) continue;
+            if (seen[id - 1]) {
+                results.set(id - 1, null); // answered twice: trust neither
+                continue;
             }
+            seen[id - 1] = true;
+            results.set(id - 1, toResult(item));
+        }
+        return results;
+    }
 
-            return new StatusScanResult(status, date);
+    // Sends one chat completion and returns the message content without Markdown fences
+    private String complete(String prompt) {
+        String content = llmGateway.complete(List.of(Map.of("role", "user", "content", prompt)), 0.1);
+        return content.replace("```json", "").replace("```", "").trim();
+    }
 
-        } catch (Exception e) {
-            System.err.println("⚠️ AI Scan Failed: " + e.getMessage());
-            return new StatusScanResult("SUPPLIER_REPLIED", null);
+    private StatusScanResult toResult(JsonNode json) {
+        String status = json.has("status") ? json.get("status").asText() : "SUPPLIER_REPLIED";
+        String dateStr = json.has("deliveryDate") ? json.get("deliveryDate").asText() : null;
+
+        LocalDate date = null;
+        if (dateStr != null && !dateStr.equalsIgnoreCase("null")) {
+            try { date = LocalDate.parse(dateStr); } catch (Exception e) {}
+        }
+
+        return new StatusScanResult(status, date);
+    }
+
+    private String sanitize(String emailBody) {
+        return emailBody.replace("\"", "'").replace("\n", " ");
+    }
+
+    // Case, whitespace runs and surrounding blanks do not change the answer
+    private String contentKey(String emailBody) {
+        String normalized = emailBody.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
     public record StatusScanResult(String status, LocalDate deliveryDate) {}
-}
\ No newline at end of file
+}
@@ -0,0 +1,307 @@
+package com.supplymind.platform_core.service.intel;
+
+import com.supplymind.platform_core.common.math.HoltWinters;
+import com.supplymind.platform_core.dto.intel.forecast.ForecastBatchProgress;
+import com.supplymind.platform_core.dto.intel.forecast.PrecomputedForecastResponse;
+import com.supplymind.platform_core.exception.ConflictException;
+import com.supplymind.platform_core.exception.NotFoundException;
+import com.supplymind.platform_core.model.intel.DemandForecasting;
+import com.supplymind.platform_core.model.intel.ForecastParameters;
+import com.supplymind.platform_core.repository.core.ProductRepository;
+import com.supplymind.platform_core.repository.intel.DemandForecastingRepository;
+import com.supplymind.platform_core.repository.intel.ForecastParametersRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Forecasts the whole catalog in one pass and stores the results in demand_forecasting.
+ * <p>
+ * 1. LOADING: one streaming query returns daily OUT totals for every product, merged into an
+ * {@code int[products][90]} matrix, plus the tuned smoothing factors per product.
+ * 2. FORECASTING: products are split across a ForkJoinPool.
+ * 3. WRITING: rows are inserted in chunks, one short transaction per chunk (JDBC-batched through the
+ * pooled id sequence), tagged with the run id. Earlier rows for the target date are deleted only after the
+ * last chunk commits; a run that fails while writing removes its own rows instead, so readers never see a
+ * batch that covers only part of the catalog. Runs nightly and on demand; only one run at a time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DemandForecastBatchService {
+
+    private static final int HISTORY_DAYS = 90;
+    private static final int HORIZON_DAYS = 30;
+    private static final int SEASON_LENGTH = 7;
+
+    private final DemandHistoryLoader historyLoader;
+    private final ProductRepository productRepository;
+    private final DemandForecastingRepository forecastRepository;
+    private final ForecastParametersRepository parametersRepository;
+    private final TransactionTemplate txTemplate;
+
+    // 0 = one worker per core
+    @Value("${forecast.batch.parallelism:0}")
+    private int parallelism;
+
+    @Value("${forecast.batch.leaf-size:256}")
+    private int leafSize;
+
+    @Value("${forecast.batch.write-chunk-size:1000}")
+    private int writeChunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Run current;
+
+    private ExecutorService runner;
+
+    @PostConstruct
+    void init() {
+        runner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "forecast-batch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Starts a catalog forecast in the background.
+     *
+     * @return Progress of the run that was just started.
+     * @throws ConflictException if a run is already in progress.
+     */
+    public ForecastBatchProgress start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("A forecast batch is already running.");
+        }
+        Run run = new Run(LocalDate.now());
+        current = run;
+        try {
+            runner.execute(() -> execute(run));
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return run.snapshot();
+    }
+
+    @Scheduled(cron = "${forecast.batch.cron:0 30 2 * * *}")
+    public void nightly() {
+        try {
+            start();
+        } catch (ConflictException e) {
+            log.info("Nightly forecast batch skipped: previous run still in progress");
+        }
+    }
+
+    public ForecastBatchProgress progress() {
+        Run run = current;
+        return run != null ? run.snapshot()
+                : new ForecastBatchProgress("IDLE", null, null, 0, 0, 0, null, null, null);
+    }
+
+    /**
+     * Latest batch forecast for a product, without touching transaction history.
+     *
+     * @throws NotFoundException if no batch has produced a forecast for this product yet.
+     */
+    public PrecomputedForecastResponse getPrecomputed(Long productId) {
+        DemandForecasting f = forecastRepository.findFirstByProduct_ProductIdOrderByTargetDateDescIdDesc(productId)
+                .orElseThrow(() -> new NotFoundException("No precomputed forecast for product: " + productId));
+        return new PrecomputedForecastResponse(productId, f.getForecastedQty(), f.getTargetDate(), f.getConfScore());
+    }
+
+    private void execute(Run run) {
+        try {
+            // 1. LOADING
+            long start = System.nanoTime();
+            run.phase = "LOADING";
+            LocalDate firstDay = run.today.minusDays(HISTORY_DAYS - 1);
+            Series series = load(firstDay);
+            run.productsTotal = series.productIds().length;
+            long loadedAt = System.nanoTime();
+
+            // 2. FORECASTING
+            run.phase = "FORECASTING";
+            int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            try {
+                pool.invoke(new ForecastTask(series, 0, series.productIds().length, Math.max(1, leafSize), run.forecast));
+            } finally {
+                pool.shutdown();
+            }
+            long forecastAt = System.nanoTime();
+
+            // 3. WRITING
+            run.phase = "WRITING";
+            write(series, run);
+
+            run.state = "DONE";
+            log.info("Forecast batch for {}: {} products, load {} ms, forecast {} ms on {} workers, write {} ms",
+                    run.targetDate, run.productsTotal, (loadedAt - start) / 1_000_000,
+                    (forecastAt - loadedAt) / 1_000_000, workers, (System.nanoTime() - forecastAt) / 1_000_000);
+        } catch (Exception e) {
+            run.state = "FAILED";
+            run.error = e.getMessage();
+            log.error("Forecast batch for {} failed", run.targetDate, e);
+            if ("WRITING".equals(run.phase)) discard(run);
+        } finally {
+            run.phase = null;
+            running.set(false);
+            run.finishedAt = Instant.now();
+        }
+    }
+
+    private Series load(LocalDate firstDay) {
+        DemandHistoryLoader.CatalogHistory history = historyLoader.load(firstDay, HISTORY_DAYS);
+        long[] productIds = history.productIds();
+
+        // Tuned smoothing factors where the tuning job produced them, model defaults otherwise
+        Map<Long, ForecastParameters> tuned = new HashMap<>();
+        for (ForecastParameters p : parametersRepository.findAll()) tuned.put(p.getProductId(), p);
+        double[][] parameters = new double[productIds.length][];
+        for (int i = 0; i < productIds.length; i++) {
+            ForecastParameters p = tuned.get(productIds[i]);
+            if (p != null) parameters[i] = new double[]{p.getAlpha(), p.getBeta(), p.getGamma()};
+        }
+
+        return new Series(productIds, history.daily(), parameters,
+                new int[productIds.length], new double[productIds.length]);
+    }
+
+    private void write(Series series, Run run) {
+        int total = series.productIds().length;
+        int chunk = Math.max(1, writeChunkSize);
+        for (int from = 0; from < total; from += chunk) {
+            int lo = from;
+            int hi = Math.min(total, from + chunk);
+            txTemplate.executeWithoutResult(status -> {
+                List<DemandForecasting> rows = new ArrayList<>(hi - lo);
+                for (int i = lo; i < hi; i++) {
+                    DemandForecasting f = new DemandForecasting();
+                    f.setProduct(productRepository.getReferenceById(series.productIds()[i]));
+                    f.setForecastedQty(series.forecastQty()[i]);
+                    f.setTargetDate(run.targetDate);
+                    f.setConfScore(BigDecimal.valueOf(series.confidence()[i]).setScale(2, RoundingMode.HALF_UP));
+                    f.setRunId(run.id);
+                    rows.add(f);
+                }
+                forecastRepository.saveAll(rows);
+            });
+            run.rowsWritten.addAndGet(hi - lo);
+        }
+
+        // Every chunk is committed: this run now replaces the previous batch for the date
+        txTemplate.executeWithoutResult(status -> forecastRepository.deleteOtherCatalogRuns(run.targetDate, run.id));
+    }
+
+    private void discard(Run run) {
+        try {
+            txTemplate.executeWithoutResult(status -> forecastRepository.deleteRun(run.id));
+        } catch (Exception e) {
+            run.error = run.error + " (partial batch " + run.id + " could not be removed)";
+            log.error("Could not remove partial forecast batch {} for {}", run.id, run.targetDate, e);
+        }
+    }
+
+    /**
+     * Inputs and outputs for the whole catalog, indexed by position in {@code productIds}.
+     * {@code parameters[i]} is (alpha, beta, gamma), or null for the model defaults.
+     */
+    private record Series(long[] productIds, int[][] daily, double[][] parameters, int[] forecastQty, double[] confidence) {}
+
+    private static final class ForecastTask extends RecursiveAction {
+        private final Series series;
+        private final int lo;
+        private final int hi;
+        private final int leafSize;
+        private final AtomicInteger done;
+
+        ForecastTask(Series series, int lo, int hi, int leafSize, AtomicInteger done) {
+            this.series = series;
+            this.lo = lo;
+            this.hi = hi;
+            this.leafSize = leafSize;
+            this.done = done;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= leafSize) {
+                // One model and one buffer per leaf, reused for every product in it
+                HoltWinters model = new HoltWinters(SEASON_LENGTH, HORIZON_DAYS);
+                double[] history = new double[HISTORY_DAYS];
+                for (int i = lo; i < hi; i++) forecast(i, model, history);
+                done.addAndGet(hi - lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ForecastTask(series, lo, mid, leafSize, done), new ForecastTask(series, mid, hi, leafSize, done));
+        }
+
+        private void forecast(int i, HoltWinters model, double[] history) {
+            int[] days = series.daily()[i];
+            int activeDays = 0;
+            for (int d = 0; d < days.length; d++) {
+                history[d] = days[d];
+                if (days[d] > 0) activeDays++;
+            }
+            double[] p = series.parameters()[i];
+            if (p != null) model.setParameters(p[0], p[1], p[2]);
+            else model.setParameters(HoltWinters.defaultAlpha(), HoltWinters.defaultBeta(), HoltWinters.defaultGamma());
+            series.forecastQty()[i] = (int) Math.ceil(model.fit(history, days.length).forecastTotal());
+            // Share of days with demand: sparse histories give less reliable forecasts
+            series.confidence()[i] = (double) activeDays / days.length;
+        }
+    }
+
+    private static final class Run {
+        final String id = UUID.randomUUID().toString();
+        final LocalDate today;
+        final LocalDate targetDate;
+        final Instant startedAt = Instant.now();
+        final AtomicInteger forecast = new AtomicInteger();
+        final AtomicInteger rowsWritten = new AtomicInteger();
+        volatile String state = "RUNNING";
+        volatile String phase;
+        volatile int productsTotal;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Run(LocalDate today) {
+            this.today = today;
+            this.targetDate = today.plusDays(HORIZON_DAYS);
+        }
+
+        ForecastBatchProgress snapshot() {
+            return new ForecastBatchProgress(state, phase, targetDate, productsTotal, forecast.get(),
+                    rowsWritten.get(), startedAt, finishedAt, error);
+        }
+    }
+}
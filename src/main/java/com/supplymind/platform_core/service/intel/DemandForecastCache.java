@@ -0,0 +1,122 @@
+package com.supplymind.platform_core.service.intel;
+
+import com.supplymind.platform_core.common.util.BoundedTtlCache;
+import com.supplymind.platform_core.dto.intel.forecast.ForecastResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Per-product {@link ForecastResponse} cache in front of the forecast computation.
+ * <p>
+ * Entries are keyed by (product, day), so a forecast never outlives the day it was computed for; the size
+ * bound and TTL only cap memory. Concurrent misses for a product share one computation. Recording an OUT
+ * movement drops products that are refitted rather than restored from state, and the nightly state rollover
+ * clears everything.
+ * Cached responses are shared between callers and must not be modified.
+ */
+@Component
+public class DemandForecastCache {
+
+    /** Published when OUT movements are recorded; see {@link ForecastStateService#onSalesRecorded}. */
+    public record SalesRecorded(Set<Long> productIds) {}
+
+    public record Stats(BoundedTtlCache.Stats cache, long computed, long sharedWaits, long invalidations, int inFlight) {}
+
+    private record Key(Long productId, LocalDate day) {}
+
+
+    @Value("${forecast.cache.max-entries:20000}")
+    private int maxEntries;
+
+    @Value("${forecast.cache.ttl-hours:24}")
+    private long ttlHours;
+
+    private BoundedTtlCache<Key, ForecastResponse> cache;
+    private final Map<Key, CompletableFuture<ForecastResponse>> inFlight = new ConcurrentHashMap<>();
+
+    // Orders "store a finished computation" against "invalidate", so a result computed before an OUT is not kept
+    private final Object lock = new Object();
+
+    private final AtomicLong computed = new AtomicLong();
+    private final AtomicLong sharedWaits = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedTtlCache<>(maxEntries, Duration.ofHours(ttlHours));
+    }
+
+    /**
+     * Today's cached forecast for the product, or the result of {@code loader}. The first caller on a miss
+     * computes; concurrent callers for the same product wait for its result.
+     */
+    public ForecastResponse get(Long productId, Function<Long, ForecastResponse> loader) {
+        Key key = new Key(productId, LocalDate.now());
+        ForecastResponse cached = cache.get(key);
+        if (cached != null) return cached;
+
+        CompletableFuture<ForecastResponse> created = new CompletableFuture<>();
+        CompletableFuture<ForecastResponse> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            sharedWaits.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                if (e.getCause() instanceof Error cause) throw cause;
+                throw e;
+            }
+        }
+
+        try {
+            ForecastResponse response = loader.apply(productId);
+            computed.incrementAndGet();
+            synchronized (lock) {
+                // Still registered = no invalidation for this product while computing
+                if (inFlight.remove(key, created)) cache.put(key, response);
+            }
+            created.complete(response);
+            return response;
+        } catch (Throwable e) {
+            // Errors too: a flight left registered would block every later caller for the product
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the product's forecast. A computation already running is unregistered: it still answers the
+     * callers waiting on it, but its result is not cached and later misses compute afresh.
+     */
+    public void invalidate(Long productId) {
+        Key key = new Key(productId, LocalDate.now());
+        synchronized (lock) {
+            inFlight.remove(key);
+            cache.invalidate(key);
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        synchronized (lock) {
+            inFlight.clear();
+            cache.invalidateAll();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(cache.stats(), computed.get(), sharedWaits.get(), invalidations.get(), inFlight.size());
+    }
+}
@@ -2,81 +2,53 @@ package com.supplymind.platform_core.service.intel;
 
 import com.supplymind.platform_core.common.enums.InventoryTransactionType;
 import com.supplymind.platform_core.common.math.HoltWinters;
+import com.supplymind.platform_core.dto.intel.forecast.DaySalesTotal;
 import com.supplymind.platform_core.dto.intel.forecast.ForecastResponse;
-import com.supplymind.platform_core.model.core.InventoryTransaction;
 import com.supplymind.platform_core.repository.core.InventoryTransactionRepository;
+import com.supplymind.platform_core.repository.intel.ForecastParametersRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class DemandForecastingService {
 
     private final InventoryTransactionRepository transactionRepository;
+    private final ForecastParametersRepository parametersRepository;
+    private final ForecastStateService stateService;
+    private final DemandForecastCache forecastCache;
 
     // Default seasonality: 7 days
     private static final int DEFAULT_SEASONALITY = 7;
+    private static final int HISTORY_DAYS = 90;
+    private static final int FORECAST_DAYS = 30;
 
+    /**
+     * Forecast for the next 30 days, cached per product for the day (see {@link DemandForecastCache}).
+     */
     public ForecastResponse calculateForecast(Long productId) {
-        Instant now = Instant.now();
-        Instant ninetyDaysAgo = now.minus(90, ChronoUnit.DAYS);
-        Instant sixtyDaysAgo = now.minus(60, ChronoUnit.DAYS);
-        Instant thirtyDaysAgo = now.minus(30, ChronoUnit.DAYS);
+        return forecastCache.get(productId, this::compute);
+    }
 
-        List<InventoryTransaction> history = transactionRepository.findSalesHistory(
-                productId, InventoryTransactionType.OUT, ninetyDaysAgo);
+    private ForecastResponse compute(Long productId) {
+        // Smoothing state rolled over nightly; replay the transaction history only when it is missing or stale.
+        // Both paths read the same 90 completed days, so the chart buckets and trend do not depend on which ran
+        double[] history = new double[HISTORY_DAYS];
+        HoltWinters model = stateService.restore(productId, history)
+                .orElseGet(() -> refit(productId, history));
+        double predictedDemand = model.forecastTotal();
 
         // Aggregate into 30-day buckets
-        int month3 = history.stream()
-                .filter(t -> t.getTimestamp().isBefore(sixtyDaysAgo))
-                .mapToInt(InventoryTransaction::getQuantity).sum();
-
-        int month2 = history.stream()
-                .filter(t -> t.getTimestamp().isAfter(sixtyDaysAgo) && t.getTimestamp().isBefore(thirtyDaysAgo))
-                .mapToInt(InventoryTransaction::getQuantity).sum();
-
-        int month1 = history.stream()
-                .filter(t -> t.getTimestamp().isAfter(thirtyDaysAgo))
-                .mapToInt(InventoryTransaction::getQuantity).sum();
-
-        // Create the 3 points for the DTO
         List<ForecastResponse.DataPoint> chartPoints = List.of(
-                new ForecastResponse.DataPoint("60-90 Days Ago", month3),
-                new ForecastResponse.DataPoint("30-60 Days Ago", month2),
-                new ForecastResponse.DataPoint("Last 30 Days", month1)
+                new ForecastResponse.DataPoint("60-90 Days Ago", sum(history, 0, 30)),
+                new ForecastResponse.DataPoint("30-60 Days Ago", sum(history, 30, 60)),
+                new ForecastResponse.DataPoint("Last 30 Days", sum(history, 60, 90))
         );
 
-        // Pre-process Data: Create a continuous list of 90 days (fill gaps with 0.0)
-        List<Double> dailySales = new ArrayList<>(Collections.nCopies(90, 0.0));
-
-        // Group transactions by "Day Index" (0 = 90 days ago, 89 = Today)
-        Map<Integer, Double> salesMap = history.stream()
-                .collect(Collectors.groupingBy(
-                        t -> (int) ChronoUnit.DAYS.between(ninetyDaysAgo, t.getTimestamp()),
-                        Collectors.summingDouble(InventoryTransaction::getQuantity)
-                ));
-
-        for (int i = 0; i < 90; i++) {
-            if (salesMap.containsKey(i)) {
-                dailySales.set(i, salesMap.get(i));
-            }
-        }
-
-        double predictedDemand = HoltWinters.predictNext30Days(dailySales, DEFAULT_SEASONALITY);
-
-        String trend = HoltWinters.detectTrend(dailySales);
-
-
-        double totalSales = history.stream().mapToDouble(InventoryTransaction::getQuantity).sum();
-        double avgDaily = totalSales / 90.0;
+        String trend = HoltWinters.detectTrend(history, HISTORY_DAYS);
 
         return ForecastResponse.builder()
                 .productId(productId)
@@ -85,4 +57,30 @@ public class DemandForecastingService {
                 .trend(trend)
                 .build();
     }
-}
\ No newline at end of file
+
+    private HoltWinters refit(Long productId, double[] history) {
+        // The calendar days the nightly state covers: 0 = 90 days ago, 89 = yesterday. Days without sales stay 0
+        LocalDate today = LocalDate.now();
+        int[] dailySales = new int[HISTORY_DAYS];
+        for (DaySalesTotal day : transactionRepository.sumDailyQuantities(productId, InventoryTransactionType.OUT.name(),
+                DemandHistoryLoader.startOf(today.minusDays(HISTORY_DAYS)), DemandHistoryLoader.startOf(today))) {
+            int index = day.getDayIndex();
+            if (index >= 0 && index < HISTORY_DAYS) {
+                dailySales[index] = (int) Math.min(Integer.MAX_VALUE, (long) dailySales[index] + day.getQuantity());
+            }
+        }
+        for (int i = 0; i < HISTORY_DAYS; i++) history[i] = dailySales[i];
+
+        // Per-product smoothing factors from the tuning job, model defaults for untuned products
+        HoltWinters model = parametersRepository.findById(productId)
+                .map(p -> new HoltWinters(DEFAULT_SEASONALITY, FORECAST_DAYS, p.getAlpha(), p.getBeta(), p.getGamma()))
+                .orElseGet(() -> new HoltWinters(DEFAULT_SEASONALITY, FORECAST_DAYS));
+        return model.fit(history, HISTORY_DAYS);
+    }
+
+    private static int sum(double[] values, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) total += (long) values[i];
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+}
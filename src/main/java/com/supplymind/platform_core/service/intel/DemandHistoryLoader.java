@@ -0,0 +1,71 @@
+package com.supplymind.platform_core.service.intel;
+
+import com.supplymind.platform_core.common.enums.InventoryTransactionType;
+import com.supplymind.platform_core.dto.intel.forecast.DailyOutTotal;
+import com.supplymind.platform_core.repository.core.InventoryTransactionRepository;
+import com.supplymind.platform_core.repository.core.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Daily OUT history of the whole catalog as primitive arrays, read with one streaming query.
+ * Shared by the catalog forecast and the parameter tuning jobs.
+ */
+@Component
+@RequiredArgsConstructor
+public class DemandHistoryLoader {
+
+    /** {@code daily[i][d]} = units shipped for {@code productIds[i]} on {@code firstDay + d}. */
+    public record CatalogHistory(long[] productIds, int[][] daily) {}
+
+    private final InventoryTransactionRepository transactionRepository;
+    private final ProductRepository productRepository;
+
+    @Transactional(readOnly = true)
+    public CatalogHistory load(LocalDate firstDay, int days) {
+        return load(productIds(), firstDay, days);
+    }
+
+    /**
+     * Start of a calendar day in the JVM zone, the zone {@code LocalDate.now()} uses. Every daily history
+     * query takes its window bounds from here, so days mean the same thing on the refit and state paths.
+     */
+    public static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    /** Current catalog ids in ascending order, the order {@link #load} needs them in. */
+    public long[] productIds() {
+        return productRepository.findAllIds().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /** Same as {@link #load(LocalDate, int)} for product ids already read with {@link #productIds()}. */
+    @Transactional(readOnly = true)
+    public CatalogHistory load(long[] productIds, LocalDate firstDay, int days) {
+        int[][] daily = new int[productIds.length][days];
+
+        try (Stream<DailyOutTotal> rows = transactionRepository.streamDailyTotals(
+                InventoryTransactionType.OUT.name(), startOf(firstDay), startOf(firstDay.plusDays(days)))) {
+            // Both sides are ordered by product id, so one cursor walks the product list
+            int cursor = 0;
+            for (Iterator<DailyOutTotal> it = rows.iterator(); it.hasNext(); ) {
+                DailyOutTotal row = it.next();
+                while (cursor < productIds.length && productIds[cursor] < row.getProductId()) cursor++;
+                if (cursor == productIds.length || productIds[cursor] != row.getProductId()) continue; // deleted product
+
+                int day = row.getDayIndex();
+                if (day >= 0 && day < days) {
+                    daily[cursor][day] = (int) Math.min(Integer.MAX_VALUE, row.getQuantity());
+                }
+            }
+        }
+        return new CatalogHistory(productIds, daily);
+    }
+}
@@ -0,0 +1,223 @@
+package com.supplymind.platform_core.service.intel;
+
+import com.supplymind.platform_core.dto.core.purchaseorder.EmailDraftResponse;
+import com.supplymind.platform_core.exception.BadRequestException;
+import com.supplymind.platform_core.exception.NotFoundException;
+import com.supplymind.platform_core.model.auth.User;
+import com.supplymind.platform_core.model.core.PurchaseOrder;
+import com.supplymind.platform_core.model.core.PurchaseOrderEmailDraft;
+import com.supplymind.platform_core.model.core.PurchaseOrderItem;
+import com.supplymind.platform_core.repository.core.PurchaseOrderEmailDraftRepository;
+import com.supplymind.platform_core.repository.core.PurchaseOrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Supplier emails for approved POs, written ahead of time.
+ * <p>
+ * Approval publishes {@link DraftRequested}; after the commit the draft is generated on a virtual
+ * thread and stored in po_email_drafts together with a hash of the PO contents it was written from.
+ * {@link #getDraft} returns the stored draft while the hash still matches and only goes to the LLM when
+ * the PO changed (or nothing was stored yet). Concurrent requests for the same contents share one
+ * generation instead of each calling the model.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailDraftService {
+
+    /** Published by the PO service when a PO is approved; handled after the commit. */
+    public record DraftRequested(Long poId) {}
+
+    public record Stats(long storedHits, long generated, long sharedWaits, long fallbacks, int inFlight) {}
+
+    private static final String DEFAULT_SIGNER = "SupplyMind Manager";
+
+    /** Everything generation needs, read in one short transaction. {@code storedBody} is null when stale. */
+    private record Snapshot(PurchaseOrder po, String contentHash, String supplierName, String toEmail,
+                            String signer, String storedBody) {}
+
+    private final PurchaseOrderRepository poRepo;
+    private final PurchaseOrderEmailDraftRepository draftRepo;
+    private final AiContentService aiContentService;
+    private final TransactionTemplate txTemplate;
+
+    // Generation in progress per content hash (single-flight)
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong storedHits = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong sharedWaits = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        // LLM concurrency is capped by LlmGateway, so one cheap virtual thread per draft is enough here
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("po-email-draft-", 0).factory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDraftRequested(DraftRequested event) {
+        executor.execute(() -> {
+            try {
+                Snapshot snapshot = load(event.poId(), null);
+                if (snapshot.storedBody() == null) {
+                    generate(snapshot);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not pre-generate email draft for PO #{}: {}", event.poId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Returns the email draft for a PO, generating it only if no draft matches the current PO contents.
+     *
+     * @param poId The ID of the Purchase Order.
+     * @param requesterName Signature used when the PO has no approver yet.
+     * @throws NotFoundException if the PO does not exist.
+     * @throws BadRequestException if the PO has no supplier.
+     */
+    public EmailDraftResponse getDraft(Long poId, String requesterName) {
+        Snapshot snapshot = load(poId, requesterName);
+
+        String body;
+        if (snapshot.storedBody() != null) {
+            storedHits.incrementAndGet();
+            body = snapshot.storedBody();
+        } else {
+            body = generate(snapshot).join();
+        }
+        return new EmailDraftResponse("Official Purchase Order PO-" + poId, body, snapshot.toEmail());
+    }
+
+    public Stats stats() {
+        return new Stats(storedHits.get(), generated.get(), sharedWaits.get(), fallbacks.get(), inFlight.size());
+    }
+
+    private Snapshot load(Long poId, String requesterName) {
+        return txTemplate.execute(status -> {
+            PurchaseOrder po = poRepo.findByIdWithItems(poId)
+                    .orElseThrow(() -> new NotFoundException("Purchase Order not found: " + poId));
+            if (po.getSupplier() == null) {
+                throw new BadRequestException("Purchase Order has no supplier: " + poId);
+            }
+
+            // The approver signs the official order, so the draft does not change with whoever opens it
+            User approver = po.getApprover();
+            String signer = approver != null ? approver.getFirstName() + " " + approver.getLastName()
+                    : requesterName != null ? requesterName : DEFAULT_SIGNER;
+            String supplierName = po.getSupplier().getName();
+            String hash = contentHash(po, supplierName, signer);
+
+            String stored = draftRepo.findById(poId)
+                    .filter(draft -> draft.getContentHash().equals(hash))
+                    .map(PurchaseOrderEmailDraft::getBody)
+                    .orElse(null);
+            return new Snapshot(po, hash, supplierName, po.getSupplier().getContactEmail(), signer, stored);
+        });
+    }
+
+    private CompletableFuture<String> generate(Snapshot snapshot) {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(snapshot.contentHash(), created);
+        if (running != null) {
+            sharedWaits.incrementAndGet();
+            return running;
+        }
+
+        // Unregistered before completing, so a caller that sees the result no longer finds the generation running
+        executor.execute(() -> {
+            try {
+                String body = write(snapshot);
+                inFlight.remove(snapshot.contentHash(), created);
+                created.complete(body);
+            } catch (Throwable t) {
+                inFlight.remove(snapshot.contentHash(), created);
+                created.completeExceptionally(t);
+            }
+        });
+        return created;
+    }
+
+    private String write(Snapshot snapshot) {
+        PurchaseOrder po = snapshot.po();
+        String body;
+        try {
+            body = aiContentService.generatePurchaseOrderEmail(po, snapshot.signer(), snapshot.supplierName());
+        } catch (RuntimeException e) {
+            // Not stored, so the next read tries the model again
+            fallbacks.incrementAndGet();
+            log.warn("LLM unavailable for PO #{} email draft, using template: {}", po.getPoId(), e.getMessage());
+            return aiContentService.fallbackPurchaseOrderEmail(po, snapshot.signer(), snapshot.supplierName());
+        }
+        generated.incrementAndGet();
+
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                PurchaseOrderEmailDraft draft = draftRepo.findById(po.getPoId())
+                        .orElseGet(() -> PurchaseOrderEmailDraft.builder().poId(po.getPoId()).build());
+                draft.setContentHash(snapshot.contentHash());
+                draft.setBody(body);
+                draft.setSignedBy(snapshot.signer());
+                draft.setGeneratedAt(Instant.now());
+                draftRepo.save(draft);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not store email draft for PO #{}: {}", po.getPoId(), e.getMessage());
+        }
+        return body;
+    }
+
+    /** SHA-256 over everything the prompt is built from. */
+    private static String contentHash(PurchaseOrder po, String supplierName, String signer) {
+        StringBuilder sb = new StringBuilder()
+                .append(po.getPoId()).append('|')
+                .append(supplierName).append('|')
+                .append(signer).append('|')
+                .append(po.getTotalAmount() == null ? "" : po.getTotalAmount().stripTrailingZeros().toPlainString());
+
+        po.getPurchaseOrderItems().stream()
+                .sorted(Comparator.comparing(PurchaseOrderItem::getPoItemId,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .forEach(item -> sb.append('\n')
+                        .append(item.getProduct() != null ? item.getProduct().getProductId() : "")
+                        .append('|')
+                        .append(item.getProduct() != null ? item.getProduct().getName() : "")
+                        .append('|')
+                        .append(item.getOrderedQty()));
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
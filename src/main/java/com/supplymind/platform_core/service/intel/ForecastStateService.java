@@ -0,0 +1,267 @@
+package com.supplymind.platform_core.service.intel;
+
+import com.supplymind.platform_core.common.math.HoltWinters;
+import com.supplymind.platform_core.model.intel.ForecastParameters;
+import com.supplymind.platform_core.model.intel.ForecastState;
+import com.supplymind.platform_core.repository.intel.ForecastParametersRepository;
+import com.supplymind.platform_core.repository.intel.ForecastStateRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Incremental Holt-Winters state per product, stored in forecast_state.
+ * <p>
+ * Each night the rollover advances every product by the days completed since its last update: one O(1)
+ * {@link HoltWinters#update} per day, fed by the catalog's daily OUT totals for just those days. Products
+ * without state, or whose state is older than the 90-day window, are seeded by fitting the last 90 days.
+ * Request-time forecasts {@link #restore} the state instead of replaying the transaction history.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ForecastStateService {
+
+    private static final int HISTORY_DAYS = 90;
+    private static final int HORIZON_DAYS = 30;
+    private static final int SEASON_LENGTH = 7;
+
+    private static final String UPSERT =
+            "INSERT INTO forecast_state (product_id, level, trend, seasonals, observations, daily_window, last_day, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE level = VALUES(level), trend = VALUES(trend), seasonals = VALUES(seasonals), " +
+            "observations = VALUES(observations), daily_window = VALUES(daily_window), last_day = VALUES(last_day), " +
+            "updated_at = VALUES(updated_at)";
+
+    private final DemandHistoryLoader historyLoader;
+    private final ForecastStateRepository stateRepository;
+    private final ForecastParametersRepository parametersRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DemandForecastCache forecastCache;
+
+    @Value("${forecast.state.write-chunk-size:1000}")
+    private int writeChunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private ExecutorService runner;
+
+    @PostConstruct
+    void init() {
+        runner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "forecast-state");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Folds yesterday's sales into every product's state, shortly after midnight. The rollover runs on its
+     * own thread so the shared scheduler thread is free for the other jobs meanwhile.
+     */
+    @Scheduled(cron = "${forecast.state.cron:0 5 0 * * *}")
+    public void nightly() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Forecast state rollover skipped: previous run still in progress");
+            return;
+        }
+        LocalDate lastDay = LocalDate.now().minusDays(1);
+        try {
+            runner.execute(() -> {
+                try {
+                    rollover(lastDay);
+                } catch (Exception e) {
+                    log.error("Forecast state rollover failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Brings every product's state up to and including {@code lastDay}. Products already there are skipped.
+     *
+     * @return Number of products whose state was written.
+     */
+    public int rollover(LocalDate lastDay) {
+        long start = System.nanoTime();
+        long[] productIds = historyLoader.productIds();
+        Map<Long, ForecastState> states = new HashMap<>();
+        for (ForecastState s : stateRepository.findAll()) states.put(s.getProductId(), s);
+
+        // Read only the days some product needs: normally just lastDay, the whole window if one must be seeded
+        LocalDate firstDay = lastDay.plusDays(1);
+        for (long id : productIds) {
+            ForecastState state = states.get(id);
+            if (isCurrent(state, lastDay)) continue;
+            LocalDate from = canAdvance(state, lastDay) ? state.getLastDay().plusDays(1) : lastDay.minusDays(HISTORY_DAYS - 1);
+            if (from.isBefore(firstDay)) firstDay = from;
+        }
+        int days = (int) ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+        if (days <= 0) return 0;
+
+        DemandHistoryLoader.CatalogHistory history = historyLoader.load(productIds, firstDay, days);
+        Map<Long, ForecastParameters> tuned = new HashMap<>();
+        for (ForecastParameters p : parametersRepository.findAll()) tuned.put(p.getProductId(), p);
+
+        HoltWinters model = new HoltWinters(SEASON_LENGTH, HORIZON_DAYS);
+        double[] window = new double[HISTORY_DAYS];
+        double[] seasonals = new double[SEASON_LENGTH];
+        int[] ring = new int[HISTORY_DAYS];
+        Timestamp updatedAt = Timestamp.from(Instant.now());
+        List<Object[]> batch = new ArrayList<>(writeChunkSize);
+        int advanced = 0;
+        int seeded = 0;
+
+        for (int i = 0; i < productIds.length; i++) {
+            ForecastState state = states.get(productIds[i]);
+            if (isCurrent(state, lastDay)) continue;
+
+            // daily[d] = units shipped on firstDay + d
+            int[] daily = history.daily()[i];
+            ForecastParameters p = tuned.get(productIds[i]);
+            if (p != null) model.setParameters(p.getAlpha(), p.getBeta(), p.getGamma());
+            else model.setParameters(HoltWinters.defaultAlpha(), HoltWinters.defaultBeta(), HoltWinters.defaultGamma());
+
+            if (canAdvance(state, lastDay)) {
+                model.restore(state.getLevel(), state.getTrend(), unpackDoubles(state.getSeasonals()), state.getObservations());
+                unpackInts(state.getDailyWindow(), ring);
+                for (LocalDate day = state.getLastDay().plusDays(1); !day.isAfter(lastDay); day = day.plusDays(1)) {
+                    int qty = daily[(int) ChronoUnit.DAYS.between(firstDay, day)];
+                    model.update(qty);
+                    ring[slot(day)] = qty;
+                }
+                advanced++;
+            } else {
+                int offset = days - HISTORY_DAYS;
+                for (int d = 0; d < HISTORY_DAYS; d++) {
+                    int qty = daily[offset + d];
+                    window[d] = qty;
+                    ring[slot(lastDay.minusDays(HISTORY_DAYS - 1 - d))] = qty;
+                }
+                model.fit(window, HISTORY_DAYS);
+                seeded++;
+            }
+
+            model.copySeasonals(seasonals);
+            batch.add(new Object[]{productIds[i], model.level(), model.trend(), packDoubles(seasonals),
+                    model.observations(), packInts(ring), Date.valueOf(lastDay), updatedAt});
+            if (batch.size() >= writeChunkSize) flush(batch);
+        }
+        flush(batch);
+        // Cached forecasts were computed from yesterday's state or a refit
+        if (advanced + seeded > 0) forecastCache.invalidateAll();
+
+        log.info("Forecast state rolled over to {}: {} advanced, {} seeded, {} days read, {} ms",
+                lastDay, advanced, seeded, days, (System.nanoTime() - start) / 1_000_000);
+        return advanced + seeded;
+    }
+
+    /**
+     * Restores the product's smoothing state if it was rolled over through yesterday, and writes the
+     * 90 daily totals it covers into {@code history[0..90)}, oldest first.
+     *
+     * @return Model positioned to forecast from today, or empty if the product has no current state.
+     */
+    public Optional<HoltWinters> restore(Long productId, double[] history) {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        return stateRepository.findById(productId)
+                .filter(s -> s.getLastDay().equals(yesterday))
+                .map(s -> {
+                    int[] ring = new int[HISTORY_DAYS];
+                    unpackInts(s.getDailyWindow(), ring);
+                    for (int d = 0; d < HISTORY_DAYS; d++) {
+                        history[d] = ring[slot(yesterday.minusDays(HISTORY_DAYS - 1 - d))];
+                    }
+                    return new HoltWinters(SEASON_LENGTH, HORIZON_DAYS)
+                            .restore(s.getLevel(), s.getTrend(), unpackDoubles(s.getSeasonals()), s.getObservations());
+                });
+    }
+
+    /**
+     * Restored state is fixed until the next rollover, so a sale cannot change those forecasts. Only products
+     * without current state are refitted from the transaction history; their cached forecast is dropped.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSalesRecorded(DemandForecastCache.SalesRecorded event) {
+        Set<Long> current = new HashSet<>(
+                stateRepository.findProductIdsRolledOverTo(event.productIds(), LocalDate.now().minusDays(1)));
+        for (Long productId : event.productIds()) {
+            if (!current.contains(productId)) forecastCache.invalidate(productId);
+        }
+    }
+
+    private static boolean isCurrent(ForecastState state, LocalDate lastDay) {
+        return state != null && !state.getLastDay().isBefore(lastDay);
+    }
+
+    // Days missed since the state was written are still inside the 90-day window we read
+    private static boolean canAdvance(ForecastState state, LocalDate lastDay) {
+        return state != null && !state.getLastDay().isBefore(lastDay.minusDays(HISTORY_DAYS));
+    }
+
+    private static int slot(LocalDate day) {
+        return (int) Math.floorMod(day.toEpochDay(), HISTORY_DAYS);
+    }
+
+    private void flush(List<Object[]> batch) {
+        if (batch.isEmpty()) return;
+        jdbcTemplate.batchUpdate(UPSERT, batch);
+        batch.clear();
+    }
+
+    private static byte[] packDoubles(double[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(values);
+        return buffer.array();
+    }
+
+    private static double[] unpackDoubles(byte[] bytes) {
+        double[] values = new double[bytes.length / Double.BYTES];
+        ByteBuffer.wrap(bytes).asDoubleBuffer().get(values);
+        return values;
+    }
+
+    private static byte[] packInts(int[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+
+    private static void unpackInts(byte[] bytes, int[] out) {
+        ByteBuffer.wrap(bytes).asIntBuffer().get(out);
+    }
+}
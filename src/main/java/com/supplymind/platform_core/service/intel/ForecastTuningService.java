@@ -0,0 +1,248 @@
+package com.supplymind.platform_core.service.intel;
+
+import com.supplymind.platform_core.common.math.HoltWintersTuner;
+import com.supplymind.platform_core.dto.intel.forecast.ForecastTuningProgress;
+import com.supplymind.platform_core.exception.ConflictException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Offline tuning of the Holt-Winters smoothing factors, one set per product.
+ * <p>
+ * Loads the catalog's daily OUT history, tunes every product in parallel on a ForkJoinPool
+ * ({@link HoltWintersTuner}: grid + coordinate descent on the one-step-ahead error, primitive arrays only)
+ * and upserts the results into forecast_parameters in JDBC batches. Products whose history is too short
+ * or has no demand keep the model defaults. Runs weekly and on demand; only one run at a time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ForecastTuningService {
+
+    private static final int SEASON_LENGTH = 7;
+
+    private static final String UPSERT =
+            "INSERT INTO forecast_parameters (product_id, alpha, beta, gamma, one_step_mse, tuned_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE alpha = VALUES(alpha), beta = VALUES(beta), gamma = VALUES(gamma), " +
+            "one_step_mse = VALUES(one_step_mse), tuned_at = VALUES(tuned_at)";
+
+    private final DemandHistoryLoader historyLoader;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Longer than the 90-day forecast window: more one-step errors to tune on
+    @Value("${forecast.tuning.history-days:180}")
+    private int historyDays;
+
+    // 0 = one worker per core
+    @Value("${forecast.tuning.parallelism:0}")
+    private int parallelism;
+
+    @Value("${forecast.tuning.leaf-size:64}")
+    private int leafSize;
+
+    @Value("${forecast.tuning.write-chunk-size:1000}")
+    private int writeChunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Run current;
+
+    private ExecutorService runner;
+
+    @PostConstruct
+    void init() {
+        runner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "forecast-tuning");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Starts tuning all products in the background.
+     *
+     * @return Progress of the run that was just started.
+     * @throws ConflictException if a run is already in progress.
+     */
+    public ForecastTuningProgress start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("Forecast tuning is already running.");
+        }
+        Run run = new Run(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        current = run;
+        try {
+            runner.execute(() -> execute(run));
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return run.snapshot();
+    }
+
+    @Scheduled(cron = "${forecast.tuning.cron:0 0 3 * * SUN}")
+    public void weekly() {
+        try {
+            start();
+        } catch (ConflictException e) {
+            log.info("Weekly forecast tuning skipped: previous run still in progress");
+        }
+    }
+
+    public ForecastTuningProgress progress() {
+        Run run = current;
+        return run != null ? run.snapshot()
+                : new ForecastTuningProgress("IDLE", null, 0, 0, 0, 0, 0, null, null, null);
+    }
+
+    private void execute(Run run) {
+        try {
+            // 1. LOADING
+            run.phase = "LOADING";
+            LocalDate firstDay = LocalDate.now().minusDays(historyDays - 1);
+            DemandHistoryLoader.CatalogHistory history = historyLoader.load(firstDay, historyDays);
+            int total = history.productIds().length;
+            run.productsTotal = total;
+
+            // 2. TUNING
+            run.phase = "TUNING";
+            double[][] results = new double[total][];
+            long start = System.nanoTime();
+            ForkJoinPool pool = new ForkJoinPool(run.workers);
+            try {
+                pool.invoke(new TuneTask(history.daily(), results, 0, total, Math.max(1, leafSize), run.tuned));
+            } finally {
+                pool.shutdown();
+            }
+            run.tuneMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // 3. WRITING
+            run.phase = "WRITING";
+            write(history.productIds(), results, run);
+
+            run.state = "DONE";
+            log.info("Forecast tuning: {} products ({} tuned) in {} ms on {} workers",
+                    total, run.tuned.get(), run.tuneMillis, run.workers);
+        } catch (Exception e) {
+            run.state = "FAILED";
+            run.error = e.getMessage();
+            log.error("Forecast tuning failed", e);
+        } finally {
+            run.phase = null;
+            running.set(false);
+            run.finishedAt = Instant.now();
+        }
+    }
+
+    private void write(long[] productIds, double[][] results, Run run) {
+        Timestamp tunedAt = Timestamp.from(Instant.now());
+        List<Object[]> batch = new ArrayList<>(writeChunkSize);
+        for (int i = 0; i < productIds.length; i++) {
+            double[] r = results[i];
+            if (r == null) continue;
+            batch.add(new Object[]{productIds[i], r[0], r[1], r[2], r[3], tunedAt});
+            if (batch.size() >= writeChunkSize) {
+                flush(batch, run);
+            }
+        }
+        flush(batch, run);
+    }
+
+    private void flush(List<Object[]> batch, Run run) {
+        if (batch.isEmpty()) return;
+        jdbcTemplate.batchUpdate(UPSERT, batch);
+        run.stored.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    private static final class TuneTask extends RecursiveAction {
+        private final int[][] daily;
+        private final double[][] results;
+        private final int lo;
+        private final int hi;
+        private final int leafSize;
+        private final AtomicInteger tuned;
+
+        TuneTask(int[][] daily, double[][] results, int lo, int hi, int leafSize, AtomicInteger tuned) {
+            this.daily = daily;
+            this.results = results;
+            this.lo = lo;
+            this.hi = hi;
+            this.leafSize = leafSize;
+            this.tuned = tuned;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > leafSize) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new TuneTask(daily, results, lo, mid, leafSize, tuned),
+                        new TuneTask(daily, results, mid, hi, leafSize, tuned));
+                return;
+            }
+
+            // One tuner and one history buffer per leaf
+            HoltWintersTuner tuner = new HoltWintersTuner(SEASON_LENGTH);
+            double[] history = null;
+            double[] best = new double[4];
+            for (int i = lo; i < hi; i++) {
+                int[] days = daily[i];
+                if (history == null) history = new double[days.length];
+
+                boolean hasDemand = false;
+                for (int d = 0; d < days.length; d++) {
+                    history[d] = days[d];
+                    if (days[d] > 0) hasDemand = true;
+                }
+                if (hasDemand && tuner.tune(history, days.length, best)) {
+                    results[i] = best.clone();
+                    tuned.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static final class Run {
+        final int workers;
+        final Instant startedAt = Instant.now();
+        final AtomicInteger tuned = new AtomicInteger();
+        final AtomicInteger stored = new AtomicInteger();
+        volatile String state = "RUNNING";
+        volatile String phase;
+        volatile int productsTotal;
+        volatile long tuneMillis;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Run(int workers) {
+            this.workers = workers;
+        }
+
+        ForecastTuningProgress snapshot() {
+            return new ForecastTuningProgress(state, phase, workers, productsTotal, tuned.get(), stored.get(),
+                    tuneMillis, startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.supplymind.platform_core.service.intel;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single entry point for OpenRouter chat completions.
+ * <p>
+ * One shared HTTP/2 client (connections are pooled / multiplexed by the JDK client), a per-call deadline
+ * that covers queueing, rate limiting, every attempt and the backoff between them, a token-bucket rate
+ * limiter, a cap on concurrent requests, retries with full jitter for timeouts, 429 and 5xx, and a
+ * circuit breaker that fails fast while OpenRouter is down. Callers get an {@link LlmException} instead
+ * of a hung thread and fall back to their own defaults.
+ */
+@Slf4j
+@Component
+public class LlmGateway {
+
+    public record Stats(long calls, long successes, long failures, long retries, long timeouts, long rateLimited,
+                        long shortCircuited, String circuitState, double avgLatencyMillis, double maxLatencyMillis,
+                        long promptTokens, long completionTokens) {}
+
+    /** The call did not produce a completion (deadline, open circuit, non-retryable or repeated errors). */
+    public static class LlmException extends RuntimeException {
+        public LlmException(String message) {
+            super(message);
+        }
+
+        public LlmException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private enum Admission { DENIED, NORMAL, TRIAL }
+
+    @Value("${openrouter.api.key}")
+    private String apiKey;
+
+    @Value("${openrouter.api.base-url:https://openrouter.ai/api/v1}")
+    private String baseUrl;
+
+    @Value("${llm.model:arcee-ai/trinity-large-preview:free}")
+    private String model;
+
+    @Value("${llm.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${llm.deadline-ms:30000}")
+    private long defaultDeadlineMs;
+
+    @Value("${llm.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${llm.rate-limit.per-second:2.0}")
+    private double permitsPerSecond;
+
+    @Value("${llm.rate-limit.burst:5}")
+    private int burst;
+
+    @Value("${llm.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${llm.retry.base-backoff-ms:250}")
+    private long baseBackoffMs;
+
+    @Value("${llm.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${llm.circuit.open-seconds:30}")
+    private long openSeconds;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpClient httpClient;
+    private Semaphore concurrency;
+    private TokenBucket rateLimiter;
+
+    // Circuit breaker state (guarded by this)
+    private CircuitState circuitState = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openUntilNanos;
+    private boolean halfOpenTrialRunning;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final LongAdder promptTokens = new LongAdder();
+    private final LongAdder completionTokens = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        concurrency = new Semaphore(maxConcurrency, true);
+        rateLimiter = new TokenBucket(permitsPerSecond, burst);
+    }
+
+    public String complete(List<Map<String, String>> messages, double temperature) {
+        return complete(messages, temperature, Duration.ofMillis(defaultDeadlineMs));
+    }
+
+    /**
+     * Sends one chat completion and returns the assistant message content as-is.
+     *
+     * @throws LlmException if no completion arrived before the deadline
+     */
+    public String complete(List<Map<String, String>> messages, double temperature, Duration deadline) {
+        calls.increment();
+        long start = System.nanoTime();
+        long deadlineNanos = start + deadline.toNanos();
+
+        Admission admission = admit();
+        if (admission == Admission.DENIED) {
+            shortCircuited.increment();
+            failures.increment();
+            throw new LlmException("LLM circuit is open");
+        }
+
+        try {
+            String content = executeWithRetries(messages, temperature, deadlineNanos);
+            successes.increment();
+            long elapsed = System.nanoTime() - start;
+            latencyNanos.add(elapsed);
+            maxLatencyNanos.accumulateAndGet(elapsed, Math::max);
+            return content;
+        } catch (LlmException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            if (admission == Admission.TRIAL) endTrial();
+        }
+    }
+
+    public Stats stats() {
+        long ok = successes.sum();
+        CircuitState state;
+        synchronized (this) {
+            state = currentState();
+        }
+        return new Stats(calls.sum(), ok, failures.sum(), retries.sum(), timeouts.sum(), rateLimited.sum(),
+                shortCircuited.sum(), state.name(),
+                ok == 0 ? 0 : latencyNanos.sum() / 1_000_000.0 / ok, maxLatencyNanos.get() / 1_000_000.0,
+                promptTokens.sum(), completionTokens.sum());
+    }
+
+    private String executeWithRetries(List<Map<String, String>> messages, double temperature, long deadlineNanos) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(Map.of(
+                    "model", model,
+                    "messages", messages,
+                    "temperature", temperature));
+        } catch (IOException e) {
+            throw new LlmException("Could not serialize request", e);
+        }
+
+        LlmException last = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (attempt > 1) {
+                retries.increment();
+                sleepUntilRetry(attempt, last, deadlineNanos);
+            }
+            try {
+                return attempt(body, deadlineNanos);
+            } catch (RetryableException e) {
+                last = e;
+                log.debug("LLM attempt {}/{} failed: {}", attempt, maxAttempts, e.getMessage());
+                if (recordFailure()) throw new LlmException("LLM circuit opened", e);
+            }
+        }
+        throw last;
+    }
+
+    private String attempt(byte[] body, long deadlineNanos) {
+        acquire(deadlineNanos);
+        try {
+            long remaining = remainingNanos(deadlineNanos);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/chat/completions"))
+                    .timeout(Duration.ofNanos(remaining))
+                    .header("Authorization", "Bearer " + apiKey)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (HttpTimeoutException e) {
+                timeouts.increment();
+                throw new RetryableException("LLM request timed out", 0, e);
+            } catch (IOException e) {
+                throw new RetryableException("LLM request failed: " + e.getMessage(), 0, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LlmException("Interrupted", e);
+            }
+
+            int status = response.statusCode();
+            if (status == 429 || status >= 500) {
+                long retryAfterMs = retryAfterMs(response.headers().firstValue("Retry-After").orElse(null));
+                throw new RetryableException("LLM returned HTTP " + status, retryAfterMs, null);
+            }
+            if (status >= 400) {
+                recordSuccess(); // the service answered; a bad request is not an outage
+                throw new LlmException("LLM returned HTTP " + status + ": " + response.body());
+            }
+
+            recordSuccess();
+            return parseContent(response.body());
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    // Rate limit, then concurrency cap; both count against the deadline
+    private void acquire(long deadlineNanos) {
+        long waitNanos = rateLimiter.reserve(remainingNanos(deadlineNanos));
+        if (waitNanos < 0) {
+            rateLimited.increment();
+            throw new LlmException("LLM rate limit: no permit before the deadline");
+        }
+        try {
+            if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+            if (!concurrency.tryAcquire(remainingNanos(deadlineNanos), TimeUnit.NANOSECONDS)) {
+                throw new LlmException("LLM concurrency limit: no slot before the deadline");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmException("Interrupted", e);
+        }
+    }
+
+    private String parseContent(String responseBody) {
+        try {
+            JsonNode root = objectMapper.readTree(responseBody);
+            JsonNode usage = root.path("usage");
+            promptTokens.add(usage.path("prompt_tokens").asLong(0));
+            completionTokens.add(usage.path("completion_tokens").asLong(0));
+
+            JsonNode choices = root.path("choices");
+            if (!choices.isArray() || choices.isEmpty()) {
+                throw new LlmException("LLM response has no choices");
+            }
+            return choices.get(0).path("message").path("content").asText();
+        } catch (IOException e) {
+            throw new LlmException("Unreadable LLM response", e);
+        }
+    }
+
+    // Retry-After is either delta-seconds or an HTTP-date (RFC 9110); anything unreadable means no hint
+    private static long retryAfterMs(String value) {
+        if (value == null || value.isBlank()) return 0;
+        String v = value.trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(v)));
+        } catch (NumberFormatException ignored) {
+            // not delta-seconds, try the date form
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(Instant.now(), at.toInstant()).toMillis());
+        } catch (DateTimeParseException e) {
+            log.debug("Ignoring unreadable Retry-After header: {}", v);
+            return 0;
+        }
+    }
+
+    // Full jitter: random(0, base * 2^(attempt-2)), at least Retry-After, never past the deadline
+    private void sleepUntilRetry(int attempt, LlmException last, long deadlineNanos) {
+        long capMs = baseBackoffMs << Math.min(attempt - 2, 10);
+        long backoffMs = ThreadLocalRandom.current().nextLong(capMs + 1);
+        if (last instanceof RetryableException retryable) backoffMs = Math.max(backoffMs, retryable.retryAfterMs);
+
+        long backoffNanos = TimeUnit.MILLISECONDS.toNanos(backoffMs);
+        if (backoffNanos >= remainingNanos(deadlineNanos)) {
+            throw new LlmException("LLM deadline exceeded after " + (attempt - 1) + " attempts", last);
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(backoffNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmException("Interrupted", e);
+        }
+    }
+
+    private long remainingNanos(long deadlineNanos) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            timeouts.increment();
+            throw new LlmException("LLM deadline exceeded");
+        }
+        return remaining;
+    }
+
+    // --- circuit breaker ---
+
+    private synchronized Admission admit() {
+        CircuitState state = currentState();
+        if (state == CircuitState.CLOSED) return Admission.NORMAL;
+        if (state == CircuitState.HALF_OPEN && !halfOpenTrialRunning) {
+            halfOpenTrialRunning = true; // one trial call decides whether to close again
+            circuitState = CircuitState.HALF_OPEN;
+            return Admission.TRIAL;
+        }
+        return Admission.DENIED;
+    }
+
+    private synchronized CircuitState currentState() {
+        if (circuitState == CircuitState.OPEN && System.nanoTime() >= openUntilNanos) {
+            return CircuitState.HALF_OPEN;
+        }
+        return circuitState;
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        if (circuitState != CircuitState.CLOSED) log.info("LLM circuit closed");
+        circuitState = CircuitState.CLOSED;
+    }
+
+    /** Returns true if the circuit is open after this failure. */
+    private synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if (circuitState == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (circuitState != CircuitState.OPEN) {
+                log.warn("LLM circuit opened for {}s after {} consecutive failures", openSeconds, consecutiveFailures);
+            }
+            circuitState = CircuitState.OPEN;
+            openUntilNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(openSeconds);
+        }
+        return circuitState == CircuitState.OPEN;
+    }
+
+    private synchronized void endTrial() {
+        halfOpenTrialRunning = false;
+    }
+
+    private static class RetryableException extends LlmException {
+        private final long retryAfterMs;
+
+        RetryableException(String message, long retryAfterMs, Throwable cause) {
+            super(message, cause);
+            this.retryAfterMs = retryAfterMs;
+        }
+    }
+
+    /**
+     * Token bucket with reservations: a caller that finds the bucket empty books the next token and
+     * sleeps until it is due, so waiting callers are served in order at the configured rate.
+     */
+    static final class TokenBucket {
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double permitsPerSecond, int burst) {
+            this.permitsPerNano = permitsPerSecond / 1_000_000_000.0;
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /** Returns how long to wait for the reserved permit, or -1 (nothing reserved) if longer than maxWait. */
+        synchronized long reserve(long maxWaitNanos) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+            lastRefillNanos = now;
+
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            long waitNanos = (long) Math.ceil((1 - tokens) / permitsPerNano);
+            if (waitNanos > maxWaitNanos) return -1;
+            tokens -= 1;
+            return waitNanos;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.supplymind.platform_core.service.intel;
+
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic fast path for supplier replies that need no LLM: "shipped, tracking number ...",
+ * "delayed until March 3", "we confirm the order". Only answers when exactly one status is clearly
+ * stated and any date in the text is clearly the delivery date; everything else is left to the LLM.
+ */
+@Component
+public class StatusRuleClassifier {
+
+    // Anything hedged, negated or asked is not high-confidence
+    private static final Pattern UNSURE = Pattern.compile(
+            "(?i)\\?|\\bnot\\b|n't\\b|\\bno longer\\b|\\bcannot\\b|\\bunable\\b|\\bmight\\b"
+                    + "|\\bmay\\b(?!\\s*\\d)|\\bonce\\b|\\bwhen\\b|\\bas soon as\\b");
+
+    private static final Pattern SHIPPED = Pattern.compile(
+            "(?i)\\b(?:has|have|was|were|got)\\s+(?:been\\s+)?(?:shipped|dispatched)\\b"
+                    + "|\\bshipped\\s+(?:today|yesterday|out|this morning)\\b"
+                    + "|\\btracking\\s+(?:number|no\\.?|#|id|code)"
+                    + "|\\bout for delivery\\b|\\bin transit\\b");
+
+    private static final Pattern DELAYED = Pattern.compile(
+            "(?i)\\b(?:delay(?:ed|s)?|back[- ]?order(?:ed)?|postponed|pushed back|running late|behind schedule)\\b");
+
+    private static final Pattern CONFIRMED = Pattern.compile(
+            "(?i)\\bwe (?:hereby )?confirm\\b|\\border (?:is |has been )?confirmed\\b"
+                    + "|\\bconfirming (?:your|the) (?:order|po|purchase order)\\b"
+                    + "|\\b(?:po|order|purchase order) (?:is|has been) accepted\\b");
+
+    private static final String MONTH =
+            "(jan(?:uary)?|feb(?:ruary)?|mar(?:ch)?|apr(?:il)?|may|june?|july?|aug(?:ust)?"
+                    + "|sep(?:t(?:ember)?)?|oct(?:ober)?|nov(?:ember)?|dec(?:ember)?)\\b\\.?";
+
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(\\d{4})-(\\d{2})-(\\d{2})\\b");
+    private static final Pattern MONTH_DAY = Pattern.compile(
+            "(?i)\\b" + MONTH + "\\s+(\\d{1,2})(?:st|nd|rd|th)?\\b(?:,?\\s+(\\d{4})\\b)?");
+    private static final Pattern DAY_MONTH = Pattern.compile(
+            "(?i)\\b(\\d{1,2})(?:st|nd|rd|th)?\\s+(?:of\\s+)?" + MONTH + "(?:,?\\s+(\\d{4})\\b)?");
+
+    // A date counts as the delivery date only if one of these precedes it closely
+    private static final Pattern DELIVERY_CUE = Pattern.compile(
+            "(?i)deliver|arriv|\\beta\\b|until|expected|\\bnew date\\b|\\breach");
+    private static final int CUE_WINDOW = 40;
+
+    private static final List<String> MONTHS = List.of(
+            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec");
+
+    private record FoundDate(LocalDate date, int start) {}
+
+    public Optional<AiStatusScanner.StatusScanResult> classify(String text) {
+        return classify(text, LocalDate.now());
+    }
+
+    /** {@code today} resolves dates written without a year (next occurrence on or after today). */
+    public Optional<AiStatusScanner.StatusScanResult> classify(String text, LocalDate today) {
+        if (text == null || text.isBlank()) {
+            return Optional.of(new AiStatusScanner.StatusScanResult("SUPPLIER_REPLIED", null));
+        }
+        if (UNSURE.matcher(text).find()) return Optional.empty();
+
+        String status = null;
+        int matches = 0;
+        if (SHIPPED.matcher(text).find()) { status = "SHIPPED"; matches++; }
+        if (DELAYED.matcher(text).find()) { status = "DELAY_EXPECTED"; matches++; }
+        if (CONFIRMED.matcher(text).find()) { status = "CONFIRMED"; matches++; }
+        if (matches != 1) return Optional.empty();
+
+        List<FoundDate> dates;
+        try {
+            dates = findDates(text, today);
+        } catch (DateTimeException e) {
+            return Optional.empty(); // "Feb 30" and friends
+        }
+
+        Set<LocalDate> deliveryDates = new LinkedHashSet<>();
+        for (FoundDate found : dates) {
+            String before = text.substring(Math.max(0, found.start() - CUE_WINDOW), found.start());
+            if (!DELIVERY_CUE.matcher(before).find()) return Optional.empty(); // some other date (ship date, PO date)
+            deliveryDates.add(found.date());
+        }
+        if (deliveryDates.size() > 1) return Optional.empty();
+
+        LocalDate deliveryDate = deliveryDates.isEmpty() ? null : deliveryDates.iterator().next();
+        return Optional.of(new AiStatusScanner.StatusScanResult(status, deliveryDate));
+    }
+
+    private List<FoundDate> findDates(String text, LocalDate today) {
+        List<FoundDate> dates = new ArrayList<>();
+
+        Matcher iso = ISO_DATE.matcher(text);
+        while (iso.find()) {
+            dates.add(new FoundDate(LocalDate.of(Integer.parseInt(iso.group(1)),
+                    Integer.parseInt(iso.group(2)), Integer.parseInt(iso.group(3))), iso.start()));
+        }
+
+        Matcher monthDay = MONTH_DAY.matcher(text);
+        while (monthDay.find()) {
+            dates.add(new FoundDate(toDate(monthDay.group(1), monthDay.group(2), monthDay.group(3), today),
+                    monthDay.start()));
+        }
+
+        Matcher dayMonth = DAY_MONTH.matcher(text);
+        while (dayMonth.find()) {
+            dates.add(new FoundDate(toDate(dayMonth.group(2), dayMonth.group(1), dayMonth.group(3), today),
+                    dayMonth.start()));
+        }
+        return dates;
+    }
+
+    private LocalDate toDate(String monthName, String day, String year, LocalDate today) {
+        int month = MONTHS.indexOf(monthName.substring(0, 3).toLowerCase(Locale.ROOT)) + 1;
+        int dayOfMonth = Integer.parseInt(day);
+        if (year != null) return LocalDate.of(Integer.parseInt(year), month, dayOfMonth);
+
+        LocalDate date = LocalDate.of(today.getYear(), month, dayOfMonth);
+        return date.isBefore(today) ? date.plusYears(1) : date;
+    }
+}
@@ -0,0 +1,212 @@
+package com.supplymind.platform_core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.supplymind.platform_core.service.intel.AiStatusScanner;
+import com.supplymind.platform_core.service.intel.StatusRuleClassifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batching mode against a local stub of the chat completions endpoint: several pending replies go out
+ * as one prompt, answers are routed back by id, and broken batch answers fall back to single requests.
+ */
+class AiStatusBatchingTest {
+
+    private static final int MAX_SIZE = 5;
+
+    // Every reply in these tests is ambiguous for the rules ("quote #N"), so each one needs the LLM
+    private static final Pattern BATCH_ENTRY = Pattern.compile("\\[(\\d+)] \"[^\"]*quote #(\\d+)");
+    private static final Pattern SINGLE_ENTRY = Pattern.compile("quote #(\\d+)");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger batchRequests = new AtomicInteger();
+    private final AtomicInteger singleRequests = new AtomicInteger();
+
+    // Builds the completion content for a batch prompt; replaced per test to simulate broken answers
+    private volatile Function<Map<Integer, Integer>, String> batchAnswer = this::validBatchAnswer;
+
+    private HttpServer llmStub;
+    private AiStatusScanner scanner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        llmStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        llmStub.createContext("/chat/completions", exchange -> {
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            String prompt = request.path("messages").get(0).path("content").asText();
+
+            String content;
+            if (prompt.contains("Emails:")) {
+                batchRequests.incrementAndGet();
+                Map<Integer, Integer> quoteById = new LinkedHashMap<>();
+                Matcher m = BATCH_ENTRY.matcher(prompt);
+                while (m.find()) quoteById.put(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+                content = batchAnswer.apply(quoteById);
+            } else {
+                singleRequests.incrementAndGet();
+                Matcher m = SINGLE_ENTRY.matcher(prompt);
+                assertTrue(m.find());
+                content = mapper.writeValueAsString(answer(Integer.parseInt(m.group(1))));
+            }
+
+            byte[] body = mapper.writeValueAsBytes(Map.of(
+                    "choices", List.of(Map.of("message", Map.of("content", content)))));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        llmStub.start();
+
+        scanner = new AiStatusScanner(new StatusRuleClassifier(),
+                LlmTestSupport.gateway("http://127.0.0.1:" + llmStub.getAddress().getPort()));
+        ReflectionTestUtils.setField(scanner, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(scanner, "cacheTtlMinutes", 60L);
+        ReflectionTestUtils.setField(scanner, "batchEnabled", true);
+        ReflectionTestUtils.setField(scanner, "batchMaxSize", MAX_SIZE);
+        ReflectionTestUtils.setField(scanner, "batchMaxWaitMs", 100L);
+        ReflectionTestUtils.invokeMethod(scanner, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(scanner, "shutdown");
+        llmStub.stop(0);
+    }
+
+    @Test
+    void pendingRepliesShareOnePromptAndGetTheirOwnAnswer() throws Exception {
+        List<CompletableFuture<AiStatusScanner.StatusScanResult>> futures = submit(1, 3);
+
+        assertAnswers(1, futures);
+        assertEquals(1, batchRequests.get(), "three replies within the wait window go out together");
+        assertEquals(0, singleRequests.get());
+        assertEquals(3, scanner.stats().llmCalls());
+        assertEquals(1, scanner.stats().llmRequests());
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaiting() throws Exception {
+        ReflectionTestUtils.setField(scanner, "batchMaxWaitMs", 60_000L);
+
+        List<CompletableFuture<AiStatusScanner.StatusScanResult>> futures = submit(1, 2 * MAX_SIZE);
+
+        assertAnswers(1, futures);
+        assertEquals(2, batchRequests.get());
+    }
+
+    @Test
+    void identicalPendingRepliesAreSentOnce() throws Exception {
+        CompletableFuture<AiStatusScanner.StatusScanResult> first = scanner.scanEmailForStatusAsync(reply(7));
+        CompletableFuture<AiStatusScanner.StatusScanResult> retry = scanner.scanEmailForStatusAsync(reply(7));
+
+        assertEquals(first.get(5, TimeUnit.SECONDS), retry.get(5, TimeUnit.SECONDS));
+        assertEquals(1, scanner.stats().llmCalls());
+        assertEquals(1, singleRequests.get() + batchRequests.get());
+    }
+
+    @Test
+    void unreadableBatchAnswerFallsBackPerItem() throws Exception {
+        batchAnswer = ids -> "Sure! Here are the results: SHIPPED, CONFIRMED, ...";
+
+        List<CompletableFuture<AiStatusScanner.StatusScanResult>> futures = submit(1, 3);
+
+        assertAnswers(1, futures);
+        assertEquals(1, batchRequests.get());
+        assertEquals(3, singleRequests.get());
+        assertEquals(3, scanner.stats().batchFallbacks());
+    }
+
+    @Test
+    void onlyMissingEntriesAreRetried() throws Exception {
+        // The model skips the second email and repeats the third
+        batchAnswer = ids -> {
+            List<Map<String, Object>> items = new ArrayList<>();
+            items.add(withId(1, answer(ids.get(1))));
+            items.add(withId(3, answer(ids.get(3))));
+            items.add(withId(3, answer(ids.get(3))));
+            items.add(withId(4, answer(ids.get(4))));
+            return write(items);
+        };
+
+        List<CompletableFuture<AiStatusScanner.StatusScanResult>> futures = submit(1, 4);
+
+        assertAnswers(1, futures);
+        assertEquals(2, singleRequests.get(), "email 2 was missing and email 3 ambiguous");
+        assertEquals(2, scanner.stats().batchFallbacks());
+    }
+
+    private List<CompletableFuture<AiStatusScanner.StatusScanResult>> submit(int firstQuote, int count) {
+        List<CompletableFuture<AiStatusScanner.StatusScanResult>> futures = new ArrayList<>();
+        for (int q = firstQuote; q < firstQuote + count; q++) {
+            futures.add(scanner.scanEmailForStatusAsync(reply(q)));
+        }
+        return futures;
+    }
+
+    private void assertAnswers(int firstQuote, List<CompletableFuture<AiStatusScanner.StatusScanResult>> futures)
+            throws Exception {
+        for (int i = 0; i < futures.size(); i++) {
+            AiStatusScanner.StatusScanResult result = futures.get(i).get(5, TimeUnit.SECONDS);
+            Map<String, Object> expected = answer(firstQuote + i);
+            assertEquals(expected.get("status"), result.status());
+            assertEquals(LocalDate.parse((String) expected.get("deliveryDate")), result.deliveryDate());
+        }
+    }
+
+    private String reply(int quote) {
+        return "Please see the attached revised quote #" + quote + " with updated pricing";
+    }
+
+    // Deterministic per quote so each caller can check it got its own answer back
+    private Map<String, Object> answer(int quote) {
+        return Map.of(
+                "status", quote % 2 == 0 ? "CONFIRMED" : "SUPPLIER_REPLIED",
+                "deliveryDate", LocalDate.of(2026, 1, 1).plusDays(quote).toString());
+    }
+
+    private String validBatchAnswer(Map<Integer, Integer> quoteById) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        // Answer in reverse order: matching must go by id, not position
+        List<Integer> ids = new ArrayList<>(quoteById.keySet());
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            items.add(withId(ids.get(i), answer(quoteById.get(ids.get(i)))));
+        }
+        return "```json\n" + write(items) + "\n```";
+    }
+
+    private Map<String, Object> withId(int id, Map<String, Object> answer) {
+        Map<String, Object> item = new LinkedHashMap<>(answer);
+        item.put("id", id);
+        return item;
+    }
+
+    private String write(Object value) {
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.supplymind.platform_core;
+
+import com.sun.net.httpserver.HttpServer;
+import com.supplymind.platform_core.service.intel.AiStatusScanner;
+import com.supplymind.platform_core.service.intel.StatusRuleClassifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a corpus of typical supplier replies (including re-scans of the same mail) through the scanner
+ * against a local stub of the chat completions API, and reports how many never reach the network.
+ */
+class AiStatusScannerCorpusTest {
+
+    private record Reply(String text, String expectedStatus, LocalDate expectedDate) {
+        static Reply local(String text, String status, LocalDate date) {
+            return new Reply(text, status, date);
+        }
+
+        static Reply llm(String text) {
+            return new Reply(text, null, null);
+        }
+    }
+
+    private static final List<Reply> CORPUS = List.of(
+            Reply.local("Hi, your order has shipped today. Tracking number: 1Z999AA10123456784.", "SHIPPED", null),
+            Reply.local("Good news - PO-1042 was dispatched this morning via DHL, tracking ID 4829301.", "SHIPPED", null),
+            Reply.local("The goods are in transit and expected to arrive on March 14, 2026.", "SHIPPED",
+                    LocalDate.of(2026, 3, 14)),
+            Reply.local("Tracking # 7781 2231 0098. Estimated delivery 2026-04-02.", "SHIPPED", LocalDate.of(2026, 4, 2)),
+            Reply.local("Your parcel is out for delivery.", "SHIPPED", null),
+            Reply.local("Unfortunately the steel brackets are backordered. New delivery date is 2026-05-20.",
+                    "DELAY_EXPECTED", LocalDate.of(2026, 5, 20)),
+            Reply.local("We are sorry, the shipment is delayed until April 3rd, 2026 due to a port strike.",
+                    "DELAY_EXPECTED", LocalDate.of(2026, 4, 3)),
+            Reply.local("Production is running behind schedule, expect a delay of about two weeks.", "DELAY_EXPECTED", null),
+            Reply.local("Item SKU-204 is on back order.", "DELAY_EXPECTED", null),
+            Reply.local("We confirm the order and will ship within 5 business days.", "CONFIRMED", null),
+            Reply.local("Thank you, your purchase order has been accepted.", "CONFIRMED", null),
+            Reply.local("Order confirmed. Expected delivery: 12 June 2026.", "CONFIRMED", LocalDate.of(2026, 6, 12)),
+            Reply.local("Hi team, we hereby confirm PO-88, delivery expected 2026-03-30. Regards, Anna", "CONFIRMED",
+                    LocalDate.of(2026, 3, 30)),
+
+            Reply.llm("Can you confirm the delivery address before we ship?"),
+            Reply.llm("We have not shipped yet, waiting on payment."),
+            Reply.llm("Shipped on March 2, 2026, will arrive March 9, 2026."),
+            Reply.llm("Thanks for the order. Our accounts team will send the invoice shortly."),
+            Reply.llm("The order is confirmed but the valves are delayed until next month."),
+            Reply.llm("Please see the attached revised quote with updated pricing."),
+            Reply.llm("We might be able to expedite if you accept partial delivery."),
+            Reply.llm("Invoice INV-3321 attached for PO-1042."),
+
+            // Re-scans after a failed checkpoint or a second folder pass
+            Reply.local("Hi, your order has shipped today. Tracking number: 1Z999AA10123456784.", "SHIPPED", null),
+            Reply.local("Item SKU-204 is on back order.", "DELAY_EXPECTED", null),
+            Reply.llm("Thanks for the order.  Our accounts team will send the invoice shortly.\n"),
+            Reply.llm("please see the attached revised quote with updated pricing."),
+            Reply.llm("Invoice INV-3321 attached for PO-1042."),
+            Reply.llm("The order is confirmed but the valves are delayed until next month.")
+    );
+
+    private static final int DISTINCT_LLM_REPLIES = 8;
+
+    private HttpServer llmStub;
+    private final AtomicInteger llmRequests = new AtomicInteger();
+    private AiStatusScanner scanner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        llmStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        llmStub.createContext("/chat/completions", exchange -> {
+            llmRequests.incrementAndGet();
+            byte[] body = """
+                    {"choices":[{"message":{"content":"{\\"status\\": \\"SUPPLIER_REPLIED\\", \\"deliveryDate\\": null}"}}]}
+                    """.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        llmStub.start();
+
+        scanner = new AiStatusScanner(new StatusRuleClassifier(),
+                LlmTestSupport.gateway("http://127.0.0.1:" + llmStub.getAddress().getPort()));
+        ReflectionTestUtils.setField(scanner, "cacheMaxEntries", 100);
+        ReflectionTestUtils.setField(scanner, "cacheTtlMinutes", 60L);
+        ReflectionTestUtils.invokeMethod(scanner, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        llmStub.stop(0);
+    }
+
+    @Test
+    void mostRepliesSkipTheNetwork() {
+        for (Reply reply : CORPUS) {
+            AiStatusScanner.StatusScanResult result = scanner.scanEmailForStatus(reply.text());
+            if (reply.expectedStatus() != null) {
+                assertEquals(reply.expectedStatus(), result.status(), reply.text());
+                assertEquals(reply.expectedDate(), result.deliveryDate(), reply.text());
+            } else {
+                assertEquals("SUPPLIER_REPLIED", result.status(), reply.text());
+            }
+        }
+
+        AiStatusScanner.Stats stats = scanner.stats();
+        System.out.printf("Status scan corpus: %d replies, %d rules, %d cache hits, %d LLM calls -> %.0f%% skipped the network%n",
+                stats.requests(), stats.ruleHits(), stats.llmCache().hits(), stats.llmCalls(),
+                stats.networkSkipRate() * 100);
+
+        assertEquals(CORPUS.size(), stats.requests());
+        assertEquals(DISTINCT_LLM_REPLIES, llmRequests.get(), "each distinct ambiguous reply reaches the LLM once");
+        assertEquals(DISTINCT_LLM_REPLIES, stats.llmCalls());
+        assertEquals(CORPUS.size() - DISTINCT_LLM_REPLIES, stats.ruleHits() + stats.llmCache().hits());
+        assertTrue(stats.networkSkipRate() > 0.6);
+    }
+
+    @Test
+    void failedLlmCallsAreNotCached() {
+        llmStub.stop(0);
+        String reply = "Please see the attached revised quote with updated pricing.";
+
+        assertEquals("SUPPLIER_REPLIED", scanner.scanEmailForStatus(reply).status());
+        assertEquals("SUPPLIER_REPLIED", scanner.scanEmailForStatus(reply).status());
+
+        assertEquals(2, scanner.stats().llmCalls());
+        assertEquals(2, scanner.stats().llmFailures());
+    }
+}
@@ -0,0 +1,215 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.math.HoltWinters;
+import com.supplymind.platform_core.dto.intel.forecast.DailyOutTotal;
+import com.supplymind.platform_core.dto.intel.forecast.ForecastBatchProgress;
+import com.supplymind.platform_core.exception.ConflictException;
+import com.supplymind.platform_core.model.core.Product;
+import com.supplymind.platform_core.model.intel.DemandForecasting;
+import com.supplymind.platform_core.model.intel.ForecastParameters;
+import com.supplymind.platform_core.repository.core.InventoryTransactionRepository;
+import com.supplymind.platform_core.repository.core.ProductRepository;
+import com.supplymind.platform_core.repository.intel.DemandForecastingRepository;
+import com.supplymind.platform_core.repository.intel.ForecastParametersRepository;
+import com.supplymind.platform_core.service.intel.DemandForecastBatchService;
+import com.supplymind.platform_core.service.intel.DemandHistoryLoader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Catalog forecast run over mocked repositories: the streamed daily totals are merged per product,
+ * every product gets one row, and the rows go out in chunks.
+ */
+class DemandForecastBatchServiceTest {
+
+    private ProductRepository productRepo;
+    private InventoryTransactionRepository txRepo;
+    private DemandForecastingRepository forecastRepo;
+    private ForecastParametersRepository parametersRepo;
+    private DemandForecastBatchService service;
+
+    private final List<DemandForecasting> saved = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        productRepo = mock(ProductRepository.class);
+        txRepo = mock(InventoryTransactionRepository.class);
+        forecastRepo = mock(DemandForecastingRepository.class);
+
+        when(productRepo.getReferenceById(any())).thenAnswer(inv ->
+                Product.builder().productId(inv.getArgument(0)).build());
+        when(forecastRepo.saveAll(anyList())).thenAnswer(inv -> {
+            List<DemandForecasting> rows = inv.getArgument(0);
+            chunkSizes.add(rows.size());
+            saved.addAll(rows);
+            return rows;
+        });
+
+        parametersRepo = mock(ForecastParametersRepository.class);
+
+        service = new DemandForecastBatchService(new DemandHistoryLoader(txRepo, productRepo), productRepo,
+                forecastRepo, parametersRepo, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(service, "parallelism", 4);
+        ReflectionTestUtils.setField(service, "leafSize", 1);
+        ReflectionTestUtils.setField(service, "writeChunkSize", 2);
+        ReflectionTestUtils.invokeMethod(service, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+    }
+
+    @Test
+    void forecastsEveryProductAndWritesInChunks() throws Exception {
+        LocalDate today = LocalDate.now();
+
+        List<DailyOutTotal> rows = new ArrayList<>();
+        for (int d = 0; d < 90; d++) rows.add(new Row(1L, d, 5L));
+        rows.add(new Row(2L, 10, 30L));
+        rows.add(new Row(2L, 80, 15L));
+        rows.add(new Row(4L, 3, 99L)); // deleted product, not in the id list
+        rows.add(new Row(5L, -1, 7L)); // outside the window
+
+        when(productRepo.findAllIds()).thenReturn(List.of(1L, 2L, 3L, 5L));
+        when(txRepo.streamDailyTotals(eq("OUT"), any(), any())).thenReturn(rows.stream());
+
+        service.start();
+        ForecastBatchProgress progress = awaitFinished();
+
+        assertEquals("DONE", progress.state());
+        assertEquals(4, progress.productsTotal());
+        assertEquals(4, progress.productsForecast());
+        assertEquals(4, progress.rowsWritten());
+        assertEquals(today.plusDays(30), progress.targetDate());
+        String runId = saved.get(0).getRunId();
+        assertNotNull(runId);
+        assertTrue(saved.stream().allMatch(f -> runId.equals(f.getRunId())));
+        verify(forecastRepo).deleteOtherCatalogRuns(today.plusDays(30), runId);
+        verify(forecastRepo, never()).deleteRun(any());
+        assertEquals(List.of(2, 2), chunkSizes);
+
+        Map<Long, DemandForecasting> byProduct = new HashMap<>();
+        for (DemandForecasting f : saved) byProduct.put(f.getProduct().getProductId(), f);
+        assertEquals(Set.of(1L, 2L, 3L, 5L), byProduct.keySet());
+
+        assertEquals(expected(dailyOf(Map.of())), byProduct.get(3L).getForecastedQty());
+        assertEquals(new BigDecimal("0.00"), byProduct.get(3L).getConfScore());
+        assertEquals(0, byProduct.get(5L).getForecastedQty());
+
+        assertEquals(150, byProduct.get(1L).getForecastedQty());
+        assertEquals(new BigDecimal("1.00"), byProduct.get(1L).getConfScore());
+
+        assertEquals(expected(dailyOf(Map.of(10, 30.0, 80, 15.0))), byProduct.get(2L).getForecastedQty());
+        assertEquals(new BigDecimal("0.02"), byProduct.get(2L).getConfScore());
+        assertTrue(saved.stream().allMatch(f -> today.plusDays(30).equals(f.getTargetDate())));
+    }
+
+    @Test
+    void tunedParametersReplaceTheDefaults() throws Exception {
+        Map<Integer, Double> sales = new HashMap<>();
+        List<DailyOutTotal> rows = new ArrayList<>();
+        for (int d = 0; d < 90; d++) sales.put(d, d % 7 == 5 ? 40.0 : 5 + d / 10);
+        // Ordered by product, as the streaming query returns them
+        for (long productId : new long[]{1L, 2L}) {
+            sales.forEach((d, qty) -> rows.add(new Row(productId, d, qty.longValue())));
+        }
+        when(productRepo.findAllIds()).thenReturn(List.of(1L, 2L));
+        when(txRepo.streamDailyTotals(eq("OUT"), any(), any())).thenReturn(rows.stream());
+        when(parametersRepo.findAll()).thenReturn(List.of(ForecastParameters.builder()
+                .productId(2L).alpha(0.9).beta(0.0).gamma(0.5).build()));
+
+        service.start();
+        assertEquals("DONE", awaitFinished().state());
+
+        double[] history = new double[90];
+        for (int d = 0; d < 90; d++) history[d] = sales.get(d);
+        int defaults = (int) Math.ceil(new HoltWinters(7, 30).fit(history, 90).forecastTotal());
+        int tuned = (int) Math.ceil(new HoltWinters(7, 30, 0.9, 0.0, 0.5).fit(history, 90).forecastTotal());
+        assertNotEquals(defaults, tuned);
+
+        Map<Long, Integer> qtyByProduct = new HashMap<>();
+        for (DemandForecasting f : saved) qtyByProduct.put(f.getProduct().getProductId(), f.getForecastedQty());
+        assertEquals(defaults, qtyByProduct.get(1L));
+        assertEquals(tuned, qtyByProduct.get(2L));
+    }
+
+    @Test
+    void failedWriteKeepsThePreviousBatch() throws Exception {
+        when(productRepo.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(txRepo.streamDailyTotals(any(), any(), any())).thenAnswer(inv -> Stream.empty());
+        when(forecastRepo.saveAll(anyList()))
+                .thenAnswer(inv -> {
+                    List<DemandForecasting> rows = inv.getArgument(0);
+                    saved.addAll(rows);
+                    return rows;
+                })
+                .thenThrow(new IllegalStateException("connection lost"));
+
+        service.start();
+        ForecastBatchProgress progress = awaitFinished();
+
+        assertEquals("FAILED", progress.state());
+        assertEquals(2, progress.rowsWritten());
+        verify(forecastRepo, never()).deleteOtherCatalogRuns(any(), any());
+        verify(forecastRepo).deleteRun(saved.get(0).getRunId());
+    }
+
+    @Test
+    void onlyOneRunAtATime() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(productRepo.findAllIds()).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        when(txRepo.streamDailyTotals(any(), any(), any())).thenAnswer(inv -> Stream.empty());
+
+        assertEquals("RUNNING", service.start().state());
+        assertThrows(ConflictException.class, () -> service.start());
+
+        release.countDown();
+        assertEquals("DONE", awaitFinished().state());
+        service.start();
+        assertEquals("DONE", awaitFinished().state());
+    }
+
+    private ForecastBatchProgress awaitFinished() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        ForecastBatchProgress progress = service.progress();
+        while (progress.finishedAt() == null) {
+            if (System.nanoTime() > deadline) fail("batch did not finish: " + progress);
+            Thread.sleep(10);
+            progress = service.progress();
+        }
+        return progress;
+    }
+
+    private static List<Double> dailyOf(Map<Integer, Double> sales) {
+        List<Double> days = new ArrayList<>(Collections.nCopies(90, 0.0));
+        sales.forEach(days::set);
+        return days;
+    }
+
+    private static int expected(List<Double> history) {
+        return (int) Math.ceil(HoltWinters.predictNext30Days(history, 7));
+    }
+
+    private record Row(Long getProductId, Integer getDayIndex, Long getQuantity) implements DailyOutTotal {}
+}
@@ -0,0 +1,171 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.dto.intel.forecast.ForecastResponse;
+import com.supplymind.platform_core.service.intel.DemandForecastCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Forecast cache: hits within the day, per-product invalidation, one computation for concurrent misses,
+ * and no caching or sharing of a result that an OUT movement overtook.
+ */
+class DemandForecastCacheTest {
+
+    private DemandForecastCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    @BeforeEach
+    void setUp() {
+        cache = new DemandForecastCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cache, "ttlHours", 24L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void servesTheSameForecastUntilTheProductIsInvalidated() {
+        ForecastResponse first = cache.get(1L, this::forecast);
+        assertSame(first, cache.get(1L, this::forecast));
+        cache.get(2L, this::forecast);
+        assertEquals(2, loads.get());
+
+        cache.invalidate(1L);
+        assertNotSame(first, cache.get(1L, this::forecast));
+        cache.get(2L, this::forecast);
+        assertEquals(3, loads.get());
+
+        DemandForecastCache.Stats stats = cache.stats();
+        assertEquals(3, stats.computed());
+        assertEquals(2, stats.cache().hits());
+        assertEquals(3, stats.cache().misses());
+        assertEquals(0.4, stats.cache().hitRate(), 1e-9);
+        assertEquals(1, stats.invalidations());
+
+        cache.invalidateAll();
+        cache.get(2L, this::forecast);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void concurrentMissesShareOneComputation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, ForecastResponse> slow = id -> {
+            await(release);
+            return forecast(id);
+        };
+
+        Future<ForecastResponse> a = pool.submit(() -> cache.get(1L, slow));
+        waitFor(() -> cache.stats().inFlight() == 1);
+        Future<ForecastResponse> b = pool.submit(() -> cache.get(1L, slow));
+        waitFor(() -> cache.stats().sharedWaits() == 1);
+
+        release.countDown();
+        assertSame(a.get(5, TimeUnit.SECONDS), b.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(0, cache.stats().inFlight());
+    }
+
+    @Test
+    void resultOvertakenByAnOutIsReturnedButNotCached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<ForecastResponse> stale = pool.submit(() -> cache.get(1L, id -> {
+            await(release);
+            return forecast(id);
+        }));
+        waitFor(() -> cache.stats().inFlight() == 1);
+
+        // A miss after the OUT committed must not join the computation that started before it
+        cache.invalidate(1L);
+        assertEquals(0, cache.stats().inFlight());
+        ForecastResponse fresh = cache.get(1L, this::forecast);
+        assertEquals(1, loads.get());
+        assertEquals(0, cache.stats().sharedWaits());
+
+        release.countDown();
+        assertNotSame(fresh, stale.get(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+        assertSame(fresh, cache.get(1L, this::forecast));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failuresReachEveryWaiterAndAreNotCached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, ForecastResponse> failing = id -> {
+            await(release);
+            throw new IllegalStateException("history unavailable");
+        };
+
+        Future<ForecastResponse> a = pool.submit(() -> cache.get(1L, failing));
+        waitFor(() -> cache.stats().inFlight() == 1);
+        Future<ForecastResponse> b = pool.submit(() -> cache.get(1L, failing));
+        waitFor(() -> cache.stats().sharedWaits() == 1);
+        release.countDown();
+
+        for (Future<ForecastResponse> f : List.of(a, b)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        assertNotNull(cache.get(1L, this::forecast));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void errorsReleaseTheFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, ForecastResponse> broken = id -> {
+            await(release);
+            throw new StackOverflowError();
+        };
+
+        Future<ForecastResponse> a = pool.submit(() -> cache.get(1L, broken));
+        waitFor(() -> cache.stats().inFlight() == 1);
+        Future<ForecastResponse> b = pool.submit(() -> cache.get(1L, broken));
+        waitFor(() -> cache.stats().sharedWaits() == 1);
+        release.countDown();
+
+        for (Future<ForecastResponse> f : List.of(a, b)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, e.getCause());
+        }
+        assertEquals(0, cache.stats().inFlight());
+        assertNotNull(cache.get(1L, this::forecast));
+    }
+
+    private ForecastResponse forecast(Long productId) {
+        loads.incrementAndGet();
+        return ForecastResponse.builder().productId(productId).predictedDemandNext30Days(10).trend("STABLE").build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("condition not reached");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.dto.core.purchaseorder.EmailDraftResponse;
+import com.supplymind.platform_core.model.auth.User;
+import com.supplymind.platform_core.model.core.*;
+import com.supplymind.platform_core.repository.core.PurchaseOrderEmailDraftRepository;
+import com.supplymind.platform_core.repository.core.PurchaseOrderRepository;
+import com.supplymind.platform_core.service.intel.AiContentService;
+import com.supplymind.platform_core.service.intel.EmailDraftService;
+import com.supplymind.platform_core.service.intel.LlmGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drafts are generated once per PO contents: repeated and concurrent reads reuse the stored or
+ * in-flight draft, and only a change to the PO triggers a new LLM call.
+ */
+class EmailDraftServiceTest {
+
+    private static final long PO_ID = 42L;
+
+    private PurchaseOrderRepository poRepo;
+    private PurchaseOrderEmailDraftRepository draftRepo;
+    private AiContentService aiContentService;
+    private EmailDraftService service;
+
+    private final Map<Long, PurchaseOrderEmailDraft> drafts = new ConcurrentHashMap<>();
+    private final AtomicInteger llmCalls = new AtomicInteger();
+    private PurchaseOrder po;
+
+    @BeforeEach
+    void setUp() {
+        poRepo = mock(PurchaseOrderRepository.class);
+        draftRepo = mock(PurchaseOrderEmailDraftRepository.class);
+        aiContentService = mock(AiContentService.class);
+
+        po = purchaseOrder(10);
+        when(poRepo.findByIdWithItems(PO_ID)).thenAnswer(inv -> Optional.of(po));
+        when(draftRepo.findById(PO_ID)).thenAnswer(inv -> Optional.ofNullable(drafts.get(PO_ID)));
+        when(draftRepo.save(any(PurchaseOrderEmailDraft.class))).thenAnswer(inv -> {
+            PurchaseOrderEmailDraft draft = inv.getArgument(0);
+            drafts.put(draft.getPoId(), draft);
+            return draft;
+        });
+        when(aiContentService.generatePurchaseOrderEmail(any(), anyString(), anyString()))
+                .thenAnswer(inv -> "<p>draft " + llmCalls.incrementAndGet() + "</p>");
+
+        service = new EmailDraftService(poRepo, draftRepo, aiContentService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.invokeMethod(service, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+    }
+
+    @Test
+    void approvalPreGeneratesAndReadsAreServedFromStorage() throws Exception {
+        service.onDraftRequested(new EmailDraftService.DraftRequested(PO_ID));
+        waitUntil(() -> drafts.containsKey(PO_ID));
+
+        EmailDraftResponse first = service.getDraft(PO_ID, "Someone Else");
+        EmailDraftResponse second = service.getDraft(PO_ID, "Someone Else");
+
+        assertEquals("<p>draft 1</p>", first.getBody());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals("Official Purchase Order PO-42", first.getSubject());
+        assertEquals("orders@acme.test", first.getToEmail());
+        assertEquals(1, llmCalls.get());
+        assertEquals(2, service.stats().storedHits());
+        // Signed by the approver, not by whoever opened the draft
+        verify(aiContentService).generatePurchaseOrderEmail(any(), eq("Ada Approver"), eq("Acme"));
+    }
+
+    @Test
+    void concurrentReadsShareOneGeneration() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // doAnswer: stubbing through when() would call the setUp answer and count a generation
+        doAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "<p>draft " + llmCalls.incrementAndGet() + "</p>";
+        }).when(aiContentService).generatePurchaseOrderEmail(any(), anyString(), anyString());
+
+        int readers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<EmailDraftResponse>> results = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                results.add(pool.submit(() -> service.getDraft(PO_ID, "Reader")));
+            }
+            waitUntil(() -> service.stats().sharedWaits() == readers - 1);
+            release.countDown();
+
+            for (Future<EmailDraftResponse> result : results) {
+                assertEquals("<p>draft 1</p>", result.get(5, TimeUnit.SECONDS).getBody());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, llmCalls.get());
+        assertEquals(0, service.stats().inFlight());
+    }
+
+    @Test
+    void changedItemsRegenerateTheDraft() {
+        assertEquals("<p>draft 1</p>", service.getDraft(PO_ID, "Reader").getBody());
+        assertEquals("<p>draft 1</p>", service.getDraft(PO_ID, "Reader").getBody());
+
+        po = purchaseOrder(25);
+
+        assertEquals("<p>draft 2</p>", service.getDraft(PO_ID, "Reader").getBody());
+        assertEquals(2, llmCalls.get());
+    }
+
+    @Test
+    void llmFailureFallsBackWithoutStoring() {
+        when(aiContentService.generatePurchaseOrderEmail(any(), anyString(), anyString()))
+                .thenThrow(new LlmGateway.LlmException("circuit open"));
+        when(aiContentService.fallbackPurchaseOrderEmail(any(), anyString(), anyString())).thenReturn("<p>template</p>");
+
+        assertEquals("<p>template</p>", service.getDraft(PO_ID, "Reader").getBody());
+        assertTrue(drafts.isEmpty(), "template must not be cached as the draft");
+        assertEquals(1, service.stats().fallbacks());
+    }
+
+    private PurchaseOrder purchaseOrder(int qty) {
+        Supplier supplier = Supplier.builder().supplierId(7L).name("Acme").contactEmail("orders@acme.test").build();
+        User approver = new User();
+        approver.setFirstName("Ada");
+        approver.setLastName("Approver");
+
+        PurchaseOrder order = PurchaseOrder.builder()
+                .poId(PO_ID)
+                .supplier(supplier)
+                .approver(approver)
+                .totalAmount(new BigDecimal("120.00"))
+                .build();
+        Product product = Product.builder().productId(3L).name("Brackets").build();
+        order.getPurchaseOrderItems().add(PurchaseOrderItem.builder()
+                .poItemId(1L).po(order).product(product).orderedQty(qty).build());
+        return order;
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.enums.PurchaseOrderStatus;
+import com.supplymind.platform_core.dto.core.purchaseorder.InboxMessage;
+import com.supplymind.platform_core.model.core.PurchaseOrder;
+import com.supplymind.platform_core.repository.core.PurchaseOrderRepository;
+import com.supplymind.platform_core.service.communication.EmailRoutingPipeline;
+import com.supplymind.platform_core.service.intel.AiStatusScanner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classification runs off the scanner thread with a concurrency cap, and replies for the same PO
+ * are applied in arrival order.
+ */
+class EmailRoutingPipelineTest {
+
+    private static final int CONCURRENCY = 3;
+
+    private PurchaseOrderRepository poRepo;
+    private AiStatusScanner aiScanner;
+    private PlatformTransactionManager txManager;
+    private EmailRoutingPipeline pipeline;
+    private final Map<Long, PurchaseOrder> orders = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        poRepo = mock(PurchaseOrderRepository.class);
+        aiScanner = mock(AiStatusScanner.class);
+        txManager = mock(PlatformTransactionManager.class);
+
+        when(poRepo.findById(any())).thenAnswer(inv -> Optional.ofNullable(orders.get((Long) inv.getArgument(0))));
+        when(poRepo.save(any(PurchaseOrder.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        pipeline = new EmailRoutingPipeline(poRepo, aiScanner, new TransactionTemplate(txManager));
+        ReflectionTestUtils.setField(pipeline, "classifyConcurrency", CONCURRENCY);
+        ReflectionTestUtils.setField(pipeline, "classifyQueueCapacity", 50);
+        ReflectionTestUtils.setField(pipeline, "persistQueueCapacity", 50);
+        ReflectionTestUtils.setField(pipeline, "enqueueTimeoutSeconds", 5L);
+        ReflectionTestUtils.invokeMethod(pipeline, "start");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(pipeline, "stop");
+    }
+
+    @Test
+    void classificationIsCappedAndDoesNotBlockTheScanner() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(aiScanner.scanEmailForStatus(anyString())).thenAnswer(inv -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } finally {
+                running.decrementAndGet();
+            }
+            return new AiStatusScanner.StatusScanResult("CONFIRMED", null);
+        });
+
+        int replies = 10;
+        long start = System.nanoTime();
+        for (long poId = 1; poId <= replies; poId++) {
+            orders.put(poId, order(poId));
+            assertTrue(pipeline.submitSupplierReply(poId, reply("Confirmed")));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000,
+                "submitting must not wait for the LLM");
+
+        Thread.sleep(300);
+        assertEquals(CONCURRENCY, maxRunning.get());
+        assertEquals(CONCURRENCY, pipeline.stats().classifyInFlight());
+
+        release.countDown();
+        verify(poRepo, timeout(5000).times(replies)).save(any(PurchaseOrder.class));
+        orders.values().forEach(po -> assertEquals(PurchaseOrderStatus.CONFIRMED, po.getStatus()));
+        verify(txManager, times(replies)).commit(any());
+
+        EmailRoutingPipeline.StageStats classify = pipeline.stats().stages().stream()
+                .filter(s -> s.stage() == EmailRoutingPipeline.Stage.CLASSIFY).findFirst().orElseThrow();
+        assertEquals(replies, classify.processed());
+    }
+
+    @Test
+    void laterReplyForTheSamePoWins() {
+        orders.put(7L, order(7L));
+        when(aiScanner.scanEmailForStatus("Confirmed")).thenAnswer(inv -> {
+            Thread.sleep(300); // the older reply is the slow one
+            return new AiStatusScanner.StatusScanResult("CONFIRMED", null);
+        });
+        when(aiScanner.scanEmailForStatus("Shipped today"))
+                .thenReturn(new AiStatusScanner.StatusScanResult("SHIPPED", null));
+
+        pipeline.submitSupplierReply(7L, reply("Confirmed"));
+        pipeline.submitSupplierReply(7L, reply("Shipped today"));
+
+        verify(poRepo, timeout(5000).times(2)).save(any(PurchaseOrder.class));
+        assertEquals(PurchaseOrderStatus.SHIPPED, orders.get(7L).getStatus());
+    }
+
+    private PurchaseOrder order(Long poId) {
+        return PurchaseOrder.builder().poId(poId).status(PurchaseOrderStatus.EMAIL_SENT).build();
+    }
+
+    private InboxMessage reply(String snippet) {
+        return InboxMessage.builder()
+                .from("sales@acme.test")
+                .subject("Re: PO")
+                .body(snippet)
+                .snippet(snippet)
+                .build();
+    }
+}
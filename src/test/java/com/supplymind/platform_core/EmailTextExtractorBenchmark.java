@@ -0,0 +1,92 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.util.EmailTextExtractor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regex pipeline vs. single-pass extractor on Gmail-style reply threads.
+ * Run from the IDE (main) or: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.supplymind.platform_core.EmailTextExtractorBenchmark
+ * Compare time/op and gc.alloc.rate.norm between the two methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTextExtractorBenchmark {
+
+    /** Approximate HTML size in bytes: short reply, typical thread, long thread with pasted tables. */
+    @Param({"5120", "51200", "512000"})
+    public int size;
+
+    private String html;
+
+    @Setup
+    public void setUp() {
+        html = buildThread(size);
+    }
+
+    @Benchmark
+    public void legacyRegex(Blackhole bh) {
+        String text = LegacyEmailText.htmlToText(html);
+        bh.consume(LegacyEmailText.cutReplyHistory(text));
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole bh) {
+        String text = EmailTextExtractor.htmlToText(html);
+        bh.consume(EmailTextExtractor.cutReplyHistory(text));
+    }
+
+    /**
+     * A supplier reply as Gmail sends it: the new message, then nested quote blocks with the earlier
+     * thread, padded with formatted paragraphs until roughly {@code targetBytes}.
+     */
+    static String buildThread(int targetBytes) {
+        StringBuilder sb = new StringBuilder(targetBytes + 1024);
+        sb.append("<div dir=\"ltr\"><p>Hi team,</p><p>We confirm PO-1042. 40 units ship on Friday, ")
+                .append("the remaining 10 follow next week.&nbsp;Tracking &amp; invoice attached.</p>")
+                .append("<div>Best regards,<br>Anna Kowalski<br/>Acme Industrial Supply</div></div><br>");
+
+        int round = 0;
+        while (sb.length() < targetBytes) {
+            sb.append("<div class=\"gmail_quote\"><div dir=\"ltr\" class=\"gmail_attr\">On Mon, Jan ")
+                    .append(round % 28 + 1).append(", 2025 at 9:")
+                    .append(10 + round % 50).append(" AM &lt;buyer@supplymind.test&gt; wrote:<br></div>")
+                    .append("<blockquote class=\"gmail_quote\" style=\"margin:0px 0px 0px 0.8ex;")
+                    .append("border-left:1px solid rgb(204,204,204);padding-left:1ex\">");
+            for (int p = 0; p < 6; p++) {
+                sb.append("<p style=\"font-family:Arial,sans-serif;font-size:13px\">Line ").append(p)
+                        .append(": SKU-").append(1000 + round * 7 + p)
+                        .append(" qty <b>").append(5 + p).append("</b> @ &quot;$12.50&quot; &ndash; ")
+                        .append("please confirm lead time &amp; packaging.</p>");
+            }
+            sb.append("<table><tr><td>Subtotal</td><td>$").append(250 + round).append(".00</td></tr></table>")
+                    .append("</blockquote></div>");
+            if (round % 3 == 2) {
+                sb.append("<br>\n-----Original Message-----\nFrom: procurement@supplymind.test<br>")
+                        .append("Sent: Monday<br>____________________<br>");
+            }
+            round++;
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EmailTextExtractorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
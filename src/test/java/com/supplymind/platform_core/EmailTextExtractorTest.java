@@ -0,0 +1,82 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.util.EmailTextExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The single-pass extractor must produce exactly what the old regex pipeline produced
+ * (apart from the deliberate single entity decode).
+ */
+class EmailTextExtractorTest {
+
+    private static final String[] TOKENS = {
+            "<br>", "<BR />", "<br/>", "<br  >", "<br class=\"x\">", "</p>", "</P>", "</div>", "</DIV>", "<div>",
+            "<div class=\"gmail_quote\">", "<DIV CLASS=\"GMAIL_QUOTE\">", "<p>", "text", "Hello", " ", "\n", "\r\n", "\t",
+            "&nbsp;", "&amp;", "&quot;", "&gt;", "&lt;", "&foo;", "&", "On Mon, Jan 1 Bob wrote:", "On", "wrote:",
+            "From: x", "From:", "Sent: y", "Sent:\n", "-----Original Message-----", "_____", "___", "<a href=\"x\">",
+            ">", "<>", "ON\tx WROTE:", "\u2028", "\u00e9"
+    };
+
+    @Test
+    void matchesLegacyOnTypicalReplies() {
+        List<String> fixtures = List.of(
+                "<div dir=\"ltr\">Confirmed, shipping Friday.<br><br>Thanks,<br>Anna</div>"
+                        + "<br><div class=\"gmail_quote\"><div dir=\"ltr\">On Mon, Jan 6 wrote:<br></div>"
+                        + "<blockquote>Please confirm PO-12</blockquote></div>",
+                "<p>Price is &lt;= &quot;$5&quot; &amp; stock&nbsp;ok</p><p>Regards</p>",
+                "<html><body><p>Delayed</p>\nFrom: buyer@supplymind.test\nSent: Monday</body></html>",
+                "Plain reply\n-----Original Message-----\nolder text",
+                "Line one\n______________\nsignature",
+                "a < b and c > d <> e",
+                "   <br/>  ",
+                ""
+        );
+        for (String html : fixtures) {
+            assertEquivalent(html);
+        }
+        assertEquivalent(EmailTextExtractorBenchmark.buildThread(5 * 1024));
+        assertEquivalent(EmailTextExtractorBenchmark.buildThread(50 * 1024));
+    }
+
+    @Test
+    void matchesLegacyOnRandomTokenStrings() {
+        Random random = new Random(42);
+        for (int t = 0; t < 20_000; t++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(30);
+            for (int k = 0; k < len; k++) sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+            String html = sb.toString();
+            // double-encoded entities are where the two intentionally differ
+            if (html.contains("&amp;quot;") || html.contains("&amp;gt;") || html.contains("&amp;lt;")) continue;
+            assertEquivalent(html);
+        }
+    }
+
+    @Test
+    void decodesEntitiesOnlyOnce() {
+        assertEquals("&lt;b&gt; & \"", EmailTextExtractor.htmlToText("&amp;lt;b&amp;gt; &amp; &quot;"));
+        // the old pipeline turned escaped markup back into markup
+        assertEquals("<b> & \"", LegacyEmailText.htmlToText("&amp;lt;b&amp;gt; &amp; &quot;"));
+    }
+
+    @Test
+    void cutsReplyHistory() {
+        assertEquals("Confirmed", EmailTextExtractor.cutReplyHistory("Confirmed\nOn Tue, Anna wrote:\n> old"));
+        assertEquals("Confirmed", EmailTextExtractor.cutReplyHistory("Confirmed \nfrom: anna@acme.test"));
+        assertEquals("On Tue wrote: inline", EmailTextExtractor.cutReplyHistory("On Tue wrote: inline"));
+        assertNull(EmailTextExtractor.cutReplyHistory(null));
+    }
+
+    private static void assertEquivalent(String html) {
+        String expected = LegacyEmailText.htmlToText(html);
+        String actual = EmailTextExtractor.htmlToText(html);
+        assertEquals(expected, actual, () -> "htmlToText differs for: " + html);
+        assertEquals(LegacyEmailText.cutReplyHistory(expected), EmailTextExtractor.cutReplyHistory(actual),
+                () -> "cutReplyHistory differs for: " + html);
+    }
+}
@@ -0,0 +1,172 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.enums.InventoryTransactionType;
+import com.supplymind.platform_core.dto.intel.forecast.DaySalesTotal;
+import com.supplymind.platform_core.model.core.InventoryTransaction;
+import com.supplymind.platform_core.model.core.Product;
+import com.supplymind.platform_core.model.core.Warehouse;
+import com.supplymind.platform_core.repository.core.InventoryTransactionRepository;
+import com.supplymind.platform_core.repository.core.ProductRepository;
+import com.supplymind.platform_core.repository.core.WarehouseRepository;
+import com.supplymind.platform_core.service.intel.DemandForecastingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Loads a synthetic transaction history (10M rows by default) and compares the old forecast input path
+ * (every OUT entity for 90 days, bucketed in Java) with the SQL daily aggregate on the same products.
+ * Opt-in because seeding takes minutes:
+ * {@code mvn test -Dtest=ForecastHistoryAggregationTest -Dforecast.history.benchmark=true [-Dforecast.history.rows=10000000]}
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "forecast.history.benchmark", matches = "true")
+class ForecastHistoryAggregationTest {
+
+    private static final int PRODUCTS = 100;
+    private static final int SAMPLED_PRODUCTS = 20;
+    private static final int INSERT_ROWS_PER_STATEMENT = 2000;
+    private static final int SPAN_DAYS = 120; // older rows must be filtered out by the index range scan
+
+    @Autowired
+    private InventoryTransactionRepository transactionRepository;
+
+    @Autowired
+    private DemandForecastingService forecastingService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private WarehouseRepository warehouseRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Warehouse warehouse;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        warehouse = warehouseRepo.save(Warehouse.builder()
+                .locationName("Forecast WH " + UUID.randomUUID())
+                .build());
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(productRepo.save(Product.builder()
+                    .sku("FC-" + UUID.randomUUID().toString().substring(0, 8))
+                    .name("Forecast Product " + i)
+                    .unitPrice(BigDecimal.ONE)
+                    .reorderPoint(0)
+                    .build()));
+        }
+        seed(Long.getLong("forecast.history.rows", 10_000_000L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Product product : products) {
+            jdbcTemplate.update("DELETE FROM inventory_transactions WHERE product_id = ?", product.getProductId());
+            productRepo.delete(product);
+        }
+        warehouseRepo.delete(warehouse);
+    }
+
+    @Test
+    void sqlAggregateMatchesJavaBucketingAndIsFaster() {
+        List<Product> sample = products.subList(0, SAMPLED_PRODUCTS);
+        Instant since = Instant.now().minus(90, ChronoUnit.DAYS);
+
+        // Warm up both paths once so the comparison is not about connection or plan-cache setup
+        legacyDaily(sample.get(0).getProductId(), since);
+        aggregatedDaily(sample.get(0).getProductId(), since);
+
+        long legacyNanos = 0;
+        long aggregatedNanos = 0;
+        for (Product product : sample) {
+            long start = System.nanoTime();
+            int[] legacy = legacyDaily(product.getProductId(), since);
+            legacyNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int[] aggregated = aggregatedDaily(product.getProductId(), since);
+            aggregatedNanos += System.nanoTime() - start;
+
+            assertArrayEquals(legacy, aggregated, "daily buckets for product " + product.getProductId());
+        }
+
+        long forecastStart = System.nanoTime();
+        for (Product product : sample) forecastingService.calculateForecast(product.getProductId());
+        long forecastNanos = System.nanoTime() - forecastStart;
+
+        System.out.printf("Forecast history, %d products: entities + Java bucketing %.1f ms/product, " +
+                        "SQL daily aggregate %.1f ms/product (%.1fx), calculateForecast %.1f ms/product%n",
+                SAMPLED_PRODUCTS, legacyNanos / 1e6 / SAMPLED_PRODUCTS, aggregatedNanos / 1e6 / SAMPLED_PRODUCTS,
+                (double) legacyNanos / aggregatedNanos, forecastNanos / 1e6 / SAMPLED_PRODUCTS);
+    }
+
+    // What calculateForecast did before: load every OUT entity and group by day index in Java
+    private int[] legacyDaily(Long productId, Instant since) {
+        int[] daily = new int[90];
+        for (InventoryTransaction t : transactionRepository.findSalesHistory(productId, InventoryTransactionType.OUT, since)) {
+            int index = (int) ChronoUnit.DAYS.between(since, t.getTimestamp());
+            if (index >= 0 && index < 90) daily[index] += t.getQuantity();
+        }
+        return daily;
+    }
+
+    private int[] aggregatedDaily(Long productId, Instant since) {
+        int[] daily = new int[90];
+        for (DaySalesTotal day : transactionRepository.sumDailyQuantities(
+                productId, InventoryTransactionType.OUT.name(), since, since.plus(90, ChronoUnit.DAYS))) {
+            if (day.getDayIndex() >= 0 && day.getDayIndex() < 90) daily[day.getDayIndex()] = day.getQuantity().intValue();
+        }
+        return daily;
+    }
+
+    private void seed(long rows) {
+        long nextId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(transaction_id), 0) + 1 FROM inventory_transactions", Long.class);
+        Random random = new Random(42);
+        long now = Instant.now().toEpochMilli();
+        long spanMillis = ChronoUnit.DAYS.getDuration().toMillis() * SPAN_DAYS;
+
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO inventory_transactions (transaction_id, product_id, warehouse_id, type, quantity, timestamp) VALUES ");
+        for (int i = 0; i < INSERT_ROWS_PER_STATEMENT; i++) sql.append(i == 0 ? "" : ",").append("(?,?,?,?,?,?)");
+        String insert = sql.toString();
+
+        long written = 0;
+        while (written < rows) {
+            int batch = (int) Math.min(INSERT_ROWS_PER_STATEMENT, rows - written);
+            String statement = batch == INSERT_ROWS_PER_STATEMENT ? insert
+                    : insert.substring(0, insert.indexOf("VALUES ") + 7) + "(?,?,?,?,?,?)" + ",(?,?,?,?,?,?)".repeat(batch - 1);
+
+            Object[] args = new Object[batch * 6];
+            for (int i = 0; i < batch; i++) {
+                args[i * 6] = nextId++;
+                args[i * 6 + 1] = products.get(random.nextInt(PRODUCTS)).getProductId();
+                args[i * 6 + 2] = warehouse.getWarehouseId();
+                args[i * 6 + 3] = random.nextInt(5) == 0 ? InventoryTransactionType.IN.name() : InventoryTransactionType.OUT.name();
+                args[i * 6 + 4] = 1 + random.nextInt(20);
+                args[i * 6 + 5] = new Timestamp(now - (long) (random.nextDouble() * spanMillis));
+            }
+            jdbcTemplate.update(statement, args);
+            written += batch;
+        }
+
+        // Keep the pooled id sequence ahead of the ids written directly here
+        jdbcTemplate.update("UPDATE inventory_transactions_seq SET next_val = GREATEST(next_val, ?)", nextId + 50);
+    }
+}
@@ -0,0 +1,214 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.math.HoltWinters;
+import com.supplymind.platform_core.dto.intel.forecast.DailyOutTotal;
+import com.supplymind.platform_core.model.intel.ForecastState;
+import com.supplymind.platform_core.repository.core.InventoryTransactionRepository;
+import com.supplymind.platform_core.repository.core.ProductRepository;
+import com.supplymind.platform_core.repository.intel.ForecastParametersRepository;
+import com.supplymind.platform_core.repository.intel.ForecastStateRepository;
+import com.supplymind.platform_core.service.intel.DemandForecastCache;
+import com.supplymind.platform_core.service.intel.DemandHistoryLoader;
+import com.supplymind.platform_core.service.intel.ForecastStateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Nightly rollover of the incremental forecast state: new products are seeded from 90 days, existing state
+ * is advanced by the missed days only and ends up where a full refit would, and the state restores for reads.
+ * The nightly trigger hands the rollover to its own thread.
+ */
+class ForecastStateServiceTest {
+
+    private final LocalDate yesterday = LocalDate.now().minusDays(1);
+
+    private ProductRepository productRepo;
+    private InventoryTransactionRepository txRepo;
+    private ForecastStateRepository stateRepo;
+    private DemandForecastCache forecastCache;
+    private ForecastStateService service;
+
+    private final List<Object[]> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productRepo = mock(ProductRepository.class);
+        txRepo = mock(InventoryTransactionRepository.class);
+        stateRepo = mock(ForecastStateRepository.class);
+        forecastCache = mock(DemandForecastCache.class);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            written.addAll(rows);
+            return new int[rows.size()];
+        });
+
+        service = new ForecastStateService(new DemandHistoryLoader(txRepo, productRepo), stateRepo,
+                mock(ForecastParametersRepository.class), jdbcTemplate, forecastCache);
+        ReflectionTestUtils.setField(service, "writeChunkSize", 100);
+    }
+
+    @Test
+    void seedsNewProductsAndRestoresThemForForecasts() {
+        double[] sales = series(90, 3);
+        when(productRepo.findAllIds()).thenReturn(List.of(1L));
+        when(txRepo.streamDailyTotals(eq("OUT"), any(), any())).thenAnswer(history(1L, sales, yesterday.minusDays(89)));
+
+        assertEquals(1, service.rollover(yesterday));
+        verify(txRepo).streamDailyTotals("OUT", startOf(yesterday.minusDays(89)), startOf(yesterday.plusDays(1)));
+
+        ForecastState state = toState(written.get(0));
+        assertEquals(yesterday, state.getLastDay());
+        HoltWinters refit = new HoltWinters(7, 30).fit(sales, 90);
+        assertEquals(refit.level(), state.getLevel());
+        assertEquals(90, state.getObservations());
+
+        when(stateRepo.findById(1L)).thenReturn(Optional.of(state));
+        double[] history = new double[90];
+        HoltWinters restored = service.restore(1L, history).orElseThrow();
+        assertEquals(refit.forecastTotal(), restored.forecastTotal());
+        assertArrayEquals(sales, history);
+
+        // A state that missed last night's rollover is not served
+        state.setLastDay(yesterday.minusDays(1));
+        assertTrue(service.restore(1L, new double[90]).isEmpty());
+    }
+
+    @Test
+    void advancesExistingStateByTheMissedDaysOnly() {
+        double[] sales = series(92, 9); // sales[91] = yesterday
+        double[] firstNinety = Arrays.copyOf(sales, 90);
+        HoltWinters before = new HoltWinters(7, 30).fit(firstNinety, 90);
+
+        // Product 1 was seeded two nights ago and missed a rollover since
+        when(productRepo.findAllIds()).thenReturn(List.of(1L));
+        when(txRepo.streamDailyTotals(eq("OUT"), any(), any())).thenAnswer(history(1L, firstNinety, yesterday.minusDays(91)));
+        service.rollover(yesterday.minusDays(2));
+        ForecastState seeded = toState(written.remove(0));
+        assertEquals(before.level(), seeded.getLevel());
+
+        // Product 2 is already current and must not be rewritten
+        when(productRepo.findAllIds()).thenReturn(List.of(1L, 2L));
+        when(stateRepo.findAll()).thenReturn(List.of(seeded,
+                ForecastState.builder().productId(2L).lastDay(yesterday).build()));
+        when(txRepo.streamDailyTotals(eq("OUT"), any(), any())).thenAnswer(history(1L, sales, yesterday.minusDays(91)));
+
+        assertEquals(1, service.rollover(yesterday));
+        verify(txRepo).streamDailyTotals("OUT", startOf(yesterday.minusDays(1)), startOf(yesterday.plusDays(1)));
+
+        assertEquals(1, written.size());
+        ForecastState advanced = toState(written.get(0));
+        assertEquals(1L, advanced.getProductId());
+        assertEquals(yesterday, advanced.getLastDay());
+
+        HoltWinters refit = new HoltWinters(7, 30).fit(sales, 92);
+        assertEquals(92, advanced.getObservations());
+        assertEquals(refit.level(), advanced.getLevel());
+        assertEquals(refit.trend(), advanced.getTrend());
+
+        when(stateRepo.findById(1L)).thenReturn(Optional.of(advanced));
+        double[] history = new double[90];
+        assertEquals(refit.forecastTotal(), service.restore(1L, history).orElseThrow().forecastTotal());
+        assertArrayEquals(Arrays.copyOfRange(sales, 2, 92), history);
+
+        // Nothing left to do
+        when(stateRepo.findAll()).thenReturn(List.of(advanced, ForecastState.builder().productId(2L).lastDay(yesterday).build()));
+        assertEquals(0, service.rollover(yesterday));
+    }
+
+    @Test
+    void nightlyRolloverRunsOffTheSchedulerThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(productRepo.findAllIds()).thenAnswer(inv -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+        ReflectionTestUtils.invokeMethod(service, "init");
+        try {
+            service.nightly();
+            assertTrue(started.await(5, TimeUnit.SECONDS), "rollover started in the background");
+
+            // Still running: the next trigger is skipped instead of queued
+            service.nightly();
+            release.countDown();
+            verify(productRepo, timeout(5000).times(1)).findAllIds();
+        } finally {
+            ReflectionTestUtils.invokeMethod(service, "shutdown");
+        }
+    }
+
+    @Test
+    void salesDropOnlyForecastsThatReadToday() {
+        // Product 1 is served from yesterday's state, which today's sales do not change; 2 and 3 are refitted
+        when(stateRepo.findProductIdsRolledOverTo(any(), eq(yesterday))).thenReturn(List.of(1L));
+
+        service.onSalesRecorded(new DemandForecastCache.SalesRecorded(Set.of(1L, 2L, 3L)));
+
+        verify(forecastCache).invalidate(2L);
+        verify(forecastCache).invalidate(3L);
+        verify(forecastCache, never()).invalidate(1L);
+    }
+
+    private static double[] series(int days, long seed) {
+        Random random = new Random(seed);
+        double[] sales = new double[days];
+        for (int i = 0; i < days; i++) sales[i] = random.nextInt(5) == 0 ? 0 : (i % 7 == 4 ? 30 : 8) + random.nextInt(6);
+        return sales;
+    }
+
+    // Answers the daily totals query the way the database does: days counted from the bound window start
+    private static Answer<Stream<DailyOutTotal>> history(Long productId, double[] sales, LocalDate firstDay) {
+        return inv -> {
+            LocalDate since = LocalDate.ofInstant(inv.getArgument(1), ZoneId.systemDefault());
+            LocalDate until = LocalDate.ofInstant(inv.getArgument(2), ZoneId.systemDefault());
+            List<DailyOutTotal> rows = new ArrayList<>();
+            for (int d = 0; d < sales.length; d++) {
+                LocalDate day = firstDay.plusDays(d);
+                if (sales[d] > 0 && !day.isBefore(since) && day.isBefore(until)) {
+                    rows.add(new Row(productId, (int) ChronoUnit.DAYS.between(since, day), (long) sales[d]));
+                }
+            }
+            return rows.stream();
+        };
+    }
+
+    private record Row(Long getProductId, Integer getDayIndex, Long getQuantity) implements DailyOutTotal {}
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    // Row layout of the upsert: product_id, level, trend, seasonals, observations, daily_window, last_day, updated_at
+    private static ForecastState toState(Object[] row) {
+        return ForecastState.builder()
+                .productId((Long) row[0])
+                .level((Double) row[1])
+                .trend((Double) row[2])
+                .seasonals((byte[]) row[3])
+                .observations((Integer) row[4])
+                .dailyWindow((byte[]) row[5])
+                .lastDay(((Date) row[6]).toLocalDate())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.math.HoltWinters;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boxed List forecast vs. the reusable primitive engine on 90 days of history.
+ * Run from the IDE (main) or: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.supplymind.platform_core.HoltWintersBenchmark
+ * gc.alloc.rate.norm for {@code primitive} should be ~0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoltWintersBenchmark {
+
+    private static final int DAYS = 90;
+
+    private List<Double> boxedHistory;
+    private double[] history;
+    private HoltWinters model;
+    private double[] out;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        history = new double[DAYS];
+        boxedHistory = new ArrayList<>(DAYS);
+        for (int i = 0; i < DAYS; i++) {
+            history[i] = random.nextInt(40) + (i % 7 == 5 ? 30 : 0);
+            boxedHistory.add(history[i]);
+        }
+        model = new HoltWinters(7, 30);
+        out = new double[30];
+    }
+
+    @Benchmark
+    public void legacyList(Blackhole bh) {
+        bh.consume(LegacyHoltWinters.predictNext30Days(boxedHistory, 7));
+        bh.consume(LegacyHoltWinters.detectTrend(boxedHistory));
+    }
+
+    @Benchmark
+    public void primitive(Blackhole bh) {
+        bh.consume(model.fit(history, DAYS).forecastInto(out));
+        bh.consume(HoltWinters.detectTrend(history, DAYS));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HoltWintersBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,133 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.math.HoltWinters;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The primitive engine must reproduce the List-based implementation and not allocate per forecast.
+ */
+class HoltWintersTest {
+
+    private static final int DAYS = 90;
+
+    @Test
+    void matchesLegacyImplementationOnRandomSeries() {
+        Random random = new Random(7);
+        HoltWinters model = new HoltWinters(7, 30);
+        double[] history = new double[DAYS];
+
+        for (int run = 0; run < 2_000; run++) {
+            int length = random.nextInt(DAYS + 1);
+            List<Double> boxed = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                history[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(50) + 10 * Math.sin(i / 7.0 * Math.PI);
+                boxed.add(history[i]);
+            }
+
+            double expected = LegacyHoltWinters.predictNext30Days(boxed, 7);
+            assertEquals(expected, model.fit(history, length).forecastTotal(), 1e-9, "run " + run);
+            assertEquals(expected, HoltWinters.predictNext30Days(boxed, 7), 1e-9, "adapter, run " + run);
+            assertEquals(LegacyHoltWinters.detectTrend(boxed), HoltWinters.detectTrend(history, length));
+            assertEquals(LegacyHoltWinters.detectTrend(boxed), HoltWinters.detectTrend(boxed));
+        }
+    }
+
+    @Test
+    void outputBufferHoldsTheDailyForecast() {
+        double[] history = new double[28];
+        for (int i = 0; i < history.length; i++) history[i] = i % 7 == 5 ? 40 : 10; // weekly peak
+
+        HoltWinters model = new HoltWinters(7, 14).fit(history, history.length);
+        double[] out = new double[20];
+        double total = model.forecastInto(out);
+
+        double sum = 0;
+        for (int i = 0; i < 14; i++) {
+            assertTrue(out[i] >= 0);
+            sum += out[i];
+        }
+        assertEquals(model.forecastTotal(), total, 1e-9);
+        assertEquals(sum, total, 1e-9);
+        assertEquals(0.0, out[14], "only the horizon is written");
+        // 28 days of history = 4 full weeks, so forecast day i falls on weekday i % 7 and the peak is day 5
+        assertTrue(out[5] > out[4] && out[5] > out[6]);
+        assertTrue(out[12] > out[11] && out[12] > out[13]);
+
+        assertThrows(IllegalArgumentException.class, () -> model.forecastInto(new double[13]));
+    }
+
+    @Test
+    void shortHistoryFallsBackToTheAverage() {
+        double[] history = {4, 6, 8, 6};
+        HoltWinters model = new HoltWinters(7, 10).fit(history, history.length);
+
+        assertEquals(60.0, model.forecastTotal(), 1e-9);
+        double[] out = new double[10];
+        assertEquals(60.0, model.forecastInto(out), 1e-9);
+        assertEquals(6.0, out[9], 1e-9);
+        assertEquals(0.0, new HoltWinters(7, 10).fit(history, 0).forecastTotal());
+    }
+
+    @Test
+    void restoredStateAdvancedByUpdateMatchesARefit() {
+        Random random = new Random(5);
+        double[] history = new double[DAYS + 3];
+        for (int i = 0; i < history.length; i++) history[i] = random.nextInt(40);
+
+        HoltWinters fitted = new HoltWinters(7, 30, 0.3, 0.05, 0.2).fit(history, DAYS);
+        double[] seasonals = new double[7];
+        fitted.copySeasonals(seasonals);
+
+        HoltWinters rolled = new HoltWinters(7, 30, 0.3, 0.05, 0.2)
+                .restore(fitted.level(), fitted.trend(), seasonals, fitted.observations());
+        for (int i = DAYS; i < history.length; i++) rolled.update(history[i]);
+        HoltWinters refit = new HoltWinters(7, 30, 0.3, 0.05, 0.2).fit(history, history.length);
+
+        assertEquals(refit.observations(), rolled.observations());
+        assertEquals(refit.level(), rolled.level());
+        assertEquals(refit.trend(), rolled.trend());
+        assertEquals(refit.forecastTotal(), rolled.forecastTotal());
+
+        HoltWinters flat = new HoltWinters(7, 30).fit(history, 10);
+        assertThrows(IllegalStateException.class, () -> flat.update(1));
+    }
+
+    @Test
+    void steadyStateForecastDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationCounting(threads);
+
+        double[] history = new double[DAYS];
+        for (int i = 0; i < DAYS; i++) history[i] = 20 + (i % 7) * 3;
+        HoltWinters model = new HoltWinters(7, 30);
+        double[] out = new double[30];
+
+        double sink = 0;
+        for (int i = 0; i < 20_000; i++) sink += model.fit(history, DAYS).forecastInto(out); // warm up
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            sink += model.fit(history, DAYS).forecastInto(out);
+            sink += HoltWinters.detectTrend(history, DAYS).length();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(sink > 0);
+        // Less than one byte per forecast leaves room for the measurement itself and JIT bookkeeping;
+        // a single boxed List forecast would be ~2 KB
+        assertTrue(allocated < 100_000, "allocated " + allocated + " bytes over 100k forecasts");
+    }
+
+    private static void assumeAllocationCounting(com.sun.management.ThreadMXBean threads) {
+        org.junit.jupiter.api.Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+}
@@ -0,0 +1,141 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.math.HoltWinters;
+import com.supplymind.platform_core.common.math.HoltWintersTuner;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tuned factors never do worse than the defaults on the tuning history, and a catalog-sized run stays
+ * within a weekly job's budget. The scale run size can be raised with {@code -Dforecast.tuning.products=40000}.
+ */
+class HoltWintersTunerTest {
+
+    private static final int DAYS = 180;
+
+    @Test
+    void tunedErrorIsNeverWorseThanTheDefaults() {
+        Random random = new Random(11);
+        HoltWintersTuner tuner = new HoltWintersTuner(7);
+        HoltWinters model = new HoltWinters(7, 30);
+        double[] history = new double[DAYS];
+        double[] best = new double[4];
+
+        int improved = 0;
+        for (int run = 0; run < 200; run++) {
+            fillSeries(random, history);
+            assertTrue(tuner.tune(history, DAYS, best));
+
+            double defaultMse = model.setParameters(HoltWinters.defaultAlpha(), HoltWinters.defaultBeta(),
+                    HoltWinters.defaultGamma()).fit(history, DAYS).oneStepMse();
+            assertTrue(best[3] <= defaultMse, "run " + run);
+            for (int k = 0; k < 3; k++) assertTrue(best[k] >= 0 && best[k] <= 1, "run " + run);
+
+            // The reported error is the error of the reported factors
+            assertEquals(best[3], model.setParameters(best[0], best[1], best[2]).fit(history, DAYS).oneStepMse(), 1e-9);
+            if (best[3] < defaultMse * 0.99) improved++;
+        }
+        assertTrue(improved > 100, "tuning should beat the defaults on most noisy series, got " + improved);
+    }
+
+    @Test
+    void weeklyPatternIsLearnedBetterThanWithDefaults() {
+        double[] history = new double[DAYS];
+        for (int i = 0; i < DAYS; i++) history[i] = (i % 7 == 5 ? 60 : 10) + i * 0.2;
+
+        double[] best = new double[4];
+        assertTrue(new HoltWintersTuner(7).tune(history, DAYS, best));
+        double defaultMse = new HoltWinters(7, 30).fit(history, DAYS).oneStepMse();
+        assertTrue(best[3] < defaultMse / 2, "tuned " + best[3] + " vs default " + defaultMse);
+    }
+
+    @Test
+    void flatSeriesKeepsTheDefaults() {
+        double[] history = new double[DAYS];
+        Arrays.fill(history, 12);
+
+        double[] best = new double[4];
+        assertTrue(new HoltWintersTuner(7).tune(history, DAYS, best));
+        assertArrayEquals(new double[]{HoltWinters.defaultAlpha(), HoltWinters.defaultBeta(), HoltWinters.defaultGamma(), 0},
+                best, 1e-12);
+    }
+
+    @Test
+    void tooShortSeriesIsNotTuned() {
+        double[] history = new double[14];
+        double[] best = {-1, -1, -1, -1};
+        assertFalse(new HoltWintersTuner(7).tune(history, 14, best));
+        assertArrayEquals(new double[]{-1, -1, -1, -1}, best);
+    }
+
+    @Test
+    void catalogScaleRun() {
+        int products = Integer.getInteger("forecast.tuning.products", 2_000);
+        Random random = new Random(3);
+        double[][] series = new double[products][DAYS];
+        for (double[] s : series) fillSeries(random, s);
+
+        double[][] results = new double[products][4];
+        AtomicInteger tuned = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(8);
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new Tune(series, results, 0, products, tuned));
+        } finally {
+            pool.shutdown();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(products, tuned.get());
+        System.out.printf("Tuned %d products x %d days in %d ms (%.2f ms/product, %d cores available)%n",
+                products, DAYS, millis, (double) millis / products, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Weekly peak, slow drift and noise, with some zero days like real sales
+    private static void fillSeries(Random random, double[] history) {
+        double base = 5 + random.nextInt(50);
+        double peak = random.nextDouble() * base;
+        double drift = (random.nextDouble() - 0.5) * 0.2;
+        int peakDay = random.nextInt(7);
+        for (int i = 0; i < history.length; i++) {
+            double value = base + drift * i + (i % 7 == peakDay ? peak : 0) + random.nextGaussian() * base * 0.3;
+            history[i] = random.nextInt(10) == 0 ? 0 : Math.max(0, Math.round(value));
+        }
+    }
+
+    private static final class Tune extends RecursiveAction {
+        private final double[][] series;
+        private final double[][] results;
+        private final int lo;
+        private final int hi;
+        private final AtomicInteger tuned;
+
+        Tune(double[][] series, double[][] results, int lo, int hi, AtomicInteger tuned) {
+            this.series = series;
+            this.results = results;
+            this.lo = lo;
+            this.hi = hi;
+            this.tuned = tuned;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 64) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Tune(series, results, lo, mid, tuned), new Tune(series, results, mid, hi, tuned));
+                return;
+            }
+            HoltWintersTuner tuner = new HoltWintersTuner(7);
+            for (int i = lo; i < hi; i++) {
+                if (tuner.tune(series[i], DAYS, results[i])) tuned.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.supplymind.platform_core;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.supplymind.platform_core.service.communication.EmailAutomationService;
+import com.supplymind.platform_core.service.communication.ImapConnectionPool;
+import com.supplymind.platform_core.service.communication.ImapIdleListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the IDLE listener against an embedded GreenMail IMAP server: new mail and reconnects
+ * must both wake the scanner.
+ */
+class ImapIdleListenerTest {
+
+    private static final String USER = "buyer@supplymind.test";
+    private static final String PASSWORD = "secret";
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP_IMAP);
+
+    private EmailAutomationService automation;
+    private ImapIdleListener listener;
+
+    @BeforeEach
+    void setUp() {
+        greenMail.setUser(USER, USER, PASSWORD);
+
+        ImapConnectionPool pool = new ImapConnectionPool();
+        ReflectionTestUtils.setField(pool, "host", "127.0.0.1");
+        ReflectionTestUtils.setField(pool, "port", greenMail.getImap().getPort());
+        ReflectionTestUtils.setField(pool, "protocol", "imap");
+        ReflectionTestUtils.setField(pool, "username", USER);
+        ReflectionTestUtils.setField(pool, "password", PASSWORD);
+
+        automation = mock(EmailAutomationService.class);
+        listener = new ImapIdleListener(pool, automation);
+        ReflectionTestUtils.setField(listener, "folderName", "INBOX");
+        ReflectionTestUtils.setField(listener, "keepaliveMinutes", 9L);
+        ReflectionTestUtils.setField(listener, "noopIntervalSeconds", 1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @Test
+    void newMailWakesTheScanner() {
+        listener.start();
+        // catch-up scan right after connecting
+        verify(automation, timeout(5000).times(1)).requestScan();
+
+        GreenMailUtil.sendTextEmail(USER, "supplier@acme.test", "Re: PO-42", "Shipped today", ServerSetupTest.SMTP);
+
+        verify(automation, timeout(10000).atLeast(2)).requestScan();
+    }
+
+    @Test
+    void reconnectsAfterServerDropsTheConnection() {
+        listener.start();
+        verify(automation, timeout(5000).times(1)).requestScan();
+
+        greenMail.reset();
+        greenMail.setUser(USER, USER, PASSWORD);
+
+        // second catch-up scan is only requested once the listener is connected again
+        verify(automation, timeout(15000).atLeast(2)).requestScan();
+    }
+}
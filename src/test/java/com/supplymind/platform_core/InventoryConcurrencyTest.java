@@ -0,0 +1,129 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.enums.InventoryTransactionType;
+import com.supplymind.platform_core.dto.core.inventory.InventoryTransactionRequest;
+import com.supplymind.platform_core.exception.BadRequestException;
+import com.supplymind.platform_core.model.core.Product;
+import com.supplymind.platform_core.model.core.Warehouse;
+import com.supplymind.platform_core.repository.core.InventoryRepository;
+import com.supplymind.platform_core.repository.core.ProductRepository;
+import com.supplymind.platform_core.repository.core.WarehouseRepository;
+import com.supplymind.platform_core.service.core.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Stress test for the atomic stock mutation path: 64 writers hammering the same
+ * (warehouse, product) row must never lose an update or drive stock below zero.
+ */
+@SpringBootTest
+class InventoryConcurrencyTest {
+
+    private static final int WRITERS = 64;
+    private static final int OPS_PER_WRITER = 25;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepo;
+
+    @Autowired
+    private WarehouseRepository warehouseRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    private Warehouse warehouse;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        warehouse = warehouseRepo.save(Warehouse.builder()
+                .locationName("Stress WH " + UUID.randomUUID())
+                .build());
+
+        product = productRepo.save(Product.builder()
+                .sku("STRESS-" + UUID.randomUUID().toString().substring(0, 8))
+                .name("Stress Product")
+                .unitPrice(BigDecimal.ONE)
+                .reorderPoint(0)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryRepo.findByWarehouse_WarehouseIdAndProduct_ProductId(warehouse.getWarehouseId(), product.getProductId())
+                .ifPresent(inventoryRepo::delete);
+        productRepo.delete(product);
+        warehouseRepo.delete(warehouse);
+    }
+
+    @Test
+    void concurrentReceiptsLoseNoUpdates() throws Exception {
+        runConcurrently(() -> inventoryService.recordTransaction(request(InventoryTransactionType.IN, 1)));
+
+        int onHand = inventoryRepo.findQtyOnHand(warehouse.getWarehouseId(), product.getProductId()).orElse(0);
+        assertEquals(WRITERS * OPS_PER_WRITER, onHand);
+    }
+
+    @Test
+    void concurrentIssuesNeverGoBelowZero() throws Exception {
+        int initial = (WRITERS * OPS_PER_WRITER) / 2;
+        inventoryService.recordTransaction(request(InventoryTransactionType.ADJUST, initial));
+
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(() -> {
+            try {
+                inventoryService.recordTransaction(request(InventoryTransactionType.OUT, 1));
+            } catch (BadRequestException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        int onHand = inventoryRepo.findQtyOnHand(warehouse.getWarehouseId(), product.getProductId()).orElse(-1);
+        assertEquals(0, onHand);
+        assertEquals(WRITERS * OPS_PER_WRITER - initial, rejected.get());
+    }
+
+    private InventoryTransactionRequest request(InventoryTransactionType type, int qty) {
+        return new InventoryTransactionRequest(warehouse.getWarehouseId(), product.getProductId(), type, qty);
+    }
+
+    private void runConcurrently(Runnable op) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int w = 0; w < WRITERS; w++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPS_PER_WRITER; i++) {
+                        op.run();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
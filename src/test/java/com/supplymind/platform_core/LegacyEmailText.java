@@ -0,0 +1,45 @@
+package com.supplymind.platform_core;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regex-based email cleanup that ImapInboxAdapter used before EmailTextExtractor,
+ * kept verbatim as the reference for equivalence tests and benchmarks.
+ */
+final class LegacyEmailText {
+    private LegacyEmailText() {}
+
+    private static final Pattern HTML_TAG_PATTERN = Pattern.compile("<[^>]+>");
+
+    private static final Pattern GMAIL_QUOTE_PATTERN = Pattern.compile(
+            "(?s)<div class=\"gmail_quote\">.*?</div>",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    private static final Pattern REPLY_SPLIT_PATTERN = Pattern.compile(
+            "(\\nOn\\s.+wrote:|\\nFrom:\\s.+|\\nSent:\\s.+|\\n-----Original Message-----|\\n_{5,})",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    static String htmlToText(String html) {
+        html = GMAIL_QUOTE_PATTERN.matcher(html).replaceAll("");
+
+        html = html.replaceAll("(?i)<br\\s*/?>", "\n")
+                .replaceAll("(?i)</p>", "\n\n")
+                .replaceAll("(?i)</div>", "\n");
+
+        String cleanText = HTML_TAG_PATTERN.matcher(html).replaceAll("").trim();
+        return cleanText.replace("&nbsp;", " ")
+                .replace("&amp;", "&").replace("&quot;", "\"")
+                .replace("&gt;", ">").replace("&lt;", "<");
+    }
+
+    static String cutReplyHistory(String body) {
+        Matcher matcher = REPLY_SPLIT_PATTERN.matcher(body);
+        if (matcher.find()) {
+            return body.substring(0, matcher.start()).trim();
+        }
+        return body;
+    }
+}
@@ -0,0 +1,217 @@
+package com.supplymind.platform_core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.supplymind.platform_core.service.intel.LlmGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LlmGateway against a local mock of the chat completions endpoint: retries, deadlines,
+ * circuit breaker, rate limiting and usage metrics.
+ */
+class LlmGatewayTest {
+
+    private static final List<Map<String, String>> PROMPT = List.of(Map.of("role", "user", "content", "hi"));
+    private static final String OK_BODY = """
+            {"choices":[{"message":{"content":"hello"}}],"usage":{"prompt_tokens":12,"completion_tokens":3}}
+            """;
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, int requestNumber) throws IOException;
+    }
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile Handler handler = (exchange, n) -> respond(exchange, 200, OK_BODY);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            handler.handle(exchange, requests.incrementAndGet());
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void returnsContentAndRecordsTokens() {
+        LlmGateway gateway = LlmTestSupport.gateway(baseUrl);
+
+        assertEquals("hello", gateway.complete(PROMPT, 0.1));
+
+        LlmGateway.Stats stats = gateway.stats();
+        assertEquals(1, stats.successes());
+        assertEquals(12, stats.promptTokens());
+        assertEquals(3, stats.completionTokens());
+        assertEquals("CLOSED", stats.circuitState());
+    }
+
+    @Test
+    void retriesServerErrorsAndRateLimits() {
+        handler = (exchange, n) -> {
+            if (n == 1) respond(exchange, 503, "{}");
+            else if (n == 2) respond(exchange, 429, "{}");
+            else respond(exchange, 200, OK_BODY);
+        };
+        LlmGateway gateway = LlmTestSupport.gateway(baseUrl, 3);
+
+        assertEquals("hello", gateway.complete(PROMPT, 0.1));
+        assertEquals(3, requests.get());
+        assertEquals(2, gateway.stats().retries());
+    }
+
+    @Test
+    void honoursRetryAfterGivenAsAnHttpDate() {
+        // HTTP-dates have second resolution: this asks for a wait of roughly 1-2 s
+        String retryAt = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(2));
+        handler = (exchange, n) -> {
+            if (n == 1) {
+                exchange.getResponseHeaders().add("Retry-After", retryAt);
+                respond(exchange, 503, "{}");
+            } else {
+                respond(exchange, 200, OK_BODY);
+            }
+        };
+        LlmGateway gateway = LlmTestSupport.gateway(baseUrl, 2);
+
+        long start = System.nanoTime();
+        assertEquals("hello", gateway.complete(PROMPT, 0.1));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(2, requests.get());
+        assertTrue(elapsedMs >= 900, "waited for the Retry-After date, took " + elapsedMs + " ms");
+        assertEquals(1, gateway.stats().retries());
+    }
+
+    @Test
+    void unreadableRetryAfterFallsBackToBackoff() {
+        handler = (exchange, n) -> {
+            if (n == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "soon");
+                respond(exchange, 429, "{}");
+            } else {
+                respond(exchange, 200, OK_BODY);
+            }
+        };
+        LlmGateway gateway = LlmTestSupport.gateway(baseUrl, 2);
+
+        assertEquals("hello", gateway.complete(PROMPT, 0.1));
+        assertEquals(2, requests.get());
+        assertEquals(1, gateway.stats().retries());
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        handler = (exchange, n) -> respond(exchange, 400, "{\"error\":\"bad model\"}");
+        LlmGateway gateway = LlmTestSupport.gateway(baseUrl, 3);
+
+        assertThrows(LlmGateway.LlmException.class, () -> gateway.complete(PROMPT, 0.1));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void stalledCallEndsAtTheDeadline() {
+        handler = (exchange, n) -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException ignored) {
+            }
+            respond(exchange, 200, OK_BODY);
+        };
+        LlmGateway gateway = LlmTestSupport.gateway(baseUrl, 3);
+
+        long start = System.nanoTime();
+        assertThrows(LlmGateway.LlmException.class, () -> gateway.complete(PROMPT, 0.1, Duration.ofMillis(300)));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 1500, "deadline covers all attempts, took " + elapsedMs + " ms");
+        assertTrue(gateway.stats().timeouts() >= 1);
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingTheServer() {
+        handler = (exchange, n) -> respond(exchange, 500, "{}");
+        LlmGateway gateway = LlmTestSupport.gateway(baseUrl, 1);
+        ReflectionTestUtils.setField(gateway, "failureThreshold", 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(LlmGateway.LlmException.class, () -> gateway.complete(PROMPT, 0.1));
+        }
+        assertEquals("OPEN", gateway.stats().circuitState());
+
+        assertThrows(LlmGateway.LlmException.class, () -> gateway.complete(PROMPT, 0.1));
+        assertEquals(3, requests.get(), "no request while the circuit is open");
+        assertEquals(1, gateway.stats().shortCircuited());
+    }
+
+    @Test
+    void halfOpenTrialClosesTheCircuitAgain() throws Exception {
+        handler = (exchange, n) -> respond(exchange, n <= 2 ? 500 : 200, n <= 2 ? "{}" : OK_BODY);
+        LlmGateway gateway = LlmTestSupport.gateway(baseUrl, 1);
+        ReflectionTestUtils.setField(gateway, "failureThreshold", 2);
+        ReflectionTestUtils.setField(gateway, "openSeconds", 1L);
+
+        assertThrows(LlmGateway.LlmException.class, () -> gateway.complete(PROMPT, 0.1));
+        assertThrows(LlmGateway.LlmException.class, () -> gateway.complete(PROMPT, 0.1));
+        assertEquals("OPEN", gateway.stats().circuitState());
+
+        Thread.sleep(1100);
+        assertEquals("HALF_OPEN", gateway.stats().circuitState());
+        assertEquals("hello", gateway.complete(PROMPT, 0.1));
+        assertEquals("CLOSED", gateway.stats().circuitState());
+    }
+
+    @Test
+    void rateLimiterSpacesCallsAndGivesUpAtTheDeadline() {
+        LlmGateway gateway = LlmTestSupport.gateway(baseUrl);
+        ReflectionTestUtils.setField(gateway, "permitsPerSecond", 5.0);
+        ReflectionTestUtils.setField(gateway, "burst", 1);
+        ReflectionTestUtils.invokeMethod(gateway, "init");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) gateway.complete(PROMPT, 0.1);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs >= 350, "3 calls at 5/s with burst 1 need ~400 ms, took " + elapsedMs);
+
+        // Bucket is empty again: a permit is 200 ms away, longer than this deadline
+        assertThrows(LlmGateway.LlmException.class, () -> gateway.complete(PROMPT, 0.1, Duration.ofMillis(50)));
+        assertEquals(1, gateway.stats().rateLimited());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
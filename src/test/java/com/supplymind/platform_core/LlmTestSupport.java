@@ -0,0 +1,34 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.service.intel.LlmGateway;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds an {@link LlmGateway} pointed at a local stub server, with limits loose enough
+ * not to interfere unless a test tightens them.
+ */
+final class LlmTestSupport {
+    private LlmTestSupport() {}
+
+    static LlmGateway gateway(String baseUrl) {
+        return gateway(baseUrl, 1);
+    }
+
+    static LlmGateway gateway(String baseUrl, int maxAttempts) {
+        LlmGateway gateway = new LlmGateway();
+        ReflectionTestUtils.setField(gateway, "apiKey", "test-key");
+        ReflectionTestUtils.setField(gateway, "baseUrl", baseUrl);
+        ReflectionTestUtils.setField(gateway, "model", "test-model");
+        ReflectionTestUtils.setField(gateway, "connectTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(gateway, "defaultDeadlineMs", 5000L);
+        ReflectionTestUtils.setField(gateway, "maxConcurrency", 16);
+        ReflectionTestUtils.setField(gateway, "permitsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(gateway, "burst", 100);
+        ReflectionTestUtils.setField(gateway, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(gateway, "baseBackoffMs", 10L);
+        ReflectionTestUtils.setField(gateway, "failureThreshold", 100);
+        ReflectionTestUtils.setField(gateway, "openSeconds", 30L);
+        ReflectionTestUtils.invokeMethod(gateway, "init");
+        return gateway;
+    }
+}
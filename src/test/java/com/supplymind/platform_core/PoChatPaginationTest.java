@@ -0,0 +1,136 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.enums.PurchaseOrderStatus;
+import com.supplymind.platform_core.dto.core.purchaseorder.InboxMessage;
+import com.supplymind.platform_core.model.communication.MailSyncState;
+import com.supplymind.platform_core.model.core.PurchaseOrder;
+import com.supplymind.platform_core.model.core.Supplier;
+import com.supplymind.platform_core.model.core.Warehouse;
+import com.supplymind.platform_core.repository.communication.MailSyncStateRepository;
+import com.supplymind.platform_core.repository.communication.PoMessageRepository;
+import com.supplymind.platform_core.repository.core.PurchaseOrderRepository;
+import com.supplymind.platform_core.repository.core.SupplierRepository;
+import com.supplymind.platform_core.repository.core.WarehouseRepository;
+import com.supplymind.platform_core.service.communication.InboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PO chat reads from the local po_message store: Message-ID dedupe and keyset pages
+ * that are gap-free, non-overlapping and oldest-first within a page.
+ */
+@SpringBootTest
+class PoChatPaginationTest {
+
+    private static final int MESSAGES = 5;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private PoMessageRepository poMessageRepo;
+
+    @Autowired
+    private MailSyncStateRepository syncStateRepo;
+
+    @Autowired
+    private PurchaseOrderRepository poRepo;
+
+    @Autowired
+    private SupplierRepository supplierRepo;
+
+    @Autowired
+    private WarehouseRepository warehouseRepo;
+
+    private Supplier supplier;
+    private Warehouse warehouse;
+    private PurchaseOrder po;
+    private String label;
+
+    @BeforeEach
+    void setUp() {
+        supplier = supplierRepo.save(Supplier.builder()
+                .name("Chat Supplier " + UUID.randomUUID())
+                .build());
+        warehouse = warehouseRepo.save(Warehouse.builder()
+                .locationName("Chat WH")
+                .build());
+        po = poRepo.save(PurchaseOrder.builder()
+                .supplier(supplier)
+                .warehouse(warehouse)
+                .status(PurchaseOrderStatus.EMAIL_SENT)
+                .totalAmount(BigDecimal.ZERO)
+                .build());
+
+        // Mark the IMAP backfill as done so the test never touches a mail server
+        label = "SupplyMind/PO-" + po.getPoId();
+        syncStateRepo.save(MailSyncState.builder().folderName(label).uidValidity(1L).lastUid(0L).build());
+
+        long base = 1_700_000_000_000L;
+        for (int i = 0; i < MESSAGES; i++) {
+            inboxService.storeMessage(po.getPoId(), message("<msg-" + i + "-" + po.getPoId() + "@test>", base + i * 1000L));
+        }
+        // Same Message-ID again (e.g. re-scan after a failed checkpoint)
+        inboxService.storeMessage(po.getPoId(), message("<msg-0-" + po.getPoId() + "@test>", base));
+    }
+
+    @AfterEach
+    void tearDown() {
+        poMessageRepo.deleteAll(poMessageRepo.findByPoIdOrderBySentAtDescIdDesc(po.getPoId(),
+                PageRequest.of(0, 100)));
+        syncStateRepo.deleteById(label);
+        poRepo.delete(po);
+        warehouseRepo.delete(warehouse);
+        supplierRepo.delete(supplier);
+    }
+
+    @Test
+    void pagesWalkBackwardsWithoutGapsOrDuplicates() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+
+        do {
+            InboxService.ChatPage page = inboxService.getPoChat(po.getPoId(), cursor, 2);
+            List<InboxMessage> msgs = page.messages();
+            for (int i = 1; i < msgs.size(); i++) {
+                assertTrue(msgs.get(i - 1).getTimestamp() < msgs.get(i).getTimestamp(), "page must be oldest-first");
+            }
+            // prepend: each page is older than everything seen so far
+            List<Long> pageTimestamps = msgs.stream().map(InboxMessage::getTimestamp).toList();
+            if (!seen.isEmpty()) {
+                assertTrue(pageTimestamps.get(pageTimestamps.size() - 1) < seen.get(0));
+            }
+            seen.addAll(0, pageTimestamps);
+
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertEquals(MESSAGES, seen.size(), "duplicate Message-ID must not be stored twice");
+        assertEquals(3, pages);
+    }
+
+    private InboxMessage message(String messageId, long timestamp) {
+        return InboxMessage.builder()
+                .messageId(messageId)
+                .subject("Re: PO-" + po.getPoId())
+                .from("supplier@acme.test")
+                .body("Body " + messageId)
+                .snippet("Body " + messageId)
+                .timestamp(timestamp)
+                .attachments(List.of("invoice.pdf"))
+                .build();
+    }
+}
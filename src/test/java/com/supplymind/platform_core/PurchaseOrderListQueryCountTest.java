@@ -0,0 +1,125 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.enums.PurchaseOrderStatus;
+import com.supplymind.platform_core.model.core.*;
+import com.supplymind.platform_core.repository.core.*;
+import com.supplymind.platform_core.service.core.PurchaseOrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Regression guard for the PO list endpoint: the number of SQL statements must not
+ * grow with the page size (header page + count + one IN query for the items).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PurchaseOrderListQueryCountTest {
+
+    private static final int PO_COUNT = 20;
+    private static final int ITEMS_PER_PO = 3;
+
+    @Autowired
+    private PurchaseOrderService purchaseOrderService;
+
+    @Autowired
+    private PurchaseOrderRepository poRepo;
+
+    @Autowired
+    private PurchaseOrderItemRepository itemRepo;
+
+    @Autowired
+    private SupplierRepository supplierRepo;
+
+    @Autowired
+    private WarehouseRepository warehouseRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Supplier supplier;
+    private Warehouse warehouse;
+    private final List<Product> products = new ArrayList<>();
+    private final List<PurchaseOrder> pos = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        supplier = supplierRepo.save(Supplier.builder()
+                .name("Query Count Supplier " + UUID.randomUUID())
+                .build());
+        warehouse = warehouseRepo.save(Warehouse.builder()
+                .locationName("Query Count WH")
+                .build());
+
+        for (int p = 0; p < ITEMS_PER_PO; p++) {
+            products.add(productRepo.save(Product.builder()
+                    .sku("QC-" + UUID.randomUUID().toString().substring(0, 8))
+                    .name("Query Count Product " + p)
+                    .unitPrice(BigDecimal.TEN)
+                    .build()));
+        }
+
+        for (int i = 0; i < PO_COUNT; i++) {
+            PurchaseOrder po = poRepo.save(PurchaseOrder.builder()
+                    .supplier(supplier)
+                    .warehouse(warehouse)
+                    .status(PurchaseOrderStatus.DRAFT)
+                    .totalAmount(BigDecimal.ZERO)
+                    .build());
+            for (Product product : products) {
+                itemRepo.save(PurchaseOrderItem.builder()
+                        .po(po)
+                        .product(product)
+                        .orderedQty(1)
+                        .unitCost(BigDecimal.TEN)
+                        .build());
+            }
+            pos.add(po);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (PurchaseOrder po : pos) {
+            itemRepo.deleteAll(itemRepo.findAllByPo_PoId(po.getPoId()));
+            poRepo.delete(po);
+        }
+        productRepo.deleteAll(products);
+        warehouseRepo.delete(warehouse);
+        supplierRepo.delete(supplier);
+    }
+
+    @Test
+    void statementCountIsIndependentOfPageSize() {
+        long small = statementsForPageSize(2);
+        long large = statementsForPageSize(PO_COUNT);
+
+        assertEquals(small, large, "PO list issued more statements for a larger page (N+1 regression)");
+    }
+
+    private long statementsForPageSize(int size) {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        purchaseOrderService.list(null, supplier.getSupplierId(), null,
+                PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "poId")));
+
+        return stats.getPrepareStatementCount();
+    }
+}
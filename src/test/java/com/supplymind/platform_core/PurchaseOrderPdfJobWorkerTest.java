@@ -0,0 +1,217 @@
+package com.supplymind.platform_core;
+
+import com.supplymind.platform_core.common.enums.PdfJobStatus;
+import com.supplymind.platform_core.common.enums.PurchaseOrderStatus;
+import com.supplymind.platform_core.common.enums.Role;
+import com.supplymind.platform_core.model.auth.User;
+import com.supplymind.platform_core.model.core.*;
+import com.supplymind.platform_core.repository.auth.UserRepository;
+import com.supplymind.platform_core.repository.core.*;
+import com.supplymind.platform_core.service.common.PdfGenerationService;
+import com.supplymind.platform_core.service.common.StorageService;
+import com.supplymind.platform_core.service.core.PurchaseOrderService;
+import com.supplymind.platform_core.service.impl.core.PurchaseOrderPdfJobWorker;
+import com.supplymind.platform_core.service.intel.EmailDraftService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * PO PDF outbox: approval hands the job to the worker right after commit (the fallback poller is pushed
+ * out of the test window), and failures are retried with exponential backoff until MAX_ATTEMPTS.
+ */
+@SpringBootTest(properties = {
+        "po.pdf.poll-initial-delay-ms=3600000",
+        "po.pdf.poll-delay-ms=3600000"
+})
+class PurchaseOrderPdfJobWorkerTest {
+
+    private static final String OBJECT_KEY = "invoice/test-po.pdf";
+
+    @Autowired
+    private PurchaseOrderService purchaseOrderService;
+
+    @Autowired
+    private PurchaseOrderPdfJobWorker worker;
+
+    @Autowired
+    private PurchaseOrderPdfJobRepository jobRepo;
+
+    @Autowired
+    private PurchaseOrderRepository poRepo;
+
+    @Autowired
+    private PurchaseOrderItemRepository itemRepo;
+
+    @Autowired
+    private SupplierRepository supplierRepo;
+
+    @Autowired
+    private WarehouseRepository warehouseRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @MockitoBean
+    private PdfGenerationService pdfGenerationService;
+
+    @MockitoBean
+    private StorageService storageService;
+
+    @MockitoBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @MockitoBean
+    private EmailDraftService emailDraftService;
+
+    private Supplier supplier;
+    private Warehouse warehouse;
+    private Product product;
+    private User approver;
+    private PurchaseOrder po;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        supplier = supplierRepo.save(Supplier.builder()
+                .name("PDF Supplier " + UUID.randomUUID())
+                .build());
+        warehouse = warehouseRepo.save(Warehouse.builder()
+                .locationName("PDF WH")
+                .build());
+        product = productRepo.save(Product.builder()
+                .sku("PDF-" + UUID.randomUUID().toString().substring(0, 8))
+                .name("PDF Product")
+                .unitPrice(BigDecimal.TEN)
+                .build());
+
+        approver = new User();
+        approver.setFirstName("Pdf");
+        approver.setLastName("Approver");
+        approver.setEmail("pdf-approver-" + UUID.randomUUID() + "@test.local");
+        approver.setPasswordHash("x");
+        approver.setRole(Role.MANAGER);
+        approver = userRepo.save(approver);
+
+        po = poRepo.save(PurchaseOrder.builder()
+                .supplier(supplier)
+                .warehouse(warehouse)
+                .status(PurchaseOrderStatus.PENDING_APPROVAL)
+                .totalAmount(BigDecimal.TEN)
+                .build());
+        itemRepo.save(PurchaseOrderItem.builder()
+                .po(po)
+                .product(product)
+                .orderedQty(1)
+                .unitCost(BigDecimal.TEN)
+                .build());
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                approver.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_MANAGER"))));
+
+        when(storageService.buildObjectKey(anyString(), any(), anyString())).thenReturn(OBJECT_KEY);
+        when(storageService.presignGetUrl(OBJECT_KEY)).thenReturn("https://storage.test/" + OBJECT_KEY);
+        when(pdfGenerationService.generatePurchaseOrderPdf(any(), any(), anyBoolean()))
+                .thenAnswer(inv -> Files.createTempFile("po-", ".pdf").toFile());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        jobRepo.deleteAll(jobRepo.findByPoIdOrderByJobIdDesc(po.getPoId()));
+        itemRepo.deleteAll(itemRepo.findAllByPo_PoId(po.getPoId()));
+        poRepo.deleteById(po.getPoId());
+        userRepo.delete(approver);
+        productRepo.delete(product);
+        warehouseRepo.delete(warehouse);
+        supplierRepo.delete(supplier);
+    }
+
+    @Test
+    void approvalRendersThePdfRightAfterCommit() throws Exception {
+        purchaseOrderService.approve(po.getPoId());
+
+        PurchaseOrderPdfJob job = awaitJob(j -> j.getStatus() == PdfJobStatus.DONE);
+        assertEquals(1, job.getAttempts());
+        assertNull(job.getLastError());
+        assertEquals(OBJECT_KEY, poRepo.findById(po.getPoId()).orElseThrow().getPdfUrl());
+        verify(storageService).uploadFile(eq(OBJECT_KEY), any(File.class), eq("application/pdf"));
+    }
+
+    @Test
+    void failedRenderIsRetriedWithBackoffUntilMaxAttempts() throws Exception {
+        when(pdfGenerationService.generatePurchaseOrderPdf(any(), any(), anyBoolean()))
+                .thenThrow(new IOException("font missing"));
+
+        Instant approvedAt = Instant.now();
+        purchaseOrderService.approve(po.getPoId());
+
+        // First failure: back to PENDING, next attempt after the 15s base backoff
+        PurchaseOrderPdfJob job = awaitJob(j -> j.getAttempts() == 1);
+        assertEquals(PdfJobStatus.PENDING, job.getStatus());
+        assertEquals("font missing", job.getLastError());
+        Duration delay = Duration.between(approvedAt, job.getNextAttemptAt());
+        assertTrue(delay.compareTo(Duration.ofSeconds(14)) > 0 && delay.compareTo(Duration.ofSeconds(20)) < 0,
+                "backoff was " + delay);
+
+        // Not due yet: the poller leaves it alone
+        worker.poll();
+        Thread.sleep(200);
+        assertEquals(1, jobRepo.findById(job.getJobId()).orElseThrow().getAttempts());
+
+        // Fourth failure doubles the backoff three times: 15s * 8 = 120s
+        job.setAttempts(3);
+        job.setNextAttemptAt(Instant.now());
+        jobRepo.save(job);
+        Instant retriedAt = Instant.now();
+        worker.poll();
+        job = awaitJob(j -> j.getAttempts() == 4);
+        assertEquals(PdfJobStatus.PENDING, job.getStatus());
+        delay = Duration.between(retriedAt, job.getNextAttemptAt());
+        assertTrue(delay.compareTo(Duration.ofSeconds(119)) > 0 && delay.compareTo(Duration.ofSeconds(125)) < 0,
+                "backoff was " + delay);
+
+        // Fifth failure is final
+        job.setNextAttemptAt(Instant.now());
+        jobRepo.save(job);
+        worker.poll();
+        job = awaitJob(j -> j.getStatus() == PdfJobStatus.FAILED);
+        assertEquals(5, job.getAttempts());
+        assertNull(poRepo.findById(po.getPoId()).orElseThrow().getPdfUrl());
+        verify(storageService, never()).uploadFile(anyString(), any(File.class), anyString());
+    }
+
+    private PurchaseOrderPdfJob awaitJob(Predicate<PurchaseOrderPdfJob> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            List<PurchaseOrderPdfJob> jobs = jobRepo.findByPoIdOrderByJobIdDesc(po.getPoId());
+            if (!jobs.isEmpty() && condition.test(jobs.get(0))) return jobs.get(0);
+            if (System.nanoTime() > deadline) fail("PDF job did not reach the expected state: " + jobs);
+            Thread.sleep(50);
+        }
+    }
+}